@@ -33,9 +33,13 @@ import android.widget.Toast;
 
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.jsoup.select.Elements;
 
+import java.util.List;
+
+import xyz.klinker.android.article.ArticleExecutor.Lane;
+import xyz.klinker.android.article.ArticleExecutor.Priority;
 import xyz.klinker.android.article.data.Article;
+import xyz.klinker.android.article.data.ArticleBlock;
 import xyz.klinker.android.article.data.DataSource;
 import xyz.klinker.android.drag_dismiss.activity.DragDismissRecyclerViewActivity;
 
@@ -80,7 +84,8 @@ public final class ArticleActivity extends DragDismissRecyclerViewActivity
         }
 
         DataSource source = DataSource.get(this);
-        this.utils = new ArticleUtils(getIntent().getStringExtra(ArticleIntent.EXTRA_API_TOKEN));
+        this.utils = new ArticleUtils(this,
+                getIntent().getStringExtra(ArticleIntent.EXTRA_API_TOKEN));
         this.utils.loadArticle(url, source, this);
 
         this.accentColor = getIntent().getIntExtra(ArticleIntent.EXTRA_ACCENT_COLOR,
@@ -99,7 +104,7 @@ public final class ArticleActivity extends DragDismissRecyclerViewActivity
     public void onArticleLoaded(Article article) {
         hideProgressBar();
 
-        if (article == null || !article.isArticle || article.content == null) {
+        if (article == null || !article.isArticle || !article.hasContent()) {
             if (DEBUG) {
                 Log.v(TAG, "not an article or couldn't fetch url");
             }
@@ -117,20 +122,42 @@ public final class ArticleActivity extends DragDismissRecyclerViewActivity
 
             adapter = new ArticleAdapter(article, accentColor, textSize,
                     getIntent().getIntExtra(ArticleIntent.EXTRA_THEME, ArticleIntent.THEME_AUTO));
+            adapter.setFirstElementBoundListener(new ArticleAdapter.FirstElementBoundListener() {
+                @Override
+                public void onFirstElementBound(long elementsAddedAt) {
+                    utils.onFirstElementBound(ArticleActivity.this.article, elementsAddedAt);
+                }
+            });
             recyclerView.setAdapter(adapter);
 
-            utils.parseArticleContent(article, this);
+            utils.parseArticleContent(article, DataSource.get(this), this);
             delegate.getProgressBar().setVisibility(View.GONE);
 
             invalidateOptionsMenu();
+            markArticleRead(article);
         }
     }
 
+    private void markArticleRead(final Article article) {
+        ArticleExecutor.get().execute(Lane.DATABASE, Priority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                DataSource.Lease lease = DataSource.get(ArticleActivity.this).lease();
+                try {
+                    lease.get().markArticleRead(article);
+                } finally {
+                    lease.release();
+                }
+            }
+        });
+    }
+
     @Override
-    public void onArticleParsed(Elements elements) {
-        if (elements != null && elements.size() >= MIN_NUM_ELEMENTS) {
-            adapter.addElements(elements);
+    public void onArticleParsed(List<ArticleBlock> blocks) {
+        if (blocks != null && blocks.size() >= MIN_NUM_ELEMENTS) {
+            adapter.addBlocks(blocks);
         } else {
+            utils.finishTimeline(article);
             openChromeCustomTab();
         }
     }
@@ -232,15 +259,17 @@ public final class ArticleActivity extends DragDismissRecyclerViewActivity
         article.saved = !article.saved;
         invalidateOptionsMenu();
 
-        new Thread(new Runnable() {
+        ArticleExecutor.get().execute(Lane.DATABASE, Priority.USER, new Runnable() {
             @Override
             public void run() {
-                DataSource source = DataSource.get(ArticleActivity.this);
-                source.open();
-                source.updateSavedArticleState(article);
-                source.close();
+                DataSource.Lease lease = DataSource.get(ArticleActivity.this).lease();
+                try {
+                    lease.get().updateSavedArticleState(article);
+                } finally {
+                    lease.release();
+                }
             }
-        }).start();
+        });
 
         Intent intent = new Intent(ACTION_SAVED_ARTICLE);
         intent.setClassName(this, getIntent().getStringExtra(ArticleIntent.EXTRA_FAVORITE_SERVICE));
@@ -46,13 +46,12 @@ import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.SimpleTarget;
 import com.bumptech.glide.request.transition.Transition;
 
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import xyz.klinker.android.article.data.Article;
+import xyz.klinker.android.article.data.ArticleBlock;
 import xyz.klinker.android.drag_dismiss.DragDismissIntentBuilder;
 
 /**
@@ -88,12 +87,14 @@ final class ArticleAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     private static final int MIN_IMAGE_HEIGHT = 100; // px
 
     private Article article;
-    private Elements elements;
+    private List<ArticleBlock> blocks;
     private int accentColor;
     private int textSize;
     private int theme;
     private int imageWidth;
     private int imageHeight;
+    private long elementsAddedAt;
+    private FirstElementBoundListener firstElementBoundListener;
 
     ArticleAdapter(Article article, int accentColor, int textSize, int theme) {
         this.article = article;
@@ -116,9 +117,14 @@ final class ArticleAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
                 resources.getDimensionPixelSize(R.dimen.article_imageHeight);
     }
 
-    void addElements(Elements elements) {
-        this.elements = elements;
-        notifyItemRangeInserted(getTopItemCount(), elements.size());
+    void setFirstElementBoundListener(FirstElementBoundListener listener) {
+        this.firstElementBoundListener = listener;
+    }
+
+    void addBlocks(List<ArticleBlock> blocks) {
+        this.blocks = blocks;
+        this.elementsAddedAt = System.nanoTime();
+        notifyItemRangeInserted(getTopItemCount(), blocks.size());
     }
 
     @Override
@@ -172,9 +178,14 @@ final class ArticleAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
         int topItemCount = getTopItemCount();
         if (position >= topItemCount) {
+            if (firstElementBoundListener != null && elementsAddedAt != 0) {
+                firstElementBoundListener.onFirstElementBound(elementsAddedAt);
+                elementsAddedAt = 0;
+            }
+
             if (holder instanceof ImageViewHolder) {
                 String src = ArticleUtils
-                        .decodeImageUrl(elements.get(position - topItemCount).attr("src"));
+                        .decodeImageUrl(blocks.get(position - topItemCount).src);
                 final ImageView image = ((ImageViewHolder) holder).image;
 
                 if (src.startsWith("data:")) {
@@ -189,7 +200,7 @@ final class ArticleAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
                         image.getLayoutParams();
 
                 if (position - topItemCount - 1 >= 0 &&
-                        !elements.get(position - topItemCount - 1).tagName().equals("img")) {
+                        !blocks.get(position - topItemCount - 1).isImage()) {
                     params.topMargin = image.getContext().getResources()
                             .getDimensionPixelSize(R.dimen.article_extraImagePadding);
                 } else {
@@ -197,7 +208,7 @@ final class ArticleAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
                 }
 
                 if (position != getItemCount() - 1 &&
-                        !elements.get(position - topItemCount + 1).tagName().equals("img")) {
+                        !blocks.get(position - topItemCount + 1).isImage()) {
                     params.bottomMargin = image.getContext().getResources()
                             .getDimensionPixelSize(R.dimen.article_extraImagePadding);
                 } else {
@@ -228,7 +239,7 @@ final class ArticleAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
                         });
 
             } else if (holder instanceof TextViewHolder) {
-                String text = elements.get(position - topItemCount).text().trim();
+                String text = blocks.get(position - topItemCount).text;
                 TextView textView = ((TextViewHolder) holder).text;
 
                 ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams)
@@ -278,10 +289,10 @@ final class ArticleAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     public int getItemViewType(int position) {
         int topItemCount = getTopItemCount();
         if (position >= topItemCount) {
-            Element element = elements.get(position - topItemCount);
-            String tag = element.tagName();
+            ArticleBlock block = blocks.get(position - topItemCount);
+            String tag = block.tag;
             if (tag.equals("li")) {
-                tag = element.parent().tagName() + "." + tag;
+                tag = block.parentTag + "." + tag;
             }
 
             return getItemTypeForTag(tag);
@@ -300,8 +311,8 @@ final class ArticleAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
 
         count += getTopItemCount();
 
-        if (elements != null) {
-            count += elements.size();
+        if (blocks != null) {
+            count += blocks.size();
         }
 
         return count;
@@ -442,4 +453,10 @@ final class ArticleAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         }
     }
 
+    /**
+     * Notified once, when the first parsed block is bound after {@link #addBlocks(List)}.
+     */
+    interface FirstElementBoundListener {
+        void onFirstElementBound(long elementsAddedAt);
+    }
 }
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteException;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import xyz.klinker.android.article.ArticleExecutor.Lane;
+import xyz.klinker.android.article.ArticleExecutor.Priority;
+import xyz.klinker.android.article.data.DataSource;
+
+/**
+ * Keeps the article cache inside of a size budget. Once started, the least recently read
+ * articles that have not been saved are evicted periodically on the database lane, and the freed
+ * pages are handed back to the file system. Urls that are remembered as not being articles are
+ * dropped here too, once they expire.
+ *
+ * Nothing is evicted until the app opts in by calling {@link #start()} or {@link #evictNow()},
+ * ideally after choosing a budget that suits it with {@link #setMaxBytes(long)} and
+ * {@link #setMaxArticles(int)}.
+ */
+public final class ArticleCacheEvictor {
+
+    private static final String TAG = "ArticleCacheEvictor";
+
+    public static final long DEFAULT_MAX_BYTES = 50L * 1024 * 1024;
+    public static final int DEFAULT_MAX_ARTICLES = 2000;
+    public static final long DEFAULT_INTERVAL_MILLIS = 6L * 60 * 60 * 1000;
+
+    private static volatile ArticleCacheEvictor instance;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduled = new Runnable() {
+        @Override
+        public void run() {
+            evictNow();
+            handler.postDelayed(this, intervalMillis);
+        }
+    };
+
+    private volatile long maxBytes = DEFAULT_MAX_BYTES;
+    private volatile int maxArticles = DEFAULT_MAX_ARTICLES;
+    private volatile long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+    private boolean started;
+    private boolean vacuumChecked;
+
+    private final AtomicLong totalEvicted = new AtomicLong();
+    private volatile int lastRunEvicted;
+    private volatile long lastRunAt;
+    private volatile long databaseBytes;
+
+    /**
+     * Gets the shared evictor for the process.
+     *
+     * @param context the current application context.
+     * @return the evictor.
+     */
+    public static ArticleCacheEvictor get(Context context) {
+        if (instance == null) {
+            synchronized (ArticleCacheEvictor.class) {
+                if (instance == null) {
+                    instance = new ArticleCacheEvictor(context.getApplicationContext());
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    private ArticleCacheEvictor(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Sets the estimated number of bytes that cached articles can take up. Saved articles count
+     * towards this but are never evicted.
+     *
+     * @param maxBytes the budget in bytes.
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Sets the number of articles that can be cached, including saved articles.
+     *
+     * @param maxArticles the maximum number of articles.
+     */
+    public void setMaxArticles(int maxArticles) {
+        this.maxArticles = maxArticles;
+    }
+
+    /**
+     * Sets how often eviction runs once started. Takes effect after the next run.
+     *
+     * @param intervalMillis the time between runs.
+     */
+    public void setInterval(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Starts evicting periodically. The first run happens right away. Calling this again while
+     * started does nothing.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        started = true;
+        handler.post(scheduled);
+    }
+
+    /**
+     * Stops evicting periodically. A run that is already queued will still finish.
+     */
+    public synchronized void stop() {
+        started = false;
+        handler.removeCallbacks(scheduled);
+    }
+
+    /**
+     * Queues a single eviction run on the database lane.
+     */
+    public void evictNow() {
+        ArticleExecutor.get().execute(Lane.DATABASE, Priority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                evict();
+            }
+        });
+    }
+
+    private void evict() {
+        DataSource.Lease lease = DataSource.get(context).lease();
+        try {
+            evict(lease.get());
+        } finally {
+            lease.release();
+        }
+    }
+
+    /**
+     * Runs each step on its own so that a database error in one of them, like a full disk, is
+     * logged and the rest of the run still happens. Nothing is thrown back to the executor.
+     */
+    @VisibleForTesting
+    void evict(DataSource source) {
+        if (!vacuumChecked) {
+            try {
+                // databases created before the budget existed need a one time VACUUM so that
+                // evicted pages can be reclaimed.
+                source.enableIncrementalVacuum();
+                vacuumChecked = true;
+            } catch (SQLiteException e) {
+                Log.w(TAG, "couldn't enable incremental vacuum", e);
+            }
+        }
+
+        try {
+            source.deleteExpiredNonArticles();
+        } catch (SQLiteException e) {
+            Log.w(TAG, "couldn't delete expired non articles", e);
+        }
+
+        int evicted = 0;
+        try {
+            evicted = source.evictArticles(maxBytes, maxArticles);
+        } catch (SQLiteException e) {
+            Log.w(TAG, "couldn't evict articles", e);
+        }
+
+        if (evicted > 0) {
+            try {
+                source.reclaimSpace();
+            } catch (SQLiteException e) {
+                Log.w(TAG, "couldn't reclaim space", e);
+            }
+        }
+
+        try {
+            databaseBytes = source.getDatabaseSize();
+        } catch (SQLiteException e) {
+            Log.w(TAG, "couldn't get the database size", e);
+        }
+
+        totalEvicted.addAndGet(evicted);
+        lastRunEvicted = evicted;
+        lastRunAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets a snapshot of what the evictor has done so far in this process.
+     *
+     * @return the current stats.
+     */
+    public Stats getStats() {
+        return new Stats(totalEvicted.get(), lastRunEvicted, lastRunAt, databaseBytes);
+    }
+
+    /**
+     * Snapshot of the eviction counters.
+     */
+    public static final class Stats {
+
+        private final long totalEvicted;
+        private final int lastRunEvicted;
+        private final long lastRunAt;
+        private final long databaseBytes;
+
+        private Stats(long totalEvicted, int lastRunEvicted, long lastRunAt, long databaseBytes) {
+            this.totalEvicted = totalEvicted;
+            this.lastRunEvicted = lastRunEvicted;
+            this.lastRunAt = lastRunAt;
+            this.databaseBytes = databaseBytes;
+        }
+
+        /**
+         * The number of articles evicted since the process started.
+         */
+        public long getTotalEvicted() {
+            return totalEvicted;
+        }
+
+        /**
+         * The number of articles evicted by the most recent run.
+         */
+        public int getLastRunEvicted() {
+            return lastRunEvicted;
+        }
+
+        /**
+         * When the most recent run finished, or 0 if eviction hasn't run yet.
+         */
+        public long getLastRunAt() {
+            return lastRunAt;
+        }
+
+        /**
+         * The size of the database file after the most recent run, not counting free pages.
+         */
+        public long getDatabaseBytes() {
+            return databaseBytes;
+        }
+    }
+}
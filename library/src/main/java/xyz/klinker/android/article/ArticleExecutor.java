@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import android.os.Process;
+import androidx.annotation.NonNull;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared execution engine for all of the background work that the library does. Work is split
+ * into lanes, each of which has a small, fixed number of threads, so that preloading a large
+ * timeline of links will never create more threads than the lanes allow.
+ *
+ * Within a lane, work that the user is actively waiting on (opening an article) will always be
+ * run before background work (preloading articles).
+ *
+ * The queues themselves are unbounded. Work is often submitted from the UI thread and callers
+ * wait on its result, so it can neither be dropped nor run on the caller when a lane falls
+ * behind. Each lane instead has a saturation threshold, and {@link LaneStats#getSaturatedCount()}
+ * reports how often its queue was deeper than that.
+ */
+public final class ArticleExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * The types of work that the library does. Each lane gets its own pool of threads, along with
+     * the queue depth past which it counts as saturated.
+     */
+    public enum Lane {
+        NETWORK(4, 64),
+        DATABASE(1, 64),
+        PARSE(2, 16),
+        IMAGE(2, 64);
+
+        private final int threads;
+        private final int saturationThreshold;
+
+        Lane(int threads, int saturationThreshold) {
+            this.threads = threads;
+            this.saturationThreshold = saturationThreshold;
+        }
+    }
+
+    /**
+     * How urgently a piece of work needs to run. Work with the same priority is run in the order
+     * that it was submitted.
+     */
+    public enum Priority {
+        USER, BACKGROUND
+    }
+
+    private static volatile ArticleExecutor instance;
+
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Gets the shared executor for the process.
+     *
+     * @return the executor.
+     */
+    public static ArticleExecutor get() {
+        if (instance == null) {
+            synchronized (ArticleExecutor.class) {
+                if (instance == null) {
+                    instance = new ArticleExecutor();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    private ArticleExecutor() {
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneExecutor(lane));
+        }
+    }
+
+    /**
+     * Runs a piece of work on the provided lane.
+     *
+     * @param lane the lane that the work belongs to.
+     * @param priority how urgently the work needs to run.
+     * @param runnable the work to run.
+     */
+    public void execute(Lane lane, Priority priority, Runnable runnable) {
+        lanes.get(lane).submit(new PrioritizedRunnable(
+                priority, sequence.getAndIncrement(), runnable));
+    }
+
+    /**
+     * Gets a snapshot of the counters for a lane.
+     *
+     * @param lane the lane to get stats for.
+     * @return the current stats.
+     */
+    public LaneStats getStats(Lane lane) {
+        return lanes.get(lane).stats();
+    }
+
+    /**
+     * Snapshot of the counters for a single lane.
+     */
+    public static final class LaneStats {
+
+        private final Lane lane;
+        private final int threadCount;
+        private final int activeCount;
+        private final int queueDepth;
+        private final long submittedCount;
+        private final long completedCount;
+        private final long saturatedCount;
+
+        private LaneStats(Lane lane, int threadCount, int activeCount, int queueDepth,
+                          long submittedCount, long completedCount, long saturatedCount) {
+            this.lane = lane;
+            this.threadCount = threadCount;
+            this.activeCount = activeCount;
+            this.queueDepth = queueDepth;
+            this.submittedCount = submittedCount;
+            this.completedCount = completedCount;
+            this.saturatedCount = saturatedCount;
+        }
+
+        public Lane getLane() {
+            return lane;
+        }
+
+        /**
+         * The number of threads currently alive in the lane.
+         */
+        public int getThreadCount() {
+            return threadCount;
+        }
+
+        /**
+         * The number of threads currently running work.
+         */
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        /**
+         * The amount of work waiting for a free thread.
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getSubmittedCount() {
+            return submittedCount;
+        }
+
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        /**
+         * The number of times that work was submitted while the lane's queue was already at its
+         * saturation threshold. The work is still queued.
+         */
+        public long getSaturatedCount() {
+            return saturatedCount;
+        }
+    }
+
+    private static final class LaneExecutor {
+
+        private final Lane lane;
+        private final ThreadPoolExecutor executor;
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong saturated = new AtomicLong();
+
+        private LaneExecutor(final Lane lane) {
+            this.lane = lane;
+            this.executor = new ThreadPoolExecutor(
+                    lane.threads,
+                    lane.threads,
+                    KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<Runnable>(),
+                    new LaneThreadFactory(lane)) {
+                @Override
+                protected void afterExecute(Runnable r, Throwable t) {
+                    super.afterExecute(r, t);
+                    completed.incrementAndGet();
+                }
+            };
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        private void submit(PrioritizedRunnable runnable) {
+            submitted.incrementAndGet();
+            if (executor.getQueue().size() >= lane.saturationThreshold) {
+                saturated.incrementAndGet();
+            }
+
+            executor.execute(runnable);
+        }
+
+        private LaneStats stats() {
+            return new LaneStats(lane, executor.getPoolSize(), executor.getActiveCount(),
+                    executor.getQueue().size(), submitted.get(), completed.get(), saturated.get());
+        }
+    }
+
+    private static final class LaneThreadFactory implements ThreadFactory {
+
+        private final Lane lane;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private LaneThreadFactory(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "article-" + lane.name().toLowerCase(Locale.US) + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static final class PrioritizedRunnable
+            implements Runnable, Comparable<PrioritizedRunnable> {
+
+        private final Priority priority;
+        private final long sequence;
+        private final Runnable runnable;
+
+        private PrioritizedRunnable(Priority priority, long sequence, Runnable runnable) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+
+        @Override
+        public int compareTo(@NonNull PrioritizedRunnable other) {
+            if (priority != other.priority) {
+                return priority.ordinal() < other.priority.ordinal() ? -1 : 1;
+            }
+
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
@@ -322,7 +322,7 @@ public final class ArticleIntent {
      * @param url The URL to load in the Custom Tab.
      */
     public void launchUrl(Context context, String url) {
-        intent.setData(Uri.parse(ArticleUtils.removeUrlParameters(url)));
+        intent.setData(Uri.parse(url));
         intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
         ContextCompat.startActivity(context, intent, startAnimationBundle);
     }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Timings for a single article load, from the database lookup through to the first paragraph
+ * being displayed. Delivered to the {@link ArticleLoadTimingListener} registered with
+ * {@link ArticleUtils#setTimingListener(ArticleLoadTimingListener)}.
+ */
+public final class ArticleLoadTimeline {
+
+    /**
+     * The stages that an article goes through while loading. Not every load runs every stage:
+     * cached articles skip the network and store stages, and preloaded articles are never bound.
+     */
+    public enum Stage {
+        /**
+         * Looking for the article in the local database.
+         */
+        DATABASE_LOOKUP,
+
+        /**
+         * Waiting on the server to parse the article.
+         */
+        NETWORK,
+
+        /**
+         * Writing the downloaded article to the local database.
+         */
+        STORE,
+
+        /**
+         * Parsing the article html into the elements that will be displayed.
+         */
+        PARSE,
+
+        /**
+         * From handing the parsed elements to the adapter until the first of them was bound.
+         */
+        FIRST_BIND
+    }
+
+    private final String url;
+    private final Map<Stage, Long> durations = new EnumMap<>(Stage.class);
+    private final long startedAt;
+    private long finishedAt;
+    private boolean cacheHit;
+    private long payloadBytes;
+    private int elementCount = -1;
+
+    ArticleLoadTimeline(String url) {
+        this.url = url;
+        this.startedAt = System.nanoTime();
+    }
+
+    synchronized void setDuration(Stage stage, long nanos) {
+        durations.put(stage, nanos);
+    }
+
+    synchronized void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    synchronized void setPayload(String content) {
+        this.payloadBytes = content == null ? 0 : utf8Length(content);
+    }
+
+    synchronized void setElementCount(int elementCount) {
+        this.elementCount = elementCount;
+    }
+
+    synchronized void finish() {
+        this.finishedAt = System.nanoTime();
+    }
+
+    /**
+     * The url that was requested.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets how long a stage took.
+     *
+     * @param stage the stage to get the duration of.
+     * @return the duration in milliseconds, or -1 if the stage did not run for this load.
+     */
+    public synchronized double getDurationMillis(Stage stage) {
+        Long nanos = durations.get(stage);
+        return nanos == null ? -1 : nanos / 1000000.0;
+    }
+
+    /**
+     * Gets how long the whole load took, including time spent waiting for a free thread.
+     *
+     * @return the duration in milliseconds.
+     */
+    public synchronized double getTotalMillis() {
+        return (finishedAt - startedAt) / 1000000.0;
+    }
+
+    /**
+     * Whether the article was already stored on the device, so no network request was made.
+     */
+    public synchronized boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * The size of the article's html content, in UTF-8 bytes, or 0 if it was never parsed.
+     */
+    public synchronized long getPayloadBytes() {
+        return payloadBytes;
+    }
+
+    /**
+     * The number of elements that were parsed out of the article to display, or -1 if it was
+     * never parsed.
+     */
+    public synchronized int getElementCount() {
+        return elementCount;
+    }
+
+    private static long utf8Length(String string) {
+        long length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+
+        return length;
+    }
+}
@@ -16,8 +16,10 @@
 
 package xyz.klinker.android.article;
 
-import org.jsoup.select.Elements;
+import java.util.List;
+
+import xyz.klinker.android.article.data.ArticleBlock;
 
 interface ArticleParsedListener {
-    void onArticleParsed(Elements elements);
+    void onArticleParsed(List<ArticleBlock> blocks);
 }
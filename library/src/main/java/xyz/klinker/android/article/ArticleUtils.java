@@ -34,8 +34,27 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import xyz.klinker.android.article.ArticleExecutor.Lane;
+import xyz.klinker.android.article.ArticleExecutor.Priority;
 import xyz.klinker.android.article.api.ArticleApi;
+import xyz.klinker.android.article.api.ArticleApiException;
+import xyz.klinker.android.article.api.ArticleCallback;
+import xyz.klinker.android.article.api.ArticleFuture;
 import xyz.klinker.android.article.data.Article;
+import xyz.klinker.android.article.data.ArticleBlock;
 import xyz.klinker.android.article.data.DataSource;
 
 /**
@@ -43,7 +62,30 @@ import xyz.klinker.android.article.data.DataSource;
  */
 public final class ArticleUtils {
 
+    private static final String TAG = "ArticleUtils";
     private static final String SELECTOR = "p, h1, h2, h3, h4, h5, h6, img, blockquote, pre, li";
+    private static final int MAX_BATCH_SIZE = 20;
+    private static final String HTTP_CACHE_DIRECTORY = "article_http_cache";
+
+    /**
+     * Loads that are currently in flight, keyed by the url without any parameters. This is shared
+     * between all instances so that a preload and the ArticleActivity never load the same
+     * article at the same time.
+     */
+    private static final ConcurrentHashMap<String, PendingArticleLoad> IN_FLIGHT =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Timelines for articles that have been loaded but not yet parsed or displayed. Articles do
+     * not override equals, so this is keyed on the instance that was handed back to the caller.
+     */
+    private static final Map<Article, ArticleLoadTimeline> TIMELINES =
+            Collections.synchronizedMap(new WeakHashMap<Article, ArticleLoadTimeline>());
+
+    private static volatile ArticleLoadTimingListener timingListener;
+
+    private static final int CONTENT_COMPRESSION_BATCH_SIZE = 25;
+    private static final AtomicBoolean CONTENT_COMPRESSION_STARTED = new AtomicBoolean();
 
     private ArticleApi api;
 
@@ -51,6 +93,70 @@ public final class ArticleUtils {
         this.api = new ArticleApi(apiToken);
     }
 
+    /**
+     * Creates the utils with an HTTP cache enabled in the app's cache directory, so that
+     * responses from the server can be revalidated instead of downloaded again.
+     *
+     * @param context the current application context.
+     * @param apiToken the api token to send with requests.
+     */
+    public ArticleUtils(Context context, String apiToken) {
+        ArticleApi.enableCache(new File(context.getCacheDir(), HTTP_CACHE_DIRECTORY),
+                ArticleApi.DEFAULT_CACHE_SIZE);
+        this.api = new ArticleApi(apiToken);
+
+        if (DataSource.isContentCompressionEnabled()) {
+            compressExistingContent(context.getApplicationContext());
+        }
+    }
+
+    @VisibleForTesting
+    ArticleUtils(ArticleApi api) {
+        this.api = api;
+    }
+
+    /**
+     * Compresses any content that was stored before compression was enabled, a small batch at a
+     * time on the database lane. Only runs once per process.
+     *
+     * @param context the application context.
+     */
+    private static void compressExistingContent(final Context context) {
+        if (!CONTENT_COMPRESSION_STARTED.compareAndSet(false, true)) {
+            return;
+        }
+
+        ArticleExecutor.get().execute(Lane.DATABASE, Priority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                DataSource.Lease lease = DataSource.get(context).lease();
+                int compressed;
+                try {
+                    compressed = lease.get()
+                            .compressExistingContent(CONTENT_COMPRESSION_BATCH_SIZE);
+                } finally {
+                    lease.release();
+                }
+
+                if (compressed == CONTENT_COMPRESSION_BATCH_SIZE) {
+                    // there is probably more left, go to the back of the queue so that user
+                    // requests are not held up behind the migration.
+                    ArticleExecutor.get().execute(Lane.DATABASE, Priority.BACKGROUND, this);
+                }
+            }
+        });
+    }
+
+    /**
+     * Registers a listener to receive timings for every article loaded through the library. Only
+     * one listener can be registered at a time; pass null to stop receiving timings.
+     *
+     * @param listener the listener to register.
+     */
+    public static void setTimingListener(ArticleLoadTimingListener listener) {
+        timingListener = listener;
+    }
+
     /**
      * Loads an article from the server.
      *
@@ -60,13 +166,35 @@ public final class ArticleUtils {
      */
     void loadArticle(final String url, final DataSource source,
                      final ArticleLoadedListener callback) {
+        loadArticle(url, source, Priority.USER, callback);
+    }
+
+    /**
+     * Loads an article from the server.
+     *
+     * @param url the url to load the article from.
+     * @param source the data source.
+     * @param priority how urgently the article is needed.
+     * @param callback the callback to receive after loading completes.
+     */
+    private void loadArticle(final String url, final DataSource source, final Priority priority,
+                             final ArticleLoadedListener callback) {
         final Handler handler = new Handler();
-        new Thread(new Runnable() {
+        PendingArticleLoad pending =
+                url == null ? null : IN_FLIGHT.get(UrlCanonicalizer.canonicalize(url));
+        if (pending != null) {
+            // this url is already being loaded, so just wait on that result instead of
+            // taking up another network thread.
+            pending.addCallback(callback, handler);
+            return;
+        }
+
+        ArticleExecutor.get().execute(Lane.NETWORK, priority, new Runnable() {
             @Override
             public void run() {
                 loadArticleSync(url, source, callback, handler);
             }
-        }).start();
+        });
     }
 
     /**
@@ -98,20 +226,73 @@ public final class ArticleUtils {
             final String url,
             final DataSource source,
             final ArticleLoadedListener callback) {
-        loadArticle(url, source, new ArticleLoadedListener() {
+        loadArticle(url, source, Priority.BACKGROUND, new ArticleLoadedListener() {
             @Override
             public void onArticleLoaded(final Article article) {
                 if (callback != null) {
                     callback.onArticleLoaded(article);
                 }
 
-                if (article != null && article.isArticle && article.content != null) {
-                    parseArticleContent(article, new ArticleParsedListener() {
-                        @Override
-                        public void onArticleParsed(final Elements elements) {
-                            cacheImages(context, article, elements);
-                        }
-                    });
+                if (article != null && article.isArticle && article.hasContent()) {
+                    parseArticleContent(article, source, new Handler(), Priority.BACKGROUND,
+                            new ArticleParsedListener() {
+                                @Override
+                                public void onArticleParsed(final List<ArticleBlock> blocks) {
+                                    cacheImages(context, article, blocks);
+                                }
+                            });
+                }
+            }
+        });
+    }
+
+    /**
+     * Preloads many articles from the server at once so that they are cached on the device and
+     * immediately available when a user tries to view them. The articles are requested from the
+     * server in batches and stored in a single database transaction, which is much cheaper than
+     * calling {@link #preloadArticle(Context, String, ArticleLoadedListener)} for each url.
+     *
+     * @param context the current application context.
+     * @param urls the urls to try and preload.
+     * @param callback the callback to be invoked once for each url when it has finished.
+     */
+    public void preloadArticles(final Context context, final List<String> urls,
+                                final ArticleLoadedListener callback) {
+        preloadArticles(context, urls, DataSource.get(context), callback);
+    }
+
+    /**
+     * Preloads many articles from the server at once so that they are cached on the device and
+     * immediately available when a user tries to view them. The articles are requested from the
+     * server in batches and stored in a single database transaction, which is much cheaper than
+     * calling {@link #preloadArticle(Context, String, DataSource, ArticleLoadedListener)} for
+     * each url.
+     *
+     * @param context the current application context.
+     * @param urls the urls to try and preload.
+     * @param source the data source.
+     * @param callback the callback to be invoked once for each url when it has finished.
+     */
+    public void preloadArticles(
+            final Context context,
+            final List<String> urls,
+            final DataSource source,
+            final ArticleLoadedListener callback) {
+        final Handler handler = new Handler();
+        ArticleExecutor.get().execute(Lane.NETWORK, Priority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                List<Article> articles = loadArticlesSync(urls, source, callback, handler);
+                for (final Article article : articles) {
+                    if (article != null && article.isArticle && article.hasContent()) {
+                        parseArticleContent(article, source, handler, Priority.BACKGROUND,
+                                new ArticleParsedListener() {
+                                    @Override
+                                    public void onArticleParsed(final List<ArticleBlock> blocks) {
+                                        cacheImages(context, article, blocks);
+                                    }
+                                });
+                    }
                 }
             }
         });
@@ -145,13 +326,14 @@ public final class ArticleUtils {
      */
     public Article fetchArticle(final Context context, final String url, final DataSource source) {
         final Article article = loadArticleSync(url, source, null, null);
-        if (article != null && article.isArticle && article.content != null) {
-            parseArticleContent(article, null, new ArticleParsedListener() {
-                @Override
-                public void onArticleParsed(final Elements elements) {
-                    cacheImages(context, article, elements);
-                }
-            });
+        if (article != null && article.isArticle && article.hasContent()) {
+            parseArticleContent(article, source, null, Priority.BACKGROUND,
+                    new ArticleParsedListener() {
+                        @Override
+                        public void onArticleParsed(final List<ArticleBlock> blocks) {
+                            cacheImages(context, article, blocks);
+                        }
+                    });
         }
 
         return article;
@@ -164,10 +346,19 @@ public final class ArticleUtils {
      */
     public void loadTrending(final TrendingLoadedListener listener) {
         final Handler handler = new Handler();
-        new Thread(new Runnable() {
+        api.article().trendingAsync().addCallback(new ArticleCallback<Article[]>() {
             @Override
-            public void run() {
-                final Article[] articles = api.article().trending();
+            public void onSuccess(Article[] articles) {
+                postTrending(articles);
+            }
+
+            @Override
+            public void onFailure(ArticleApiException exception) {
+                Log.w(TAG, "couldn't load trending articles", exception);
+                postTrending(null);
+            }
+
+            private void postTrending(final Article[] articles) {
                 handler.post(new Runnable() {
                     @Override
                     public void run() {
@@ -177,7 +368,7 @@ public final class ArticleUtils {
                     }
                 });
             }
-        }).start();
+        });
     }
 
     /**
@@ -199,48 +390,366 @@ public final class ArticleUtils {
      */
     private Article loadArticleSync(final String url, final DataSource source,
                                     final ArticleLoadedListener callback, final Handler handler) {
-        source.open();
-        Article loadedArticle = source.getArticle(url);
+        PendingArticleLoad pending = new PendingArticleLoad();
+        pending.addCallback(callback, handler);
+
+        if (url == null) {
+            pending.complete(null);
+            return null;
+        }
 
+        String key = UrlCanonicalizer.canonicalize(url);
+
+        PendingArticleLoad existing = IN_FLIGHT.putIfAbsent(key, pending);
+        if (existing != null) {
+            existing.addCallback(callback, handler);
+            return existing.await();
+        }
+
+        Article article = null;
+        try {
+            article = loadArticleUncoalesced(url, source);
+        } finally {
+            IN_FLIGHT.remove(key, pending);
+            pending.complete(article);
+        }
+
+        return article;
+    }
+
+    /**
+     * Loads an article from the database, or the server if it has not been cached yet. This
+     * should only be called by {@link #loadArticleSync}, which makes sure that the same url
+     * is never loaded more than once at a time.
+     *
+     * @param url the url to load the article from.
+     * @param source the data source.
+     */
+    private Article loadArticleUncoalesced(final String url, final DataSource source) {
+        ArticleLoadTimeline timeline = startTimeline(url);
+
+        long start = System.nanoTime();
         final Article article;
-        if (loadedArticle != null && loadedArticle.content != null) {
-            article = loadedArticle;
-        } else {
-            article = api.article().parse(url);
-
-            if (article != null) {
-                // the server will resolve the url when it is shortened or something like
-                // that so we want to instead save the original so that it is findable by
-                // that url again later.
-                article.url = url;
-
-                if (loadedArticle != null && loadedArticle.content == null) {
-                    loadedArticle.content = article.content;
-                    source.updateArticleContent(loadedArticle);
-                    article.id = loadedArticle.id;
-                } else {
-                    article.id = source.insertArticle(article);
+        DataSource.Lease lease = source.lease();
+        try {
+            Article loadedArticle = source.getArticle(url);
+            start = recordStage(timeline, ArticleLoadTimeline.Stage.DATABASE_LOOKUP, start);
+
+            if (loadedArticle != null && loadedArticle.hasContent()) {
+                article = loadedArticle;
+                if (timeline != null) {
+                    timeline.setCacheHit(true);
                 }
+            } else if (source.isNonArticle(url)) {
+                article = nonArticle(url, loadedArticle);
+                if (timeline != null) {
+                    timeline.setCacheHit(true);
+                }
+            } else {
+                article = api.article().parse(url);
+                start = recordStage(timeline, ArticleLoadTimeline.Stage.NETWORK, start);
+                storeArticle(url, loadedArticle, article, source);
+                rememberNonArticle(url, article, source);
+                recordStage(timeline, ArticleLoadTimeline.Stage.STORE, start);
             }
+        } finally {
+            lease.release();
         }
 
-        source.close();
+        trackTimeline(timeline, article);
+        return article;
+    }
 
-        if (callback != null && handler != null) {
-            handler.post(new Runnable() {
-                @Override
-                public void run() {
-                    callback.onArticleLoaded(article);
+    /**
+     * Loads many articles at once, from the database when they have already been cached and
+     * otherwise from the server in batches. Any of the urls that are already being loaded will
+     * be attached to that load instead of being requested again.
+     *
+     * @param urls the urls to load articles from.
+     * @param source the data source.
+     * @param callback the callback to receive once for each url after loading completes.
+     * @param handler UI thread handler to use when performing the callback.
+     * @return the articles that were loaded by this call.
+     */
+    @VisibleForTesting
+    List<Article> loadArticlesSync(final List<String> urls, final DataSource source,
+                                   final ArticleLoadedListener callback, final Handler handler) {
+        Map<String, PendingArticleLoad> owned = new LinkedHashMap<>();
+        Map<String, String> ownedUrls = new HashMap<>();
+        for (String url : urls) {
+            if (url == null) {
+                continue;
+            }
+
+            String key = UrlCanonicalizer.canonicalize(url);
+            if (owned.containsKey(key)) {
+                continue;
+            }
+
+            PendingArticleLoad pending = new PendingArticleLoad();
+            pending.addCallback(callback, handler);
+
+            PendingArticleLoad existing = IN_FLIGHT.putIfAbsent(key, pending);
+            if (existing != null) {
+                existing.addCallback(callback, handler);
+            } else {
+                owned.put(key, pending);
+                ownedUrls.put(key, url);
+            }
+        }
+
+        Map<String, Article> results = new HashMap<>();
+        Map<String, ArticleLoadTimeline> timelines = new HashMap<>();
+        DataSource.Lease lease = null;
+        try {
+            lease = source.lease();
+
+            Map<String, Article> cached = new HashMap<>();
+            List<String> toParse = new ArrayList<>();
+            for (String key : owned.keySet()) {
+                ArticleLoadTimeline timeline = startTimeline(ownedUrls.get(key));
+                timelines.put(key, timeline);
+
+                long start = System.nanoTime();
+                Article loadedArticle = source.getArticle(key);
+                recordStage(timeline, ArticleLoadTimeline.Stage.DATABASE_LOOKUP, start);
+
+                if (loadedArticle != null && loadedArticle.hasContent()) {
+                    results.put(key, loadedArticle);
+                    if (timeline != null) {
+                        timeline.setCacheHit(true);
+                    }
+                } else if (source.isNonArticle(key)) {
+                    results.put(key, nonArticle(ownedUrls.get(key), loadedArticle));
+                    if (timeline != null) {
+                        timeline.setCacheHit(true);
+                    }
+                } else {
+                    cached.put(key, loadedArticle);
+                    toParse.add(ownedUrls.get(key));
+                }
+            }
+
+            // the network and store stages are shared by the whole batch, so each article is
+            // given the time for the batch that it was a part of.
+            long start = System.nanoTime();
+            List<Article> parsed = parseArticles(toParse);
+            long networkNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            source.beginTransaction();
+            try {
+                List<Article> toInsert = new ArrayList<>();
+                List<String> insertedUrls = new ArrayList<>();
+                for (int i = 0; i < toParse.size(); i++) {
+                    String url = toParse.get(i);
+                    String key = UrlCanonicalizer.canonicalize(url);
+                    Article article = parsed.get(i);
+                    Article loadedArticle = cached.get(key);
+
+                    if (article != null) {
+                        if (loadedArticle != null && !loadedArticle.hasContent()) {
+                            storeArticle(url, loadedArticle, article, source);
+                        } else {
+                            resolveUrl(url, article);
+                            toInsert.add(article);
+                            insertedUrls.add(url);
+                        }
+                    }
+
+                    rememberNonArticle(url, article, source);
+
+                    results.put(key, article);
+                }
+
+                source.insertArticles(toInsert);
+                for (int i = 0; i < toInsert.size(); i++) {
+                    aliasArticle(insertedUrls.get(i), toInsert.get(i), source);
                 }
-            });
+
+                source.setTransactionSuccessful();
+            } finally {
+                source.endTransaction();
+            }
+            long storeNanos = System.nanoTime() - start;
+
+            for (String url : toParse) {
+                ArticleLoadTimeline timeline = timelines.get(UrlCanonicalizer.canonicalize(url));
+                if (timeline != null) {
+                    timeline.setDuration(ArticleLoadTimeline.Stage.NETWORK, networkNanos);
+                    timeline.setDuration(ArticleLoadTimeline.Stage.STORE, storeNanos);
+                }
+            }
+        } finally {
+            if (lease != null) {
+                lease.release();
+            }
+
+            for (Map.Entry<String, PendingArticleLoad> entry : owned.entrySet()) {
+                IN_FLIGHT.remove(entry.getKey(), entry.getValue());
+                trackTimeline(timelines.get(entry.getKey()), results.get(entry.getKey()));
+                entry.getValue().complete(results.get(entry.getKey()));
+            }
+        }
+
+        List<Article> articles = new ArrayList<>();
+        for (String key : owned.keySet()) {
+            articles.add(results.get(key));
+        }
+
+        return articles;
+    }
+
+    /**
+     * Gets articles for all of the provided urls from the server, in chunks of
+     * {@link #MAX_BATCH_SIZE}. When the server does not support batch requests, the urls will be
+     * requested one at a time, spread over the network lane.
+     *
+     * @param urls the urls to parse.
+     * @return the parsed articles, in the same order as the urls. Any that could not be loaded
+     *         will be null.
+     */
+    private List<Article> parseArticles(List<String> urls) {
+        List<Article> articles = new ArrayList<>(urls.size());
+        for (int start = 0; start < urls.size(); start += MAX_BATCH_SIZE) {
+            List<String> chunk = urls.subList(start, Math.min(urls.size(), start + MAX_BATCH_SIZE));
+
+            Article[] batch = api.article().parseBatch(chunk);
+            if (batch != null && batch.length == chunk.size()) {
+                articles.addAll(Arrays.asList(batch));
+            } else {
+                articles.addAll(parseArticlesIndividually(chunk));
+            }
+        }
+
+        return articles;
+    }
+
+    /**
+     * Fans a list of urls out over the single url parse endpoint. All of the requests are sent
+     * at once through OkHttp's dispatcher, so no lane threads are held while they are in flight.
+     *
+     * @param urls the urls to parse.
+     * @return the parsed articles, in the same order as the urls.
+     */
+    private List<Article> parseArticlesIndividually(final List<String> urls) {
+        List<ArticleFuture<Article>> futures = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            futures.add(api.article().parseAsync(url));
+        }
+
+        List<Article> articles = new ArrayList<>(urls.size());
+        for (ArticleFuture<Article> future : futures) {
+            try {
+                articles.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                Log.w(TAG, "couldn't parse article", cause);
+                articles.add(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                articles.add(null);
+            }
+        }
+
+        return articles;
+    }
+
+    /**
+     * Saves an article that was just parsed by the server.
+     *
+     * @param url the url that the article was requested with.
+     * @param loadedArticle the article that was already in the database for the url, if any.
+     * @param article the article that the server returned.
+     * @param source the data source.
+     */
+    private void storeArticle(String url, Article loadedArticle, Article article,
+                              DataSource source) {
+        if (article == null) {
+            return;
+        }
+
+        if (loadedArticle != null && !loadedArticle.hasContent()) {
+            loadedArticle.setContent(article.getContent());
+            source.updateArticleContent(loadedArticle);
+            article.id = loadedArticle.id;
+            article.url = loadedArticle.url;
+        } else {
+            resolveUrl(url, article);
+            article.id = source.insertArticle(article);
+            aliasArticle(url, article, source);
+        }
+    }
+
+    /**
+     * Keeps track of urls that the server couldn't find an article for, so that they can go
+     * straight to the browser next time. Failed requests are not remembered, since they may work
+     * on the next try.
+     */
+    private static void rememberNonArticle(String url, Article article, DataSource source) {
+        if (article == null) {
+            return;
         }
 
+        if (article.isArticle && article.hasContent()) {
+            source.deleteNonArticle(url);
+        } else {
+            source.insertNonArticle(url);
+        }
+    }
+
+    /**
+     * Gets the result for a url that is remembered as not being an article, without asking the
+     * server again.
+     */
+    private static Article nonArticle(String url, Article loadedArticle) {
+        Article article = loadedArticle;
+        if (article == null) {
+            article = new Article();
+            article.url = url;
+        }
+
+        article.isArticle = false;
         return article;
     }
 
+    /**
+     * The server resolves shortened links and redirects, so the article is stored under the url
+     * that it gave back. The url that was requested is only used if it didn't give one.
+     */
+    private static void resolveUrl(String url, Article article) {
+        if (article.url == null || article.url.trim().isEmpty()) {
+            article.url = url;
+        }
+    }
+
+    /**
+     * Makes the url that was requested find the article that was just stored for it. If the
+     * server resolved it to an article that was already stored, that one is used instead.
+     */
+    private static void aliasArticle(String url, Article article, DataSource source) {
+        if (article.id <= 0) {
+            Article existing = source.getArticle(article.url);
+            if (existing == null) {
+                return;
+            }
+
+            if (!existing.hasContent()) {
+                existing.setContent(article.getContent());
+                source.updateArticleContent(existing);
+            }
+
+            article.id = existing.id;
+        }
+
+        if (!UrlCanonicalizer.canonicalize(url).equals(article.url)) {
+            source.insertArticleAlias(url, article.id);
+        }
+    }
+
     private void cacheImages(final Context context, final Article article,
-                             final Elements elements) {
-        new Thread(new Runnable() {
+                             final List<ArticleBlock> blocks) {
+        ArticleExecutor.get().execute(Lane.IMAGE, Priority.BACKGROUND, new Runnable() {
             @Override
             public void run() {
                 int[] dimens = getCacheWidthAndHeight(context);
@@ -257,10 +766,10 @@ public final class ArticleUtils {
                     }
                 }
 
-                if (elements != null) {
-                    for (Element element : elements) {
-                        if (element.tagName().equals("img")) {
-                            String src = element.attr("src");
+                if (blocks != null) {
+                    for (ArticleBlock block : blocks) {
+                        if (block.isImage()) {
+                            String src = block.src;
 
                             try {
                                 Glide.with(context)
@@ -275,7 +784,7 @@ public final class ArticleUtils {
                     }
                 }
             }
-        }).start();
+        });
     }
 
     private int[] getCacheWidthAndHeight(Context context) {
@@ -296,44 +805,216 @@ public final class ArticleUtils {
     }
 
     /**
-     * Parses the article content into a elements object using jsoup and the @link{SELECTOR}.
+     * Parses the article content into a list of blocks using jsoup and the @link{SELECTOR}. If the
+     * content was parsed before, the stored blocks are used instead.
      *
      * @param article the article to parse content from.
+     * @param source the data source to store the parsed blocks in.
      * @param callback the callback to receive after parsing completes.
      */
-    void parseArticleContent(final Article article, final ArticleParsedListener callback) {
+    void parseArticleContent(final Article article, final DataSource source,
+                             final ArticleParsedListener callback) {
         final Handler handler = new Handler();
-        parseArticleContent(article, handler, callback);
+        parseArticleContent(article, source, handler, Priority.USER, true, callback);
     }
 
     /**
-     * Parses the article content into a elements object using jsoup and the @link{SELECTOR}.
+     * Parses the article content into a list of blocks using jsoup and the @link{SELECTOR}. If the
+     * content was parsed before, the stored blocks are used instead.
      *
      * @param article the article to parse content from.
+     * @param source the data source to store the parsed blocks in.
      * @param handler the handler to use to provide the article back to the callback.
+     * @param priority how urgently the parsed content is needed.
      * @param callback the callback to receive after parsing completes.
      */
-    void parseArticleContent(final Article article, final Handler handler, final ArticleParsedListener callback) {
-        if (article.content == null) {
+    void parseArticleContent(final Article article, final DataSource source,
+                             final Handler handler, final Priority priority,
+                             final ArticleParsedListener callback) {
+        parseArticleContent(article, source, handler, priority, false, callback);
+    }
+
+    /**
+     * Parses the article content into a list of blocks using jsoup and the @link{SELECTOR}. If the
+     * content was parsed before, the stored blocks are used instead.
+     *
+     * @param article the article to parse content from.
+     * @param source the data source to store the parsed blocks in, or null to not store them.
+     * @param handler the handler to use to provide the article back to the callback.
+     * @param priority how urgently the parsed content is needed.
+     * @param displayed whether the blocks are going to be displayed. If so, the load timeline
+     *                  is finished by {@link #onFirstElementBound(Article, long)} instead of
+     *                  after parsing.
+     * @param callback the callback to receive after parsing completes.
+     */
+    private void parseArticleContent(final Article article, final DataSource source,
+                                     final Handler handler, final Priority priority,
+                                     final boolean displayed,
+                                     final ArticleParsedListener callback) {
+        if (!article.hasContent()) {
             return;
         }
 
-        new Thread(new Runnable() {
+        ArticleExecutor.get().execute(Lane.PARSE, priority, new Runnable() {
             @Override
             public void run() {
-                Document doc = Jsoup.parse(article.content);
-                final Elements elements = removeUnnecessaryElements(doc.select(SELECTOR), article);
+                long start = System.nanoTime();
+                ArticleLoadTimeline timeline = TIMELINES.get(article);
+                List<ArticleBlock> stored = article.getBlocks();
+                final List<ArticleBlock> blocks;
+
+                if (stored != null) {
+                    blocks = stored.isEmpty() ? null : stored;
+                } else {
+                    String content = article.getContent();
+                    Document doc = Jsoup.parse(content);
+                    blocks = toBlocks(removeUnnecessaryElements(doc.select(SELECTOR), article));
+                    storeBlocks(source, article, blocks);
+
+                    if (timeline != null) {
+                        timeline.setPayload(content);
+                    }
+                }
+
+                if (timeline != null) {
+                    recordStage(timeline, ArticleLoadTimeline.Stage.PARSE, start);
+                    timeline.setElementCount(blocks == null ? 0 : blocks.size());
+
+                    if (!displayed) {
+                        finishTimeline(article);
+                    }
+                }
 
                 if (callback != null && handler != null) {
                     handler.post(new Runnable() {
                         @Override
                         public void run() {
-                            callback.onArticleParsed(elements);
+                            callback.onArticleParsed(blocks);
                         }
                     });
                 }
             }
-        }).start();
+        });
+    }
+
+    /**
+     * Converts the filtered elements into the blocks that will be displayed and stored.
+     */
+    @Nullable
+    @VisibleForTesting
+    static List<ArticleBlock> toBlocks(@Nullable Elements elements) {
+        if (elements == null) {
+            return null;
+        }
+
+        List<ArticleBlock> blocks = new ArrayList<>(elements.size());
+        for (Element element : elements) {
+            String tag = element.tagName();
+            if (tag.equals("img")) {
+                blocks.add(new ArticleBlock(tag, null, element.attr("src"), null));
+            } else {
+                String parentTag = tag.equals("li") && element.parent() != null ?
+                        element.parent().tagName() : null;
+                blocks.add(new ArticleBlock(tag, element.text().trim(), null, parentTag));
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Saves the parsed blocks in the background so the next time the article is opened it does
+     * not need to be parsed again. Content that had nothing to display is stored as an empty list.
+     */
+    private static void storeBlocks(final DataSource source, final Article article,
+                                    final List<ArticleBlock> blocks) {
+        if (source == null || article.id <= 0) {
+            return;
+        }
+
+        final List<ArticleBlock> toStore = blocks == null ?
+                Collections.<ArticleBlock>emptyList() : blocks;
+        ArticleExecutor.get().execute(Lane.DATABASE, Priority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                DataSource.Lease lease = source.lease();
+                try {
+                    source.updateArticleBlocks(article.id, toStore);
+                } finally {
+                    lease.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Records the time it took to bind the first parsed element of an article to the screen, and
+     * reports the finished timeline to the registered {@link ArticleLoadTimingListener}.
+     *
+     * @param article the article that was displayed.
+     * @param elementsAddedAt the {@link System#nanoTime()} that the elements were handed to the
+     *                        adapter.
+     */
+    void onFirstElementBound(Article article, long elementsAddedAt) {
+        ArticleLoadTimeline timeline = TIMELINES.get(article);
+        if (timeline != null) {
+            recordStage(timeline, ArticleLoadTimeline.Stage.FIRST_BIND, elementsAddedAt);
+            finishTimeline(article);
+        }
+    }
+
+    /**
+     * Reports the timeline for an article that will not make it to the screen, for example when
+     * it is opened in a custom tab instead.
+     *
+     * @param article the article to finish the timeline for.
+     */
+    void finishTimeline(Article article) {
+        if (article == null) {
+            return;
+        }
+
+        ArticleLoadTimeline timeline = TIMELINES.remove(article);
+        if (timeline != null) {
+            dispatchTimeline(timeline);
+        }
+    }
+
+    @Nullable
+    private static ArticleLoadTimeline startTimeline(String url) {
+        return timingListener == null ? null : new ArticleLoadTimeline(url);
+    }
+
+    private static long recordStage(ArticleLoadTimeline timeline, ArticleLoadTimeline.Stage stage,
+                                    long start) {
+        long now = System.nanoTime();
+        if (timeline != null) {
+            timeline.setDuration(stage, now - start);
+        }
+
+        return now;
+    }
+
+    private static void trackTimeline(ArticleLoadTimeline timeline, Article article) {
+        if (timeline == null) {
+            return;
+        }
+
+        if (article == null || !article.isArticle || !article.hasContent()) {
+            // nothing will be parsed or displayed, so the load ends here
+            dispatchTimeline(timeline);
+        } else {
+            TIMELINES.put(article, timeline);
+        }
+    }
+
+    private static void dispatchTimeline(ArticleLoadTimeline timeline) {
+        timeline.finish();
+
+        ArticleLoadTimingListener listener = timingListener;
+        if (listener != null) {
+            listener.onArticleLoadFinished(timeline);
+        }
     }
 
     @Nullable
@@ -384,7 +1065,9 @@ public final class ArticleUtils {
     }
 
     /**
-     * Strips a string of all of it's parameters contained in the URL.
+     * Strips a string of all of it's parameters contained in the URL. Articles are stored and
+     * looked up by {@link UrlCanonicalizer#canonicalize(String)} instead, which keeps the
+     * parameters that a page needs.
      *
      * @param url the url string.
      * @return the url without any parameters.
@@ -392,9 +1075,10 @@ public final class ArticleUtils {
     public static String removeUrlParameters(String url) {
         if (url == null) {
             return null;
-        } else {
-            return url.split("\\?")[0];
         }
+
+        int query = url.indexOf('?');
+        return query == -1 ? url : url.substring(0, query);
     }
 
     static String decodeImageUrl(String url) {
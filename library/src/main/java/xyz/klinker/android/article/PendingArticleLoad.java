@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import android.os.Handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import xyz.klinker.android.article.data.Article;
+
+/**
+ * A load of a single article that is currently in flight. Any other callers that ask for the
+ * same url while it is loading will attach to this instead of starting their own load.
+ */
+final class PendingArticleLoad {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final List<ArticleLoadedListener> callbacks = new ArrayList<>();
+    private final List<Handler> handlers = new ArrayList<>();
+    private boolean completed = false;
+    private Article article;
+
+    /**
+     * Adds a callback that should be notified when the load completes. If the load has already
+     * completed, the callback will be posted immediately.
+     *
+     * @param callback the callback to notify.
+     * @param handler UI thread handler to use when performing the callback.
+     */
+    void addCallback(ArticleLoadedListener callback, Handler handler) {
+        if (callback == null || handler == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!completed) {
+                callbacks.add(callback);
+                handlers.add(handler);
+                return;
+            }
+        }
+
+        post(callback, handler, article);
+    }
+
+    /**
+     * Blocks until the load has completed.
+     *
+     * @return the loaded article, or null if it could not be loaded.
+     */
+    Article await() {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return article;
+    }
+
+    /**
+     * Finishes the load and notifies everyone that attached to it.
+     *
+     * @param article the article that was loaded.
+     */
+    void complete(Article article) {
+        List<ArticleLoadedListener> callbacks;
+        List<Handler> handlers;
+
+        synchronized (this) {
+            this.article = article;
+            this.completed = true;
+            callbacks = new ArrayList<>(this.callbacks);
+            handlers = new ArrayList<>(this.handlers);
+            this.callbacks.clear();
+            this.handlers.clear();
+        }
+
+        latch.countDown();
+
+        for (int i = 0; i < callbacks.size(); i++) {
+            post(callbacks.get(i), handlers.get(i), article);
+        }
+    }
+
+    private static void post(final ArticleLoadedListener callback, Handler handler,
+                             final Article article) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onArticleLoaded(article);
+            }
+        });
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns the many forms that a link to the same page can be shared in into a single url, so that
+ * each page is only parsed and stored once. The rules only remove things that don't change which
+ * page is shown: the fragment, the case of the scheme and host, the default port, a www., m.,
+ * mobile. or amp. subdomain, AMP versions of the page and the AMP caches that serve them, a
+ * trailing slash and tracking parameters like utm_source or fbclid.
+ *
+ * Every other query parameter is kept in the order that it was given, since some pages can't be
+ * found without them.
+ */
+public final class UrlCanonicalizer {
+
+    private static final String[] HOST_PREFIXES = { "www.", "m.", "mobile.", "amp." };
+
+    private static final Set<String> TRACKING_PARAMETERS = new HashSet<>(Arrays.asList(
+            "fbclid", "gclid", "dclid", "msclkid", "yclid", "igshid", "mc_cid", "mc_eid", "_ga",
+            "_gl", "ref", "ref_src", "ref_url", "ocid", "cmpid", "smid", "amp"));
+
+    private static final String GOOGLE_AMP_HOST = "google.com";
+    private static final String GOOGLE_AMP_PATH = "/amp/";
+    private static final String AMP_CDN_HOST = ".cdn.ampproject.org";
+    private static final String AMP_SUFFIX = ".amp";
+
+    private UrlCanonicalizer() {
+
+    }
+
+    /**
+     * Gets the canonical form of a url. Anything that doesn't look like an absolute url only has
+     * its fragment removed.
+     *
+     * @param url the url that was shared.
+     * @return the canonical url.
+     */
+    public static String canonicalize(String url) {
+        if (url == null) {
+            return null;
+        }
+
+        url = url.trim();
+        int fragment = url.indexOf('#');
+        if (fragment != -1) {
+            url = url.substring(0, fragment);
+        }
+
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd <= 0) {
+            return url;
+        }
+
+        String scheme = url.substring(0, schemeEnd).toLowerCase(Locale.US);
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = indexOfAny(url, "/?", authorityStart);
+        String authority = url.substring(authorityStart, authorityEnd);
+        if (authority.isEmpty() || authority.indexOf('@') != -1) {
+            return url;
+        }
+
+        int query = url.indexOf('?', authorityEnd);
+        String path = url.substring(authorityEnd, query == -1 ? url.length() : query);
+        String parameters = query == -1 ? "" : url.substring(query + 1);
+
+        String port = "";
+        int portStart = authority.lastIndexOf(':');
+        if (portStart != -1 && authority.indexOf(']', portStart) == -1) {
+            port = authority.substring(portStart);
+            authority = authority.substring(0, portStart);
+            if ((scheme.equals("http") && port.equals(":80")) ||
+                    (scheme.equals("https") && port.equals(":443"))) {
+                port = "";
+            }
+        }
+
+        String host = removeHostPrefixes(authority.toLowerCase(Locale.US));
+
+        String ampTarget = getAmpCacheTarget(host, path);
+        if (ampTarget != null) {
+            return canonicalize(ampTarget + (parameters.isEmpty() ? "" : "?" + parameters));
+        }
+
+        StringBuilder canonical = new StringBuilder(url.length());
+        canonical.append(scheme).append("://").append(host).append(port)
+                .append(canonicalizePath(path));
+
+        String canonicalParameters = removeTrackingParameters(parameters);
+        if (!canonicalParameters.isEmpty()) {
+            canonical.append('?').append(canonicalParameters);
+        }
+
+        return canonical.toString();
+    }
+
+    /**
+     * Gets the host of a url, in the same form that it takes in the canonical url.
+     *
+     * @param url the url to get the host of.
+     * @return the host, or null if the url isn't absolute.
+     */
+    public static String getDomain(String url) {
+        url = canonicalize(url);
+        if (url == null) {
+            return null;
+        }
+
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd <= 0) {
+            return null;
+        }
+
+        int hostStart = schemeEnd + 3;
+        int hostEnd = indexOfAny(url, "/?", hostStart);
+        int portStart = url.lastIndexOf(':', hostEnd - 1);
+        int bracket = url.indexOf(']', hostStart);
+        if (portStart > hostStart && (bracket == -1 || bracket >= hostEnd || bracket < portStart)) {
+            hostEnd = portStart;
+        }
+
+        String host = url.substring(hostStart, hostEnd);
+        return host.isEmpty() ? null : host;
+    }
+
+    private static String removeHostPrefixes(String host) {
+        boolean removed = true;
+        while (removed) {
+            removed = false;
+            for (String prefix : HOST_PREFIXES) {
+                // never take the host down to just a top level domain, like m.me
+                if (host.startsWith(prefix) && host.indexOf('.', prefix.length()) != -1) {
+                    host = host.substring(prefix.length());
+                    removed = true;
+                }
+            }
+        }
+
+        return host;
+    }
+
+    /**
+     * Google and the AMP project both serve cached copies of AMP pages with the original host
+     * and path in their own path, like google.com/amp/s/example.com/article.
+     *
+     * @return the url of the original page, or null if this isn't a cached copy.
+     */
+    private static String getAmpCacheTarget(String host, String path) {
+        String target;
+        if (host.equals(GOOGLE_AMP_HOST) && path.startsWith(GOOGLE_AMP_PATH)) {
+            target = path.substring(GOOGLE_AMP_PATH.length());
+        } else if (host.endsWith(AMP_CDN_HOST) && path.length() > 3 && path.charAt(0) == '/' &&
+                path.charAt(2) == '/') {
+            // the first segment says what type of content it is, /c/ for a document
+            target = path.substring(3);
+        } else {
+            return null;
+        }
+
+        if (target.startsWith("s/")) {
+            return "https://" + target.substring(2);
+        } else if (target.isEmpty()) {
+            return null;
+        } else {
+            return "http://" + target;
+        }
+    }
+
+    private static String canonicalizePath(String path) {
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        if (path.endsWith("/amp")) {
+            path = path.substring(0, path.length() - "/amp".length());
+        } else if (path.endsWith(AMP_SUFFIX)) {
+            path = path.substring(0, path.length() - AMP_SUFFIX.length());
+        } else if (path.endsWith(AMP_SUFFIX + ".html")) {
+            path = path.substring(0, path.length() - (AMP_SUFFIX + ".html").length()) + ".html";
+        }
+
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        return path.isEmpty() ? "/" : path;
+    }
+
+    private static String removeTrackingParameters(String parameters) {
+        if (parameters.isEmpty()) {
+            return parameters;
+        }
+
+        StringBuilder kept = new StringBuilder(parameters.length());
+        int start = 0;
+        while (start <= parameters.length()) {
+            int end = parameters.indexOf('&', start);
+            if (end == -1) {
+                end = parameters.length();
+            }
+
+            String parameter = parameters.substring(start, end);
+            if (!parameter.isEmpty() && !isTrackingParameter(parameter)) {
+                if (kept.length() > 0) {
+                    kept.append('&');
+                }
+
+                kept.append(parameter);
+            }
+
+            start = end + 1;
+        }
+
+        return kept.toString();
+    }
+
+    private static boolean isTrackingParameter(String parameter) {
+        int equals = parameter.indexOf('=');
+        String name = (equals == -1 ? parameter : parameter.substring(0, equals))
+                .toLowerCase(Locale.US);
+        String value = equals == -1 ? "" : parameter.substring(equals + 1);
+
+        return name.startsWith("utm_") || TRACKING_PARAMETERS.contains(name) ||
+                (name.equals("outputtype") && value.equalsIgnoreCase("amp"));
+    }
+
+    private static int indexOfAny(String string, String characters, int start) {
+        for (int i = start; i < string.length(); i++) {
+            if (characters.indexOf(string.charAt(i)) != -1) {
+                return i;
+            }
+        }
+
+        return string.length();
+    }
+}
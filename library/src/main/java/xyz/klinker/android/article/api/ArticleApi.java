@@ -16,17 +16,22 @@
 
 package xyz.klinker.android.article.api;
 
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
 import com.google.gson.FieldNamingPolicy;
-import com.google.gson.FieldNamingStrategy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
+import okhttp3.Cache;
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
@@ -36,6 +41,7 @@ import retrofit2.CallAdapter;
 import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import xyz.klinker.android.article.data.Article;
 
 /**
  * Helper for connecting to the remote APIs and fetching articles from the server. This class allows
@@ -47,13 +53,43 @@ import retrofit2.converter.gson.GsonConverterFactory;
  *
  * ArticleApi api = new ArticleApi(myApiToken);
  * Article article = api.article().parse(myUrl);
+ *
+ * Methods on the {@link ArticleService} that return an {@link ArticleFuture} will not block the
+ * calling thread, and instead run on OkHttp's dispatcher.
  */
 public class ArticleApi {
 
+    private static final String TAG = "ArticleApi";
     private static final String API_DEBUG_URL = "http://192.168.86.146:3000/v1/";
     private static final String API_RELEASE_URL = "https://article.klinkerapps.com/v1/";
 
-    private static OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
+    /**
+     * The default size for the HTTP cache, when enabled.
+     */
+    public static final long DEFAULT_CACHE_SIZE = 10 * 1024 * 1024;
+
+    /**
+     * The default limit for how large a single response from the server can be.
+     */
+    public static final long DEFAULT_MAX_RESPONSE_SIZE = 5 * 1024 * 1024;
+
+    /**
+     * Client shared by every ArticleApi in the process. Each api gets a lightweight copy of it
+     * with its own token interceptor, which still shares this client's connection pool and
+     * dispatcher so that warm connections are reused.
+     */
+    private static OkHttpClient sharedClient;
+    private static final CacheStatsInterceptor cacheStats = new CacheStatsInterceptor();
+    private static final ResponseSizeLimitInterceptor sizeLimit =
+            new ResponseSizeLimitInterceptor(DEFAULT_MAX_RESPONSE_SIZE);
+
+    /**
+     * Services that have already been created, keyed by base url and api token. Creating a
+     * Retrofit service is expensive, so repeated ArticleApi instances for the same token will
+     * reuse the same one.
+     */
+    private static final ConcurrentHashMap<String, ArticleService> services =
+            new ConcurrentHashMap<>();
 
     private static CallAdapter.Factory callAdapterFactory = new CallAdapter.Factory() {
         @Override
@@ -64,6 +100,28 @@ public class ArticleApi {
                 return null;
             }
 
+            if (getRawType(returnType) == ArticleFuture.class) {
+                if (!(returnType instanceof ParameterizedType)) {
+                    throw new IllegalStateException(
+                            "ArticleFuture return type must be parameterized as ArticleFuture<Foo>");
+                }
+
+                final Type responseType = getParameterUpperBound(0, (ParameterizedType) returnType);
+                return new CallAdapter<Object, Object>() {
+                    @Override
+                    public Type responseType() {
+                        return responseType;
+                    }
+
+                    @Override
+                    public Object adapt(Call<Object> call) {
+                        ArticleFuture<Object> future = new ArticleFuture<>(call);
+                        future.enqueue();
+                        return future;
+                    }
+                };
+            }
+
             return new CallAdapter<Object, Object>() {
                 @Override
                 public Type responseType() {
@@ -86,27 +144,10 @@ public class ArticleApi {
 
     private static Gson gson = new GsonBuilder()
             .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-            .setFieldNamingStrategy(new FieldNamingStrategy() {
-                @Override
-                public String translateName(Field f) {
-                    return separateCamelCase(f.getName(), "_").toLowerCase(Locale.ROOT);
-                }
-
-                private String separateCamelCase(String name, String separator) {
-                    StringBuilder translation = new StringBuilder();
-                    for (int i = 0; i < name.length(); i++) {
-                        char character = name.charAt(i);
-                        if (Character.isUpperCase(character) && translation.length() != 0) {
-                            translation.append(separator);
-                        }
-                        translation.append(character);
-                    }
-                    return translation.toString();
-                }
-            })
+            .registerTypeAdapter(Article.class, new ArticleTypeAdapter())
             .create();
 
-    private Retrofit retrofit;
+    private ArticleService service;
     private String baseUrl;
 
     public enum Environment {
@@ -133,43 +174,144 @@ public class ArticleApi {
      * Creates a new API access object that will automatically attach your API key to all
      * requests.
      */
-    private ArticleApi(String baseUrl, final String apiToken) {
+    @VisibleForTesting
+    ArticleApi(String baseUrl, final String apiToken) {
         if (apiToken == null) {
             throw new RuntimeException("Api token cannot be null.");
         }
-        
-        if (httpClient.interceptors().size() == 0) {
-            httpClient.addInterceptor(new Interceptor() {
-                @Override
-                public okhttp3.Response intercept(Chain chain) throws IOException {
-                    Request request = chain.request();
-                    HttpUrl url = request.url().newBuilder()
-                            .addQueryParameter("api_token", apiToken).build();
-                    request = request.newBuilder().url(url).build();
-                    return chain.proceed(request);
-                }
-            });
-        }
 
-        Retrofit.Builder builder =
-                new Retrofit.Builder()
-                        .baseUrl(baseUrl)
-                        .addConverterFactory(GsonConverterFactory.create(gson))
-                        .addCallAdapterFactory(callAdapterFactory);
+        String key = baseUrl + "|" + apiToken;
+        ArticleService service = services.get(key);
+        if (service == null) {
+            StaleWhileRevalidateInterceptor staleWhileRevalidate =
+                    new StaleWhileRevalidateInterceptor();
+            OkHttpClient client = getSharedClient().newBuilder()
+                    .addInterceptor(staleWhileRevalidate)
+                    .addInterceptor(new ApiTokenInterceptor(apiToken))
+                    .build();
+            staleWhileRevalidate.setClient(client);
+
+            Retrofit retrofit = new Retrofit.Builder()
+                    .baseUrl(baseUrl)
+                    .addConverterFactory(GsonConverterFactory.create(gson))
+                    .addCallAdapterFactory(callAdapterFactory)
+                    .client(client)
+                    .build();
 
-        this.retrofit = builder.client(httpClient.build()).build();
+            service = retrofit.create(ArticleService.class);
+            ArticleService existing = services.putIfAbsent(key, service);
+            if (existing != null) {
+                service = existing;
+            }
+        }
+
+        this.service = service;
         this.baseUrl = baseUrl;
     }
 
+    /**
+     * Gets the client that all APIs in the process share their connection pool and dispatcher
+     * with.
+     */
+    private static synchronized OkHttpClient getSharedClient() {
+        if (sharedClient == null) {
+            sharedClient = new OkHttpClient.Builder()
+                    .addInterceptor(cacheStats)
+                    .addInterceptor(sizeLimit)
+                    .addNetworkInterceptor(new RevalidationInterceptor())
+                    .build();
+        }
+
+        return sharedClient;
+    }
+
+    /**
+     * Enables an HTTP cache for all APIs created after this call. Responses that the server
+     * marks as revalidatable will be stored and revalidated with If-None-Match or
+     * If-Modified-Since, and the trending articles will be served from the cache while they are
+     * refreshed in the background.
+     *
+     * Calling this more than once with the same directory has no effect, even with a different
+     * size, since the cache that is already open keeps the directory locked. A new size only
+     * applies the next time the process starts.
+     *
+     * @param directory the directory to store the cache in. This should be private to the app,
+     *                  such as a folder inside of {@link android.content.Context#getCacheDir()}.
+     * @param maxSizeBytes the maximum size of the cache.
+     */
+    public static synchronized void enableCache(File directory, long maxSizeBytes) {
+        OkHttpClient client = getSharedClient();
+        Cache cache = client.cache();
+        if (cache != null && cache.directory().equals(directory)) {
+            if (cache.maxSize() != maxSizeBytes) {
+                Log.w(TAG, "the http cache is already open, keeping its size of " +
+                        cache.maxSize() + " bytes");
+            }
+
+            return;
+        }
+
+        sharedClient = client.newBuilder()
+                .cache(new Cache(directory, maxSizeBytes))
+                .build();
+        services.clear();
+    }
+
+    @VisibleForTesting
+    static synchronized Cache getCache() {
+        return getSharedClient().cache();
+    }
+
+    /**
+     * Sets the largest response body, in bytes, that will be read from the server. Requests for
+     * anything larger will fail instead of loading the whole thing into memory. Defaults to
+     * {@link #DEFAULT_MAX_RESPONSE_SIZE}.
+     *
+     * @param maxBytes the maximum size, or 0 for no limit.
+     */
+    public static void setMaxResponseSize(long maxBytes) {
+        sizeLimit.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Gets counters for how responses have been served by the HTTP cache.
+     *
+     * @return the current stats.
+     */
+    public static HttpCacheStats getCacheStats() {
+        return cacheStats.getStats();
+    }
+
     /**
      * Gets a service that can be used for account requests such as signup and login.
      */
     public ArticleService article() {
-        return retrofit.create(ArticleService.class);
+        return service;
     }
 
     public String baseUrl() {
         return baseUrl;
     }
 
+    /**
+     * Attaches an api token to every request made through a client.
+     */
+    private static final class ApiTokenInterceptor implements Interceptor {
+
+        private final String apiToken;
+
+        private ApiTokenInterceptor(String apiToken) {
+            this.apiToken = apiToken;
+        }
+
+        @Override
+        public okhttp3.Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            HttpUrl url = request.url().newBuilder()
+                    .addQueryParameter("api_token", apiToken).build();
+            request = request.newBuilder().url(url).build();
+            return chain.proceed(request);
+        }
+    }
+
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+/**
+ * Failure from an asynchronous {@link ArticleService} request. The type lets callers tell
+ * connectivity problems apart from errors reported by the server and from responses that could
+ * not be understood.
+ */
+public class ArticleApiException extends Exception {
+
+    public enum Type {
+        /**
+         * The request could not reach the server or the connection failed part of the way through.
+         */
+        NETWORK,
+
+        /**
+         * The server responded with a non-2xx status code. See {@link #getCode()}.
+         */
+        HTTP,
+
+        /**
+         * The server responded successfully, but the body could not be parsed.
+         */
+        PARSE,
+
+        /**
+         * The response was larger than the limit set with
+         * {@link ArticleApi#setMaxResponseSize(long)}.
+         */
+        TOO_LARGE,
+
+        /**
+         * The request was cancelled before it finished.
+         */
+        CANCELLED
+    }
+
+    private final Type type;
+    private final int code;
+
+    ArticleApiException(Type type, int code, String message, Throwable cause) {
+        super(message, cause);
+        this.type = type;
+        this.code = code;
+    }
+
+    /**
+     * Gets the type of failure.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the HTTP status code for {@link Type#HTTP} failures, or -1 for all other failures.
+     */
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Result of an asynchronous {@link ArticleService} request. The request is run on OkHttp's
+ * dispatcher, so no thread is parked while it is in flight. Either block on {@link #get()} or
+ * register an {@link ArticleCallback} to be notified when it finishes.
+ *
+ * Failures are reported as an {@link ArticleApiException}, wrapped in an
+ * {@link ExecutionException} when using {@link #get()}.
+ */
+public final class ArticleFuture<T> implements Future<T> {
+
+    private final Call<T> call;
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final List<ArticleCallback<T>> callbacks = new ArrayList<>();
+
+    private boolean done = false;
+    private T result;
+    private ArticleApiException exception;
+
+    ArticleFuture(Call<T> call) {
+        this.call = call;
+    }
+
+    /**
+     * Starts the request on OkHttp's dispatcher.
+     */
+    void enqueue() {
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                if (response.isSuccessful()) {
+                    succeed(response.body());
+                } else {
+                    fail(new ArticleApiException(ArticleApiException.Type.HTTP, response.code(),
+                            "HTTP " + response.code() + " " + response.message(), null));
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                fail(classify(call, t));
+            }
+        });
+    }
+
+    /**
+     * Registers a callback to be notified when the request finishes. If it has already finished,
+     * the callback is invoked immediately on the calling thread.
+     *
+     * @param callback the callback to notify.
+     * @return this future.
+     */
+    public ArticleFuture<T> addCallback(ArticleCallback<T> callback) {
+        synchronized (this) {
+            if (!done) {
+                callbacks.add(callback);
+                return this;
+            }
+        }
+
+        deliver(callback);
+        return this;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+        }
+
+        call.cancel();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return call.isCanceled();
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        latch.await();
+        return getResult();
+    }
+
+    @Override
+    public T get(long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!latch.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+
+        return getResult();
+    }
+
+    private synchronized T getResult() throws ExecutionException {
+        if (exception != null) {
+            throw new ExecutionException(exception);
+        }
+
+        return result;
+    }
+
+    private void succeed(T result) {
+        finish(result, null);
+    }
+
+    private void fail(ArticleApiException exception) {
+        finish(null, exception);
+    }
+
+    private void finish(T result, ArticleApiException exception) {
+        List<ArticleCallback<T>> callbacks;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+
+            this.done = true;
+            this.result = result;
+            this.exception = exception;
+            callbacks = new ArrayList<>(this.callbacks);
+            this.callbacks.clear();
+        }
+
+        latch.countDown();
+
+        for (ArticleCallback<T> callback : callbacks) {
+            deliver(callback);
+        }
+    }
+
+    private void deliver(ArticleCallback<T> callback) {
+        ArticleApiException exception;
+        T result;
+        synchronized (this) {
+            exception = this.exception;
+            result = this.result;
+        }
+
+        if (exception != null) {
+            callback.onFailure(exception);
+        } else {
+            callback.onSuccess(result);
+        }
+    }
+
+    private static ArticleApiException classify(Call<?> call, Throwable t) {
+        if (call.isCanceled()) {
+            return new ArticleApiException(
+                    ArticleApiException.Type.CANCELLED, -1, "Request cancelled", t);
+        } else if (t instanceof ResponseTooLargeException) {
+            return new ArticleApiException(
+                    ArticleApiException.Type.TOO_LARGE, -1, t.getMessage(), t);
+        } else if (t instanceof MalformedJsonException || t instanceof JsonParseException) {
+            return new ArticleApiException(ArticleApiException.Type.PARSE, -1, t.getMessage(), t);
+        } else if (t instanceof IOException) {
+            return new ArticleApiException(ArticleApiException.Type.NETWORK, -1, t.getMessage(), t);
+        } else {
+            return new ArticleApiException(ArticleApiException.Type.PARSE, -1, t.getMessage(), t);
+        }
+    }
+}
@@ -16,7 +16,13 @@
 
 package xyz.klinker.android.article.api;
 
+import java.util.List;
+
+import retrofit2.http.Field;
+import retrofit2.http.FormUrlEncoded;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
+import retrofit2.http.POST;
 import retrofit2.http.Query;
 import xyz.klinker.android.article.data.Article;
 
@@ -31,6 +37,11 @@ import xyz.klinker.android.article.data.Article;
  */
 public interface ArticleService {
 
+    /**
+     * How long a cached trending response can be shown while it is refreshed in the background.
+     */
+    int TRENDING_STALE_SECONDS = 60 * 60;
+
     /**
      * Gets an article from the provided url and caches it.
      *
@@ -40,12 +51,46 @@ public interface ArticleService {
     @GET("parse")
     Article parse(@Query("url") String url);
 
+    /**
+     * Gets an article from the provided url and caches it, without blocking the calling thread.
+     *
+     * @param url the url to get an article from.
+     * @return a future for the parsed article.
+     */
+    @GET("parse")
+    ArticleFuture<Article> parseAsync(@Query("url") String url);
+
+    /**
+     * Gets articles for many urls in a single request and caches them. The articles are returned
+     * in the same order as the provided urls.
+     *
+     * Older servers do not support this and will return null, in which case each url should be
+     * requested through {@link #parse(String)} instead.
+     *
+     * @param urls the urls to get articles from.
+     * @return the parsed articles.
+     */
+    @FormUrlEncoded
+    @POST("parse/batch")
+    Article[] parseBatch(@Field("url[]") List<String> urls);
+
     /**
      * Gets the trending articles that are currently popular on our server.
      *
      * @return the trending articles.
      */
     @GET("trending")
+    @Headers(StaleWhileRevalidateInterceptor.HEADER + ": " + TRENDING_STALE_SECONDS)
     Article[] trending();
 
+    /**
+     * Gets the trending articles that are currently popular on our server, without blocking the
+     * calling thread.
+     *
+     * @return a future for the trending articles.
+     */
+    @GET("trending")
+    @Headers(StaleWhileRevalidateInterceptor.HEADER + ": " + TRENDING_STALE_SECONDS)
+    ArticleFuture<Article[]> trendingAsync();
+
 }
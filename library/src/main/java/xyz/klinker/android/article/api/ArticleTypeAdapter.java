@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import xyz.klinker.android.article.data.Article;
+
+/**
+ * Reads and writes {@link Article} json without any reflection. The server uses lower case,
+ * underscore separated names for each of the fields, which are kept as constants here instead of
+ * being computed from the field names for every response.
+ */
+final class ArticleTypeAdapter extends TypeAdapter<Article> {
+
+    static final String NAME_ID = "id";
+    static final String NAME_ALIAS = "alias";
+    static final String NAME_URL = "url";
+    static final String NAME_TITLE = "title";
+    static final String NAME_DESCRIPTION = "description";
+    static final String NAME_IMAGE = "image";
+    static final String NAME_CONTENT = "content";
+    static final String NAME_AUTHOR = "author";
+    static final String NAME_SOURCE = "source";
+    static final String NAME_DOMAIN = "domain";
+    static final String NAME_DURATION = "duration";
+    static final String NAME_INSERTED_AT = "inserted_at";
+    static final String NAME_IS_ARTICLE = "is_article";
+    static final String NAME_SAVED = "saved";
+    static final String NAME_SOURCE_ID = "source_id";
+    static final String NAME_SOURCE_MODEL_NAME = "source_model_name";
+    static final String NAME_SOURCE_MODEL_IMAGE_URL = "source_model_image_url";
+
+    @Override
+    public void write(JsonWriter out, Article article) throws IOException {
+        if (article == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name(NAME_ID).value(article.id);
+        writeString(out, NAME_ALIAS, article.alias);
+        writeString(out, NAME_URL, article.url);
+        writeString(out, NAME_TITLE, article.title);
+        writeString(out, NAME_DESCRIPTION, article.description);
+        writeString(out, NAME_IMAGE, article.image);
+        writeString(out, NAME_CONTENT, article.getContent());
+        writeString(out, NAME_AUTHOR, article.author);
+        writeString(out, NAME_SOURCE, article.source);
+        writeString(out, NAME_DOMAIN, article.domain);
+        out.name(NAME_DURATION).value(article.duration);
+        out.name(NAME_INSERTED_AT).value(article.insertedAt);
+        out.name(NAME_IS_ARTICLE).value(article.isArticle);
+        out.name(NAME_SAVED).value(article.saved);
+        if (article.sourceId != null) {
+            out.name(NAME_SOURCE_ID).value(article.sourceId);
+        }
+        writeString(out, NAME_SOURCE_MODEL_NAME, article.sourceModelName);
+        writeString(out, NAME_SOURCE_MODEL_IMAGE_URL, article.sourceModelImageUrl);
+        out.endObject();
+    }
+
+    @Override
+    public Article read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Article article = new Article();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case NAME_ID:
+                    article.id = in.nextLong();
+                    break;
+                case NAME_ALIAS:
+                    article.alias = in.nextString();
+                    break;
+                case NAME_URL:
+                    article.url = in.nextString();
+                    break;
+                case NAME_TITLE:
+                    article.title = in.nextString();
+                    break;
+                case NAME_DESCRIPTION:
+                    article.description = in.nextString();
+                    break;
+                case NAME_IMAGE:
+                    article.image = in.nextString();
+                    break;
+                case NAME_CONTENT:
+                    article.setContent(in.nextString());
+                    break;
+                case NAME_AUTHOR:
+                    article.author = in.nextString();
+                    break;
+                case NAME_SOURCE:
+                    article.source = in.nextString();
+                    break;
+                case NAME_DOMAIN:
+                    article.domain = in.nextString();
+                    break;
+                case NAME_DURATION:
+                    article.duration = in.nextInt();
+                    break;
+                case NAME_INSERTED_AT:
+                    article.insertedAt = in.nextLong();
+                    break;
+                case NAME_IS_ARTICLE:
+                    article.isArticle = readBoolean(in);
+                    break;
+                case NAME_SAVED:
+                    article.saved = readBoolean(in);
+                    break;
+                case NAME_SOURCE_ID:
+                    article.sourceId = in.nextLong();
+                    break;
+                case NAME_SOURCE_MODEL_NAME:
+                    article.sourceModelName = in.nextString();
+                    break;
+                case NAME_SOURCE_MODEL_IMAGE_URL:
+                    article.sourceModelImageUrl = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        return article;
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static boolean readBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        } else {
+            return in.nextBoolean();
+        }
+    }
+}
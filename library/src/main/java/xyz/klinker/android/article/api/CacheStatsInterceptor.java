@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Counts how each response was served by the HTTP cache.
+ */
+final class CacheStatsInterceptor implements Interceptor {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong conditionalHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+
+        if (response.cacheResponse() != null && response.networkResponse() == null) {
+            hits.incrementAndGet();
+        } else if (response.cacheResponse() != null) {
+            conditionalHits.incrementAndGet();
+        } else if (response.networkResponse() != null) {
+            misses.incrementAndGet();
+        }
+
+        return response;
+    }
+
+    HttpCacheStats getStats() {
+        return new HttpCacheStats(hits.get(), conditionalHits.get(), misses.get());
+    }
+}
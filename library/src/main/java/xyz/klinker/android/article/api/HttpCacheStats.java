@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+/**
+ * Snapshot of how requests through the {@link ArticleApi} were served by the HTTP cache.
+ */
+public class HttpCacheStats {
+
+    private long hitCount;
+    private long conditionalHitCount;
+    private long missCount;
+
+    HttpCacheStats(long hitCount, long conditionalHitCount, long missCount) {
+        this.hitCount = hitCount;
+        this.conditionalHitCount = conditionalHitCount;
+        this.missCount = missCount;
+    }
+
+    /**
+     * Responses that were served straight from the cache, without touching the network.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Responses that were revalidated with the server and then served from the cache, because
+     * the server reported that they had not been modified.
+     */
+    public long getConditionalHitCount() {
+        return conditionalHitCount;
+    }
+
+    /**
+     * Responses that had to be downloaded in full from the server.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+import java.io.IOException;
+
+import okhttp3.FormBody;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Stops reading any response body once it grows past a maximum size. Response bodies are
+ * streamed straight into the json parser, but the article content still ends up in memory as a
+ * single string, so without this a pathological page could run a low end device out of memory.
+ *
+ * The limit is for a single article. Batch requests are allowed the limit once for every url that
+ * they ask for, so that a batch never fails where the same urls would have loaded one at a time.
+ *
+ * Responses that declare a Content-Length over the limit are rejected before any of the body is
+ * read. Everything else is counted as it is read, after any gzip encoding has been removed.
+ */
+final class ResponseSizeLimitInterceptor implements Interceptor {
+
+    private static final String BATCH_URL_FIELD = "url[]";
+
+    private volatile long maxBytes;
+
+    ResponseSizeLimitInterceptor(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        ResponseBody body = response.body();
+        long maxBytes = this.maxBytes;
+        if (body == null || maxBytes <= 0) {
+            return response;
+        }
+
+        maxBytes *= countArticles(request);
+
+        if (body.contentLength() > maxBytes) {
+            response.close();
+            throw new ResponseTooLargeException(maxBytes);
+        }
+
+        ResponseBody limited = ResponseBody.create(body.contentType(), body.contentLength(),
+                Okio.buffer(new LimitedSource(body.source(), maxBytes)));
+        return response.newBuilder().body(limited).build();
+    }
+
+    /**
+     * Gets the number of articles that a request asks for, which is the number of urls in a batch
+     * request and 1 for anything else.
+     */
+    private static int countArticles(Request request) {
+        RequestBody body = request.body();
+        if (!(body instanceof FormBody)) {
+            return 1;
+        }
+
+        FormBody form = (FormBody) body;
+        int count = 0;
+        for (int i = 0; i < form.size(); i++) {
+            if (BATCH_URL_FIELD.equals(form.name(i))) {
+                count++;
+            }
+        }
+
+        return Math.max(1, count);
+    }
+
+    private static final class LimitedSource extends ForwardingSource {
+
+        private final long maxBytes;
+        private long totalBytes = 0;
+
+        private LimitedSource(Source delegate, long maxBytes) {
+            super(delegate);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read > 0) {
+                totalBytes += read;
+                if (totalBytes > maxBytes) {
+                    throw new ResponseTooLargeException(maxBytes);
+                }
+            }
+
+            return read;
+        }
+    }
+}
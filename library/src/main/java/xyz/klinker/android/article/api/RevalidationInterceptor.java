@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Network interceptor that makes responses without any caching instructions from the server
+ * cacheable, as long as they can be revalidated. They are stored as immediately stale, so the
+ * next request for them will be sent with If-None-Match or If-Modified-Since and the server can
+ * answer with a small 304 instead of the full body.
+ */
+final class RevalidationInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+
+        boolean validatable = response.header("ETag") != null ||
+                response.header("Last-Modified") != null;
+        if (validatable && response.header("Cache-Control") == null &&
+                response.header("Expires") == null) {
+            return response.newBuilder()
+                    .header("Cache-Control", "max-age=0")
+                    .removeHeader("Pragma")
+                    .build();
+        }
+
+        return response;
+    }
+}
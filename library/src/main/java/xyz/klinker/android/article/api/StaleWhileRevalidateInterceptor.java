@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Serves requests tagged with {@link #HEADER} from the cache even once they have gone stale, as
+ * long as they are younger than the number of seconds in the header. When a stale response is
+ * served, a revalidation request is sent in the background so that the next request gets fresh
+ * data.
+ *
+ * This has to run before the api token is attached to the request, so that the background
+ * revalidation goes through the same client and ends up with the same cache key.
+ */
+final class StaleWhileRevalidateInterceptor implements Interceptor {
+
+    static final String HEADER = "X-Article-Stale-While-Revalidate";
+
+    private OkHttpClient client;
+
+    void setClient(OkHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String header = request.header(HEADER);
+        if (header == null) {
+            return chain.proceed(request);
+        }
+
+        request = request.newBuilder().removeHeader(HEADER).build();
+        if (client == null || client.cache() == null) {
+            return chain.proceed(request);
+        }
+
+        int staleSeconds;
+        try {
+            staleSeconds = Integer.parseInt(header);
+        } catch (NumberFormatException e) {
+            return chain.proceed(request);
+        }
+
+        Response cached = chain.proceed(request.newBuilder()
+                .cacheControl(new CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(staleSeconds, TimeUnit.SECONDS)
+                        .build())
+                .build());
+
+        if (cached.code() == 504) {
+            // nothing usable in the cache
+            cached.close();
+            return chain.proceed(request);
+        }
+
+        String warning = cached.header("Warning");
+        if (warning != null && warning.startsWith("110")) {
+            revalidate(request);
+        }
+
+        return cached;
+    }
+
+    private void revalidate(Request request) {
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // we will try again the next time that the stale response is served
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                // the cache is updated as the body is consumed
+                try {
+                    response.body().bytes();
+                } catch (IOException e) {
+                    // like a failed request, this will be tried again next time
+                } finally {
+                    response.close();
+                }
+            }
+        });
+    }
+}
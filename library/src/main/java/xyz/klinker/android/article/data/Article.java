@@ -20,10 +20,11 @@ import android.content.Intent;
 import android.database.Cursor;
 import android.os.Bundle;
 
+import java.util.List;
+
 import xyz.klinker.android.article.data.model.ArticleModel;
 import xyz.klinker.android.article.data.model.ContentModel;
 import xyz.klinker.android.article.data.model.DatabaseModel;
-import xyz.klinker.android.article.data.model.SourceModel;
 
 /**
  * Model holding all possible elements in a response from the server.
@@ -36,7 +37,17 @@ public final class Article implements DatabaseModel {
     public String title;
     public String description;
     public String image;
+
+    /**
+     * The html content of the article. Content that was read from the database compressed is
+     * left null until {@link #getContent()} decompresses it.
+     *
+     * @deprecated read this through {@link #getContent()} and set it with
+     * {@link #setContent(String)}, which work for compressed content too.
+     */
+    @Deprecated
     public String content;
+
     public String author;
     public String source;
     public String domain;
@@ -48,6 +59,12 @@ public final class Article implements DatabaseModel {
     public String sourceModelName;
     public String sourceModelImageUrl;
 
+    private static final int OBJECT_OVERHEAD_BYTES = 256;
+
+    private int contentCodec = ContentCodec.CODEC_NONE;
+    private byte[] compressedContent;
+    private byte[] encodedBlocks;
+
     /**
      * Creates a blank article that can be filled manually.
      */
@@ -76,45 +93,116 @@ public final class Article implements DatabaseModel {
 
     @Override
     public void fillFromCursor(Cursor cursor) {
-        for (int i = 0; i < cursor.getColumnCount(); i++) {
-            String column = cursor.getColumnName(i);
-
-            if (column.equals(ArticleModel.COLUMN_ID)) {
-                this.id = cursor.getLong(i);
-            } else if (column.equals(ArticleModel.COLUMN_ALIAS)) {
-                this.alias = cursor.getString(i);
-            } else if (column.equals(ArticleModel.COLUMN_URL)) {
-                this.url = cursor.getString(i);
-            } else if (column.equals(ArticleModel.COLUMN_TITLE)) {
-                this.title = cursor.getString(i);
-            } else if (column.equals(ArticleModel.COLUMN_DESCRIPTION)) {
-                this.description = cursor.getString(i);
-            } else if (column.equals(ArticleModel.COLUMN_IMAGE)) {
-                this.image = cursor.getString(i);
-            } else if (column.equals(ContentModel.COLUMN_CONTENT)) {
-                this.content = cursor.getString(i);
-            } else if (column.equals(ArticleModel.COLUMN_AUTHOR)) {
-                this.author = cursor.getString(i);
-            } else if (column.equals(ArticleModel.COLUMN_SOURCE)) {
-                this.source = cursor.getString(i);
-            } else if (column.equals(ArticleModel.COLUMN_DOMAIN)) {
-                this.domain = cursor.getString(i);
-            } else if (column.equals(ArticleModel.COLUMN_DURATION)) {
-                this.duration = cursor.getInt(i);
-            } else if (column.equals(ArticleModel.COLUMN_INSERTED_AT)) {
-                this.insertedAt = cursor.getLong(i);
-            } else if (column.equals(ArticleModel.COLUMN_IS_ARTICLE)) {
-                this.isArticle = cursor.getInt(i) == 1;
-            } else if (column.equals(ArticleModel.COLUMN_SAVED)) {
-                this.saved = cursor.getInt(i) == 1;
-            } else if (column.equals(ArticleModel.COLUMN_SOURCE_ID)) {
-                this.sourceId = cursor.getLong(i);
-            } else if (column.equals(SourceModel.COLUMN_NAME)) {
-                this.sourceModelName = cursor.getString(i);
-            } else if (column.equals(SourceModel.COLUMN_IMAGE_URL)) {
-                this.sourceModelImageUrl = cursor.getString(i);
+        new ArticleCursorMapper(cursor).fill(this);
+    }
+
+    /**
+     * Gets the html content of the article. Content that was stored compressed is only
+     * decompressed the first time that this is called.
+     *
+     * @return the content, or null if the article doesn't have any.
+     */
+    public synchronized String getContent() {
+        if (content == null && compressedContent != null) {
+            content = ContentCodec.decompress(contentCodec, compressedContent);
+            compressedContent = null;
+        }
+
+        return content;
+    }
+
+    /**
+     * Sets the html content of the article, replacing any compressed content that was read from
+     * the database.
+     *
+     * @param content the new content.
+     */
+    public synchronized void setContent(String content) {
+        this.content = content;
+        this.contentCodec = ContentCodec.CODEC_NONE;
+        this.compressedContent = null;
+    }
+
+    /**
+     * Checks whether the article has content, without decompressing it.
+     *
+     * @return true if there is content for the article.
+     */
+    public synchronized boolean hasContent() {
+        return content != null || compressedContent != null;
+    }
+
+    /**
+     * Gets the blocks that were stored the last time this article's content was parsed.
+     *
+     * @return the blocks, or null if the content has not been parsed since it was last changed.
+     *         An empty list means the content was parsed but had nothing worth displaying.
+     */
+    public List<ArticleBlock> getBlocks() {
+        return encodedBlocks == null ? null : ArticleBlock.decode(encodedBlocks);
+    }
+
+    /**
+     * Copies every field of the article, including content that hasn't been decompressed yet.
+     */
+    synchronized Article copy() {
+        Article copy = new Article();
+        copy.id = id;
+        copy.alias = alias;
+        copy.url = url;
+        copy.title = title;
+        copy.description = description;
+        copy.image = image;
+        copy.content = content;
+        copy.author = author;
+        copy.source = source;
+        copy.domain = domain;
+        copy.duration = duration;
+        copy.insertedAt = insertedAt;
+        copy.isArticle = isArticle;
+        copy.saved = saved;
+        copy.sourceId = sourceId;
+        copy.sourceModelName = sourceModelName;
+        copy.sourceModelImageUrl = sourceModelImageUrl;
+        copy.contentCodec = contentCodec;
+        copy.compressedContent = compressedContent;
+        copy.encodedBlocks = encodedBlocks;
+        return copy;
+    }
+
+    /**
+     * Estimates how much memory the article takes up, counting two bytes for each character.
+     */
+    synchronized long getEstimatedSize() {
+        long size = OBJECT_OVERHEAD_BYTES;
+        for (String field : new String[] { alias, url, title, description, image, content, author,
+                source, domain, sourceModelName, sourceModelImageUrl }) {
+            if (field != null) {
+                size += 2L * field.length();
             }
         }
+
+        if (compressedContent != null) {
+            size += compressedContent.length;
+        }
+
+        if (encodedBlocks != null) {
+            size += encodedBlocks.length;
+        }
+
+        return size;
+    }
+
+    synchronized void setContentCodec(int contentCodec) {
+        this.contentCodec = contentCodec;
+    }
+
+    synchronized void setCompressedContent(byte[] compressedContent) {
+        this.compressedContent = compressedContent;
+    }
+
+    void setEncodedBlocks(byte[] encodedBlocks) {
+        this.encodedBlocks = encodedBlocks;
     }
 
     /**
@@ -149,7 +237,7 @@ public final class Article implements DatabaseModel {
         intent.putExtra(ArticleModel.COLUMN_TITLE, this.title);
         intent.putExtra(ArticleModel.COLUMN_DESCRIPTION, this.description);
         intent.putExtra(ArticleModel.COLUMN_IMAGE, this.image);
-        intent.putExtra(ContentModel.COLUMN_CONTENT, this.content);
+        intent.putExtra(ContentModel.COLUMN_CONTENT, getContent());
         intent.putExtra(ArticleModel.COLUMN_AUTHOR, this.author);
         intent.putExtra(ArticleModel.COLUMN_SOURCE, this.source);
         intent.putExtra(ArticleModel.COLUMN_DOMAIN, this.domain);
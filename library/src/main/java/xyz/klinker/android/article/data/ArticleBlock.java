@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single piece of an article that is displayed on its own row: a paragraph, header, quote,
+ * list item or image. These are what is left of the article html after it has been parsed and
+ * filtered, so they can be stored and displayed again without parsing the html a second time.
+ */
+public final class ArticleBlock {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public final String tag;
+    public final String text;
+    public final String src;
+    public final String parentTag;
+
+    /**
+     * Creates a new block.
+     *
+     * @param tag the html tag name of the element, such as p or img.
+     * @param text the trimmed text of the element. Empty for images.
+     * @param src the source of the image, or null if this isn't an image.
+     * @param parentTag the tag name of the element's parent. Only kept for list items, where it
+     *                  tells an ordered list apart from an unordered one.
+     */
+    public ArticleBlock(String tag, String text, String src, String parentTag) {
+        this.tag = tag;
+        this.text = text == null ? "" : text;
+        this.src = src;
+        this.parentTag = parentTag;
+    }
+
+    /**
+     * Checks whether this block is an inline image.
+     */
+    public boolean isImage() {
+        return "img".equals(tag);
+    }
+
+    /**
+     * Packs a list of blocks into a compact binary form for storage in the database.
+     *
+     * @param blocks the blocks to encode.
+     * @return the encoded blocks.
+     */
+    public static byte[] encode(List<ArticleBlock> blocks) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(blocks.size());
+            for (ArticleBlock block : blocks) {
+                writeString(out, block.tag);
+                writeString(out, block.text);
+                writeString(out, block.src);
+                writeString(out, block.parentTag);
+            }
+
+            out.flush();
+        } catch (IOException e) {
+            // writing to memory, this can't happen
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Unpacks blocks that were stored with {@link #encode(List)}.
+     *
+     * @param data the encoded blocks.
+     * @return the blocks, or null if the data was written in a format that is not understood.
+     */
+    public static List<ArticleBlock> decode(byte[] data) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+        try {
+            if (in.readByte() != FORMAT_VERSION) {
+                return null;
+            }
+
+            int size = in.readInt();
+            if (size == 0) {
+                return Collections.emptyList();
+            }
+
+            List<ArticleBlock> blocks = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                blocks.add(new ArticleBlock(
+                        readString(in), readString(in), readString(in), readString(in)));
+            }
+
+            return blocks;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object instanceof ArticleBlock) {
+            ArticleBlock block = (ArticleBlock) object;
+            return same(tag, block.tag) && same(text, block.text) &&
+                    same(src, block.src) && same(parentTag, block.parentTag);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = tag == null ? 0 : tag.hashCode();
+        hash = 31 * hash + text.hashCode();
+        hash = 31 * hash + (src == null ? 0 : src.hashCode());
+        return 31 * hash + (parentTag == null ? 0 : parentTag.hashCode());
+    }
+
+    private static boolean same(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+}
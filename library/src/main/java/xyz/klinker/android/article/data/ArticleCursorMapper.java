@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.database.Cursor;
+
+import xyz.klinker.android.article.data.model.ArticleModel;
+import xyz.klinker.android.article.data.model.ContentModel;
+import xyz.klinker.android.article.data.model.SourceModel;
+
+/**
+ * Maps cursors over the article table, optionally joined with its content and source.
+ */
+public final class ArticleCursorMapper extends CursorMapper<Article> {
+
+    private int id = MISSING;
+    private int alias = MISSING;
+    private int url = MISSING;
+    private int title = MISSING;
+    private int description = MISSING;
+    private int image = MISSING;
+    private int content = MISSING;
+    private int codec = MISSING;
+    private int compressed = MISSING;
+    private int blocks = MISSING;
+    private int author = MISSING;
+    private int source = MISSING;
+    private int domain = MISSING;
+    private int duration = MISSING;
+    private int insertedAt = MISSING;
+    private int isArticle = MISSING;
+    private int saved = MISSING;
+    private int sourceId = MISSING;
+    private int sourceName = MISSING;
+    private int sourceImageUrl = MISSING;
+
+    public ArticleCursorMapper(Cursor cursor) {
+        super(cursor);
+
+        // when a name is repeated, such as _id in a join, the last column wins
+        for (int i = 0; i < cursor.getColumnCount(); i++) {
+            switch (cursor.getColumnName(i)) {
+                case ArticleModel.COLUMN_ID:
+                    id = i;
+                    break;
+                case ArticleModel.COLUMN_ALIAS:
+                    alias = i;
+                    break;
+                case ArticleModel.COLUMN_URL:
+                    url = i;
+                    break;
+                case ArticleModel.COLUMN_TITLE:
+                    title = i;
+                    break;
+                case ArticleModel.COLUMN_DESCRIPTION:
+                    description = i;
+                    break;
+                case ArticleModel.COLUMN_IMAGE:
+                    image = i;
+                    break;
+                case ContentModel.COLUMN_CONTENT:
+                    content = i;
+                    break;
+                case ContentModel.COLUMN_CODEC:
+                    codec = i;
+                    break;
+                case ContentModel.COLUMN_COMPRESSED:
+                    compressed = i;
+                    break;
+                case ContentModel.COLUMN_BLOCKS:
+                    blocks = i;
+                    break;
+                case ArticleModel.COLUMN_AUTHOR:
+                    author = i;
+                    break;
+                case ArticleModel.COLUMN_SOURCE:
+                    source = i;
+                    break;
+                case ArticleModel.COLUMN_DOMAIN:
+                    domain = i;
+                    break;
+                case ArticleModel.COLUMN_DURATION:
+                    duration = i;
+                    break;
+                case ArticleModel.COLUMN_INSERTED_AT:
+                    insertedAt = i;
+                    break;
+                case ArticleModel.COLUMN_IS_ARTICLE:
+                    isArticle = i;
+                    break;
+                case ArticleModel.COLUMN_SAVED:
+                    saved = i;
+                    break;
+                case ArticleModel.COLUMN_SOURCE_ID:
+                    sourceId = i;
+                    break;
+                case SourceModel.COLUMN_NAME:
+                    sourceName = i;
+                    break;
+                case SourceModel.COLUMN_IMAGE_URL:
+                    sourceImageUrl = i;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Override
+    protected Article create() {
+        return new Article();
+    }
+
+    @Override
+    public void fill(Article article) {
+        if (id != MISSING) {
+            article.id = cursor.getLong(id);
+        }
+
+        if (alias != MISSING) {
+            article.alias = cursor.getString(alias);
+        }
+
+        if (url != MISSING) {
+            article.url = cursor.getString(url);
+        }
+
+        if (title != MISSING) {
+            article.title = cursor.getString(title);
+        }
+
+        if (description != MISSING) {
+            article.description = cursor.getString(description);
+        }
+
+        if (image != MISSING) {
+            article.image = cursor.getString(image);
+        }
+
+        if (content != MISSING) {
+            article.setContent(cursor.getString(content));
+        }
+
+        if (codec != MISSING) {
+            article.setContentCodec(cursor.getInt(codec));
+        }
+
+        if (compressed != MISSING) {
+            article.setCompressedContent(getBlob(compressed));
+        }
+
+        if (blocks != MISSING) {
+            article.setEncodedBlocks(getBlob(blocks));
+        }
+
+        if (author != MISSING) {
+            article.author = cursor.getString(author);
+        }
+
+        if (source != MISSING) {
+            article.source = cursor.getString(source);
+        }
+
+        if (domain != MISSING) {
+            article.domain = cursor.getString(domain);
+        }
+
+        if (duration != MISSING) {
+            article.duration = cursor.getInt(duration);
+        }
+
+        if (insertedAt != MISSING) {
+            article.insertedAt = cursor.getLong(insertedAt);
+        }
+
+        if (isArticle != MISSING) {
+            article.isArticle = cursor.getInt(isArticle) == 1;
+        }
+
+        if (saved != MISSING) {
+            article.saved = cursor.getInt(saved) == 1;
+        }
+
+        if (sourceId != MISSING) {
+            article.sourceId = cursor.getLong(sourceId);
+        }
+
+        if (sourceName != MISSING) {
+            article.sourceModelName = cursor.getString(sourceName);
+        }
+
+        if (sourceImageUrl != MISSING) {
+            article.sourceModelImageUrl = cursor.getString(sourceImageUrl);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the articles that were loaded most recently in memory, so that opening one again doesn't
+ * need to read its content back out of the database. The cache is bounded by an estimate of the
+ * bytes that the articles take up, and hands out copies so that callers can't change what is
+ * cached.
+ *
+ * Only {@link DataSource} writes to the cache, and it removes articles whenever they change in
+ * the database. Every removal moves the cache to a new generation, so that an article which was
+ * read from the database before a write finished can't be cached after it.
+ */
+public final class ArticleMemoryCache {
+
+    /**
+     * The default size of the cache, which is enough for a few dozen typical articles.
+     */
+    public static final long DEFAULT_MAX_BYTES = 2L * 1024 * 1024;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, List<String>> keysById = new HashMap<>();
+    private long maxBytes;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long generation;
+
+    ArticleMemoryCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets a copy of the cached article for a canonical url.
+     */
+    synchronized Article get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.article.copy();
+    }
+
+    /**
+     * Gets the current generation. Read it before querying the database for an article, and pass
+     * it to {@link #put(String, Article, long)} along with the result.
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches a copy of an article under a canonical url.
+     */
+    synchronized void put(String key, Article article) {
+        put(key, article, generation);
+    }
+
+    /**
+     * Caches a copy of an article under a canonical url. An article can be cached under more
+     * than one url, if it was loaded through an alias. Articles larger than the whole cache are
+     * not kept, and neither are articles that were read before something was removed, since they
+     * may be out of date.
+     */
+    synchronized void put(String key, Article article, long readGeneration) {
+        if (readGeneration != generation) {
+            return;
+        }
+
+        remove(key);
+
+        long size = article.getEstimatedSize();
+        if (size > maxBytes) {
+            return;
+        }
+
+        entries.put(key, new Entry(article.copy(), size));
+        List<String> keys = keysById.get(article.id);
+        if (keys == null) {
+            keys = new ArrayList<>(1);
+            keysById.put(article.id, keys);
+        }
+        keys.add(key);
+        bytes += size;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * Removes the article with the given id, if it is cached.
+     */
+    synchronized void remove(long articleId) {
+        generation++;
+        List<String> keys = keysById.remove(articleId);
+        if (keys != null) {
+            for (String key : keys) {
+                bytes -= entries.remove(key).size;
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            removeKey(entry.article.id, key);
+            bytes -= entry.size;
+        }
+    }
+
+    private void removeKey(long articleId, String key) {
+        List<String> keys = keysById.get(articleId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysById.remove(articleId);
+            }
+        }
+    }
+
+    /**
+     * Removes every article from the cache.
+     */
+    synchronized void clear() {
+        generation++;
+        entries.clear();
+        keysById.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Changes the size of the cache, evicting the least recently used articles if it is now too
+     * large.
+     */
+    synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * Evicts the least recently used articles until the cache is no larger than the given size,
+     * without changing the maximum size.
+     */
+    synchronized void trimToSize(long size) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (bytes > size && iterator.hasNext()) {
+            Map.Entry<String, Entry> next = iterator.next();
+            Entry entry = next.getValue();
+            iterator.remove();
+            removeKey(entry.article.id, next.getKey());
+            bytes -= entry.size;
+            evictions++;
+        }
+    }
+
+    synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Gets a snapshot of the cache counters.
+     *
+     * @return the current stats.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, entries.size(), bytes, maxBytes);
+    }
+
+    private static final class Entry {
+
+        private final Article article;
+        private final long size;
+
+        private Entry(Article article, long size) {
+            this.article = article;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Snapshot of the counters for the cache.
+     */
+    public static final class Stats {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int articleCount;
+        private final long bytes;
+        private final long maxBytes;
+
+        private Stats(long hitCount, long missCount, long evictionCount, int articleCount,
+                      long bytes, long maxBytes) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.articleCount = articleCount;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * The number of lookups that were served from memory.
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * The number of lookups that had to go to the database.
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * The number of articles that were dropped to make room or to give memory back.
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * The number of articles that are cached.
+         */
+        public int getArticleCount() {
+            return articleCount;
+        }
+
+        /**
+         * The estimated number of bytes that the cached articles take up.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * The size that the cache is allowed to grow to.
+         */
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import java.util.List;
+
+/**
+ * A fixed size page from one of the article lists, along with the key for the page after it.
+ */
+public final class ArticlePage {
+
+    /**
+     * The articles on this page, newest first. These do not include the article content.
+     */
+    public final List<Article> articles;
+
+    /**
+     * The key to pass back in to load the next page, or null if this is the last page.
+     */
+    public final ArticlePageKey nextKey;
+
+    ArticlePage(List<Article> articles, ArticlePageKey nextKey) {
+        this.articles = articles;
+        this.nextKey = nextKey;
+    }
+
+    /**
+     * Checks whether there are more articles after this page.
+     */
+    public boolean hasMore() {
+        return nextKey != null;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+/**
+ * Marks a position in one of the article lists, which are ordered newest first. The next page
+ * starts with the article right after this one. The key can be turned into a string with
+ * {@link #encode()} so that it can be kept in saved instance state.
+ */
+public final class ArticlePageKey {
+
+    private static final char SEPARATOR = ':';
+
+    /**
+     * When the last article on the page was inserted.
+     */
+    public final long insertedAt;
+
+    /**
+     * The id of the last article on the page, to break ties between articles inserted at the
+     * same time.
+     */
+    public final long id;
+
+    public ArticlePageKey(long insertedAt, long id) {
+        this.insertedAt = insertedAt;
+        this.id = id;
+    }
+
+    /**
+     * Creates the key that comes right after an article.
+     *
+     * @param article the last article on a page.
+     * @return the key for the next page.
+     */
+    public static ArticlePageKey after(Article article) {
+        return new ArticlePageKey(article.insertedAt, article.id);
+    }
+
+    /**
+     * Writes the key as a continuation token.
+     *
+     * @return the token, which can be read again with {@link #decode(String)}.
+     */
+    public String encode() {
+        return Long.toString(insertedAt) + SEPARATOR + Long.toString(id);
+    }
+
+    /**
+     * Reads a continuation token that was written by {@link #encode()}.
+     *
+     * @param token the token.
+     * @return the key, or null if the token is null or isn't a valid key.
+     */
+    public static ArticlePageKey decode(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        int separator = token.indexOf(SEPARATOR);
+        if (separator <= 0) {
+            return null;
+        }
+
+        try {
+            return new ArticlePageKey(Long.parseLong(token.substring(0, separator)),
+                    Long.parseLong(token.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        } else if (!(other instanceof ArticlePageKey)) {
+            return false;
+        }
+
+        ArticlePageKey key = (ArticlePageKey) other;
+        return insertedAt == key.insertedAt && id == key.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (insertedAt ^ (insertedAt >>> 32)) + (int) (id ^ (id >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.paging.ItemKeyedDataSource;
+
+import java.util.Collections;
+
+/**
+ * Loads one of the article lists into the AndroidX Paging library a page at a time, so that a
+ * host list only ever reads the rows that it is about to show. Build a {@code PagedList} from
+ * one of the factories, for example with {@code LivePagedListBuilder}, and call
+ * {@link #invalidate()} on the current source when the cache changes.
+ *
+ * Lists always start from the newest article and placeholders are not supported.
+ */
+public final class ArticlePagedDataSource extends ItemKeyedDataSource<ArticlePageKey, Article> {
+
+    private enum ArticleList {
+        ALL, SAVED, SOURCE
+    }
+
+    private final DataSource source;
+    private final ArticleList list;
+    private final long remoteSourceId;
+
+    /**
+     * Creates a factory for every article in the database.
+     *
+     * @param context the current application context.
+     * @return the factory to build a paged list from.
+     */
+    public static androidx.paging.DataSource.Factory<ArticlePageKey, Article> allArticles(
+            Context context) {
+        return new Factory(context.getApplicationContext(), ArticleList.ALL, 0);
+    }
+
+    /**
+     * Creates a factory for the saved articles in the database.
+     *
+     * @param context the current application context.
+     * @return the factory to build a paged list from.
+     */
+    public static androidx.paging.DataSource.Factory<ArticlePageKey, Article> savedArticles(
+            Context context) {
+        return new Factory(context.getApplicationContext(), ArticleList.SAVED, 0);
+    }
+
+    /**
+     * Creates a factory for the articles from a single source.
+     *
+     * @param context the current application context.
+     * @param remoteSourceId the source to get articles for.
+     * @return the factory to build a paged list from.
+     */
+    public static androidx.paging.DataSource.Factory<ArticlePageKey, Article> articlesForSource(
+            Context context, long remoteSourceId) {
+        return new Factory(context.getApplicationContext(), ArticleList.SOURCE, remoteSourceId);
+    }
+
+    @VisibleForTesting
+    static ArticlePagedDataSource allArticles(DataSource source) {
+        return new ArticlePagedDataSource(source, ArticleList.ALL, 0);
+    }
+
+    @VisibleForTesting
+    static ArticlePagedDataSource articlesForSource(DataSource source, long remoteSourceId) {
+        return new ArticlePagedDataSource(source, ArticleList.SOURCE, remoteSourceId);
+    }
+
+    private ArticlePagedDataSource(DataSource source, ArticleList list, long remoteSourceId) {
+        this.source = source;
+        this.list = list;
+        this.remoteSourceId = remoteSourceId;
+    }
+
+    @Override
+    public void loadInitial(@NonNull LoadInitialParams<ArticlePageKey> params,
+                            @NonNull LoadInitialCallback<Article> callback) {
+        // the requested key is ignored, so a refreshed list starts back at the newest article
+        callback.onResult(load(null, params.requestedLoadSize).articles);
+    }
+
+    @Override
+    public void loadAfter(@NonNull LoadParams<ArticlePageKey> params,
+                          @NonNull LoadCallback<Article> callback) {
+        callback.onResult(load(params.key, params.requestedLoadSize).articles);
+    }
+
+    @Override
+    public void loadBefore(@NonNull LoadParams<ArticlePageKey> params,
+                           @NonNull LoadCallback<Article> callback) {
+        // lists always start at the newest article, so there is never anything before them
+        callback.onResult(Collections.<Article>emptyList());
+    }
+
+    @NonNull
+    @Override
+    public ArticlePageKey getKey(@NonNull Article item) {
+        return ArticlePageKey.after(item);
+    }
+
+    private ArticlePage load(ArticlePageKey after, int pageSize) {
+        DataSource.Lease lease = source.lease();
+        try {
+            switch (list) {
+                case SAVED:
+                    return source.getSavedArticlesPage(after, pageSize);
+                case SOURCE:
+                    return source.getArticlesForSourcePage(remoteSourceId, after, pageSize);
+                default:
+                    return source.getArticlesPage(after, pageSize);
+            }
+        } finally {
+            lease.release();
+        }
+    }
+
+    private static final class Factory
+            extends androidx.paging.DataSource.Factory<ArticlePageKey, Article> {
+
+        private final Context context;
+        private final ArticleList list;
+        private final long remoteSourceId;
+
+        private Factory(Context context, ArticleList list, long remoteSourceId) {
+            this.context = context;
+            this.list = list;
+            this.remoteSourceId = remoteSourceId;
+        }
+
+        @Override
+        public androidx.paging.DataSource<ArticlePageKey, Article> create() {
+            return new ArticlePagedDataSource(DataSource.get(context), list, remoteSourceId);
+        }
+    }
+}
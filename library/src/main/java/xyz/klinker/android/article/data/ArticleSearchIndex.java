@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import androidx.annotation.VisibleForTesting;
+
+import org.jsoup.Jsoup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+import xyz.klinker.android.article.data.model.ArticleModel;
+import xyz.klinker.android.article.data.model.ArticleSearchModel;
+import xyz.klinker.android.article.data.model.ContentModel;
+
+/**
+ * Helpers for keeping the {@link ArticleSearchModel} index up to date and ranking the results
+ * that come out of it.
+ */
+final class ArticleSearchIndex {
+
+    static final String INSERT = "insert into " + ArticleSearchModel.TABLE + " (" +
+            ArticleSearchModel.COLUMN_DOCID + ", " +
+            ArticleSearchModel.COLUMN_TITLE + ", " +
+            ArticleSearchModel.COLUMN_DESCRIPTION + ", " +
+            ArticleSearchModel.COLUMN_AUTHOR + ", " +
+            ArticleSearchModel.COLUMN_CONTENT +
+            ") values (?, ?, ?, ?, ?)";
+
+    /**
+     * The format passed to matchinfo() when searching: phrase count, column count, row count and
+     * then the hit counts for each phrase and column.
+     */
+    static final String MATCHINFO_FORMAT = "pcnx";
+
+    /**
+     * How much a hit in each of the indexed columns is worth, in the order they are declared.
+     * A match in the title says much more about an article than one in the body.
+     */
+    private static final double[] COLUMN_WEIGHTS = { 4.0, 2.0, 1.0, 1.0 };
+
+    private ArticleSearchIndex() {
+
+    }
+
+    /**
+     * Strips the html from article content so that only the text is indexed.
+     *
+     * @param html the article content.
+     * @return the plain text, or null if there was no content.
+     */
+    static String extractText(String html) {
+        return html == null ? null : Jsoup.parse(html).text();
+    }
+
+    /**
+     * Binds an article to the {@link #INSERT} statement.
+     */
+    static void bind(SQLiteStatement statement, long id, Article article) {
+        statement.clearBindings();
+        statement.bindLong(1, id);
+        bindString(statement, 2, article.title);
+        bindString(statement, 3, article.description);
+        bindString(statement, 4, article.author);
+        bindString(statement, 5, extractText(article.getContent()));
+    }
+
+    /**
+     * Clears the index and fills it again from every article in the database. This parses the
+     * content of every article, so it should only be used when upgrading the database.
+     *
+     * @param db the database to index.
+     */
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("delete from " + ArticleSearchModel.TABLE);
+
+        Cursor cursor = db.rawQuery("select " +
+                "a." + ArticleModel.COLUMN_ID + " as " + ArticleModel.COLUMN_ID + ", " +
+                "a." + ArticleModel.COLUMN_TITLE + " as " + ArticleModel.COLUMN_TITLE + ", " +
+                "a." + ArticleModel.COLUMN_DESCRIPTION + " as " +
+                ArticleModel.COLUMN_DESCRIPTION + ", " +
+                "a." + ArticleModel.COLUMN_AUTHOR + " as " + ArticleModel.COLUMN_AUTHOR + ", " +
+                "c." + ContentModel.COLUMN_CONTENT + " as " + ContentModel.COLUMN_CONTENT + ", " +
+                "c." + ContentModel.COLUMN_CODEC + " as " + ContentModel.COLUMN_CODEC + ", " +
+                "c." + ContentModel.COLUMN_COMPRESSED + " as " + ContentModel.COLUMN_COMPRESSED +
+                " from " + ArticleModel.TABLE + " a left outer join " + ContentModel.TABLE + " c " +
+                "on a." + ArticleModel.COLUMN_ID + " = c." + ContentModel.COLUMN_ARTICLE_ID, null);
+
+        if (cursor == null) {
+            return;
+        }
+
+        SQLiteStatement statement = db.compileStatement(INSERT);
+        try {
+            while (cursor.moveToNext()) {
+                Article article = new Article(cursor);
+                bind(statement, article.id, article);
+                statement.executeInsert();
+            }
+        } finally {
+            statement.close();
+            cursor.close();
+        }
+    }
+
+    /**
+     * Turns what the user typed into an FTS query. Each word has to appear somewhere in the
+     * article, and the last one is matched as a prefix so that results show up while typing.
+     * Anything other than letters and numbers is dropped, and the words are lower cased so they
+     * can't be read as operators, so that user input can never be a syntax error.
+     *
+     * @param query the text to search for.
+     * @return the match expression, or null if there was nothing to search for.
+     */
+    @VisibleForTesting
+    static String buildMatchQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+
+        String[] words = query.toLowerCase(Locale.US).split("[^\\p{L}\\p{N}]+");
+        StringBuilder match = new StringBuilder();
+        for (String word : words) {
+            if (word.length() == 0) {
+                continue;
+            }
+
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+
+            match.append(word);
+        }
+
+        if (match.length() == 0) {
+            return null;
+        }
+
+        return match.append('*').toString();
+    }
+
+    /**
+     * Scores a row from its matchinfo() blob in the {@link #MATCHINFO_FORMAT} format. For each
+     * word, the hits in each column are dampened so that repeating a word doesn't count for too
+     * much, weighted by the column and scaled by how rare the word is across all articles.
+     *
+     * @param matchinfo the matchinfo() result for the row.
+     * @return the score, where higher is a better match.
+     */
+    @VisibleForTesting
+    static double score(byte[] matchinfo) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+        int rows = buffer.getInt(8);
+
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int index = 12 + (phrase * columns + column) * 12;
+                int hits = buffer.getInt(index);
+                int rowsWithHits = buffer.getInt(index + 8);
+
+                if (hits == 0) {
+                    continue;
+                }
+
+                double weight = column < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[column] : 1.0;
+                double frequency = hits / (hits + 1.2);
+                double rarity = Math.log(1.0 + (double) rows / Math.max(1, rowsWithHits));
+                score += weight * frequency * rarity;
+            }
+        }
+
+        return score;
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
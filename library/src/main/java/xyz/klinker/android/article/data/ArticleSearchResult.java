@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+/**
+ * A single article that matched a search, along with a snippet of the matching text.
+ */
+public final class ArticleSearchResult {
+
+    /**
+     * The article that matched. This does not include the article's content.
+     */
+    public final Article article;
+
+    /**
+     * A short piece of the matching text with the matched words wrapped in bold tags, suitable
+     * for {@code Html.fromHtml}.
+     */
+    public final String snippet;
+
+    /**
+     * How well the article matched the search. Only meaningful when compared to the other
+     * results of the same search.
+     */
+    public final double score;
+
+    ArticleSearchResult(Article article, String snippet, double score) {
+        this.article = article;
+        this.snippet = snippet;
+        this.score = score;
+    }
+}
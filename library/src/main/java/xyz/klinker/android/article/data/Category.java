@@ -18,7 +18,6 @@ package xyz.klinker.android.article.data;
 
 import android.database.Cursor;
 
-import xyz.klinker.android.article.data.model.CategoryModel;
 import xyz.klinker.android.article.data.model.DatabaseModel;
 
 /**
@@ -47,14 +46,6 @@ public class Category implements DatabaseModel {
 
     @Override
     public void fillFromCursor(Cursor cursor) {
-        for (int i = 0; i < cursor.getColumnCount(); i++) {
-            String column = cursor.getColumnName(i);
-
-            if (column.equals(CategoryModel.COLUMN_NAME)) {
-                this.name = cursor.getString(i);
-            } else if (column.equals("count")) {
-                this.numberArticles = cursor.getInt(i);
-            }
-        }
+        new CategoryCursorMapper(cursor).fill(this);
     }
 }
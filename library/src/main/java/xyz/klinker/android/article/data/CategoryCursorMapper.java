@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.database.Cursor;
+
+import xyz.klinker.android.article.data.model.CategoryModel;
+
+/**
+ * Maps cursors of category names and their article counts.
+ */
+public final class CategoryCursorMapper extends CursorMapper<Category> {
+
+    private int name = MISSING;
+    private int count = MISSING;
+
+    public CategoryCursorMapper(Cursor cursor) {
+        super(cursor);
+
+        for (int i = 0; i < cursor.getColumnCount(); i++) {
+            String column = cursor.getColumnName(i);
+            if (column.equals(CategoryModel.COLUMN_NAME)) {
+                name = i;
+            } else if (column.equals("count")) {
+                count = i;
+            }
+        }
+    }
+
+    @Override
+    protected Category create() {
+        return new Category();
+    }
+
+    @Override
+    public void fill(Category category) {
+        if (name != MISSING) {
+            category.name = cursor.getString(name);
+        }
+
+        if (count != MISSING) {
+            category.numberArticles = cursor.getInt(count);
+        }
+    }
+}
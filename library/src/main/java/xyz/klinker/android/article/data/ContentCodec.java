@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes article content for storage in the content table. Each row records the codec that was
+ * used to write it, so compressed and uncompressed rows can live side by side.
+ */
+public final class ContentCodec {
+
+    /**
+     * The content is stored as plain text in the content column.
+     */
+    public static final int CODEC_NONE = 0;
+
+    /**
+     * The content is stored as UTF-8 that was deflated into the compressed column.
+     */
+    public static final int CODEC_DEFLATE = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private ContentCodec() {
+
+    }
+
+    /**
+     * Compresses article content with deflate.
+     *
+     * @param content the content to compress.
+     * @return the compressed bytes.
+     */
+    public static byte[] compress(String content) {
+        byte[] input = content.getBytes(UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 3 + 16);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decodes content that was stored with the given codec.
+     *
+     * @param codec the codec the content was stored with.
+     * @param data the stored bytes.
+     * @return the article content.
+     * @throws IllegalArgumentException if the codec is unknown or the data is corrupt.
+     */
+    public static String decompress(int codec, byte[] data) {
+        if (codec != CODEC_DEFLATE) {
+            throw new IllegalArgumentException("Unknown content codec: " + codec);
+        }
+
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(data);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated content");
+                }
+
+                out.write(buffer, 0, length);
+            }
+
+            return new String(out.toByteArray(), UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Fills models from the rows of a cursor. The position of every column is looked up once, when
+ * the mapper is created, so each row is filled by index instead of comparing column names.
+ *
+ * @param <T> the model that rows are mapped to.
+ */
+public abstract class CursorMapper<T> {
+
+    /**
+     * Index used for columns that are not in the cursor.
+     */
+    protected static final int MISSING = -1;
+
+    protected final Cursor cursor;
+
+    protected CursorMapper(Cursor cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Creates a blank model to fill.
+     */
+    protected abstract T create();
+
+    /**
+     * Fills the model from the row that the cursor is currently on. Only the fields that have a
+     * column in the cursor are written.
+     *
+     * @param item the model to fill.
+     */
+    public abstract void fill(T item);
+
+    /**
+     * Maps the row that the cursor is currently on to a new model.
+     *
+     * @return the model.
+     */
+    public T map() {
+        T item = create();
+        fill(item);
+        return item;
+    }
+
+    /**
+     * Maps every row after the cursor's current position to a new model. This does not close
+     * the cursor.
+     *
+     * @return the models, in the order of the cursor.
+     */
+    public List<T> mapAll() {
+        List<T> items = new ArrayList<>(Math.max(0, cursor.getCount() - cursor.getPosition() - 1));
+        while (cursor.moveToNext()) {
+            items.add(map());
+        }
+
+        return items;
+    }
+
+    /**
+     * Walks every row after the cursor's current position, filling the same model for each one.
+     * Nothing is allocated per row, so this is the fastest way to read a large cursor, but the
+     * model is only valid until the next row is read and must not be kept.
+     *
+     * @return an iterable that can be walked once.
+     */
+    public Iterable<T> flyweight() {
+        final T item = create();
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        return cursor.getPosition() < cursor.getCount() - 1;
+                    }
+
+                    @Override
+                    public T next() {
+                        if (!cursor.moveToNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        fill(item);
+                        return item;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    protected byte[] getBlob(int index) {
+        return cursor.isNull(index) ? null : cursor.getBlob(index);
+    }
+}
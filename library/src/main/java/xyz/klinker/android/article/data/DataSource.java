@@ -16,20 +16,39 @@
 
 package xyz.klinker.android.article.data;
 
+import android.content.ComponentCallbacks2;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
 import androidx.annotation.VisibleForTesting;
 
+import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import xyz.klinker.android.article.ArticleUtils;
+import xyz.klinker.android.article.UrlCanonicalizer;
+import xyz.klinker.android.article.data.model.ArticleAliasModel;
 import xyz.klinker.android.article.data.model.ArticleModel;
+import xyz.klinker.android.article.data.model.ArticleSearchModel;
 import xyz.klinker.android.article.data.model.CategoryModel;
 import xyz.klinker.android.article.data.model.ContentModel;
+import xyz.klinker.android.article.data.model.NonArticleModel;
+import xyz.klinker.android.article.data.model.SourceDayCountModel;
 import xyz.klinker.android.article.data.model.SourceModel;
 
 /**
@@ -37,19 +56,115 @@ import xyz.klinker.android.article.data.model.SourceModel;
  */
 public class DataSource {
 
+    private static final String INSERT_ARTICLE = "insert or ignore into " + ArticleModel.TABLE +
+            " (" +
+            ArticleModel.COLUMN_ALIAS + ", " +
+            ArticleModel.COLUMN_URL + ", " +
+            ArticleModel.COLUMN_TITLE + ", " +
+            ArticleModel.COLUMN_DESCRIPTION + ", " +
+            ArticleModel.COLUMN_IMAGE + ", " +
+            ArticleModel.COLUMN_AUTHOR + ", " +
+            ArticleModel.COLUMN_SOURCE + ", " +
+            ArticleModel.COLUMN_DOMAIN + ", " +
+            ArticleModel.COLUMN_DURATION + ", " +
+            ArticleModel.COLUMN_IS_ARTICLE + ", " +
+            ArticleModel.COLUMN_SAVED + ", " +
+            ArticleModel.COLUMN_SOURCE_ID + ", " +
+            ArticleModel.COLUMN_INSERTED_AT + ", " +
+            ArticleModel.COLUMN_LAST_READ_AT + ", " +
+            ArticleModel.COLUMN_URL_HASH +
+            ") values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CONTENT = "insert into " + ContentModel.TABLE + " (" +
+            ContentModel.COLUMN_ARTICLE_ID + ", " +
+            ContentModel.COLUMN_CONTENT + ", " +
+            ContentModel.COLUMN_CODEC + ", " +
+            ContentModel.COLUMN_COMPRESSED +
+            ") values (?, ?, ?, ?)";
+
+    private static volatile boolean compressContent = false;
+
+    /**
+     * Estimates the number of bytes an article takes up. Only valid with
+     * {@link #ARTICLE_SIZE_FROM}.
+     */
+    private static final String ARTICLE_SIZE =
+            "ifnull(length(cast(c." + ContentModel.COLUMN_CONTENT + " as blob)), 0) + " +
+            "ifnull(length(c." + ContentModel.COLUMN_COMPRESSED + "), 0) + " +
+            "ifnull(length(c." + ContentModel.COLUMN_BLOCKS + "), 0) + " +
+            "ifnull(length(cast(a." + ArticleModel.COLUMN_TITLE + " as blob)), 0) + " +
+            "ifnull(length(cast(a." + ArticleModel.COLUMN_DESCRIPTION + " as blob)), 0)";
+    private static final String ARTICLE_SIZE_FROM = "from " + ArticleModel.TABLE + " a " +
+            "left outer join " + ContentModel.TABLE + " c on " +
+            "a." + ArticleModel.COLUMN_ID + " = c." + ContentModel.COLUMN_ARTICLE_ID;
+
+    private static final String CATEGORY_COUNT_COLUMNS =
+            "c." + CategoryModel.COLUMN_ID + ", c." + CategoryModel.COLUMN_NAME;
+    private static final String CATEGORY_COUNT_FROM = "from " + ArticleModel.TABLE + " a join " +
+            SourceModel.TABLE + " s on a." + ArticleModel.COLUMN_SOURCE_ID + " = s." +
+            SourceModel.COLUMN_REMOTE_ID + " join " + CategoryModel.TABLE + " c on s." +
+            SourceModel.COLUMN_CATEGORY_ID + " = c." + CategoryModel.COLUMN_ID;
+
+    /**
+     * How long the database stays open after the last user closes it, by default.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30 * 1000;
+
+    /**
+     * How long a url or domain is remembered as not being an article, by default.
+     */
+    public static final long DEFAULT_NON_ARTICLE_TTL_MILLIS = 3 * 24 * 60 * 60 * 1000L;
+
+    /**
+     * The number of urls on a domain that need to not be articles before the whole domain is.
+     */
+    public static final int NON_ARTICLE_DOMAIN_THRESHOLD = 3;
+
+    private static volatile DataSource instance;
+
+    private static final int DELETE_BATCH_SIZE = 500;
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
     protected Context context;
     private SQLiteDatabase database;
     private DatabaseSQLiteHelper dbHelper;
     private AtomicInteger openCounter = new AtomicInteger();
+    private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    private volatile long nonArticleTtlMillis = DEFAULT_NON_ARTICLE_TTL_MILLIS;
+    private Handler idleHandler;
+    private final ArticleMemoryCache memoryCache =
+            new ArticleMemoryCache(ArticleMemoryCache.DEFAULT_MAX_BYTES);
+    private final Set<Long> invalidatedInTransaction = new HashSet<>();
+    private final Runnable idleClose = new Runnable() {
+        @Override
+        public void run() {
+            closeIfIdle();
+        }
+    };
+
+    private final Object statementLock = new Object();
+    private SQLiteDatabase statementDatabase;
+    private SQLiteStatement insertArticleStatement;
+    private SQLiteStatement insertContentStatement;
+    private SQLiteStatement insertSearchStatement;
 
     /**
-     * Gets a new instance of the DataSource.
+     * Gets the DataSource that is shared by the whole process. Opening it is cheap once the
+     * database is open, since the connection is only closed after it has been idle for a while.
      *
      * @param context the current application instance.
      * @return the data source.
      */
     public static DataSource get(Context context) {
-        return new DataSource(context);
+        if (instance == null) {
+            synchronized (DataSource.class) {
+                if (instance == null) {
+                    instance = new DataSource(context.getApplicationContext());
+                }
+            }
+        }
+
+        return instance;
     }
 
     /**
@@ -60,6 +175,7 @@ public class DataSource {
     private DataSource(Context context) {
         this.context = context;
         this.dbHelper = new DatabaseSQLiteHelper(context);
+        context.registerComponentCallbacks(new MemoryCallbacks());
     }
 
     /**
@@ -83,14 +199,90 @@ public class DataSource {
     }
 
     /**
-     * Opens the database.
+     * Sets whether article content should be compressed when it is written to the database.
+     * Compressed content takes a fraction of the space on disk and is only decompressed when it
+     * is displayed. Content that was stored before this was enabled can be compressed with
+     * {@link #compressExistingContent(int)}.
+     *
+     * @param enabled true to compress content that is written from now on.
+     */
+    public static void setContentCompressionEnabled(boolean enabled) {
+        compressContent = enabled;
+    }
+
+    /**
+     * Checks whether content will be compressed when it is written to the database.
+     */
+    public static boolean isContentCompressionEnabled() {
+        return compressContent;
+    }
+
+    /**
+     * Sets how long the database stays open once nothing is using it. Reopening the database
+     * means opening the file and reading the schema again, so this should cover the gap between
+     * article loads. Use 0 to close the database as soon as it is no longer used.
+     *
+     * @param idleTimeoutMillis the time to wait before closing.
+     */
+    public void setIdleTimeout(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Sets how many bytes of recently loaded articles are kept in memory, so that opening them
+     * again doesn't need to hit the database. Use 0 to turn the memory cache off.
+     *
+     * @param maxBytes the estimated number of bytes that the cached articles can take up.
+     */
+    public void setMemoryCacheSize(long maxBytes) {
+        memoryCache.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Gets a snapshot of the hit and miss counters for the memory cache that sits in front of
+     * {@link #getArticle(String)}.
+     *
+     * @return the current stats.
+     */
+    public ArticleMemoryCache.Stats getMemoryCacheStats() {
+        return memoryCache.getStats();
+    }
+
+    /**
+     * Sets how long a url or domain that wasn't an article is remembered for. Until then, it
+     * will be opened in the browser without asking the server again. Use 0 to always ask.
+     *
+     * @param ttlMillis the time to remember non articles for.
+     */
+    public void setNonArticleTtl(long ttlMillis) {
+        this.nonArticleTtlMillis = ttlMillis;
+    }
+
+    /**
+     * Opens the database. Every call needs to be balanced with a call to {@link #close()}.
      */
     public synchronized void open() {
-        if (openCounter.incrementAndGet() == 1) {
+        if (openCounter.incrementAndGet() == 1 && dbHelper != null) {
+            if (idleHandler != null) {
+                idleHandler.removeCallbacks(idleClose);
+            }
+
+            // the helper hands back the same connection if it hasn't been closed yet
             database = dbHelper.getWritableDatabase();
         }
     }
 
+    /**
+     * Opens the database and returns a lease that closes it again. The lease can only be
+     * released once, so it is safe to release from a finally block that might run twice.
+     *
+     * @return the lease, which needs to be released when done with the database.
+     */
+    public Lease lease() {
+        open();
+        return new Lease(this);
+    }
+
     /**
      * Checks if the database is open.
      */
@@ -99,14 +291,65 @@ public class DataSource {
     }
 
     /**
-     * Closes the database.
+     * Closes the database. The connection is kept for the idle timeout, in case something else
+     * opens it again.
      */
     public synchronized void close() {
-        if (openCounter.decrementAndGet() == 0) {
+        if (openCounter.decrementAndGet() == 0 && dbHelper != null) {
+            if (idleTimeoutMillis <= 0) {
+                closeIfIdle();
+            } else {
+                if (idleHandler == null) {
+                    idleHandler = new Handler(Looper.getMainLooper());
+                }
+
+                idleHandler.postDelayed(idleClose, idleTimeoutMillis);
+            }
+        }
+    }
+
+    private synchronized void closeIfIdle() {
+        if (openCounter.get() == 0 && dbHelper != null) {
+            releaseStatements();
             dbHelper.close();
         }
     }
 
+    /**
+     * Keeps the database open until it is released. Each lease is used by a single caller, but
+     * any number of leases can be held at once, from any thread.
+     */
+    public static final class Lease implements Closeable {
+
+        private final DataSource source;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(DataSource source) {
+            this.source = source;
+        }
+
+        /**
+         * Gets the data source that this lease keeps open.
+         */
+        public DataSource get() {
+            return source;
+        }
+
+        /**
+         * Releases the lease. Only the first call closes the database.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                source.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+
     /**
      * Get the currently open database
      *
@@ -125,13 +368,19 @@ public class DataSource {
         database.delete(ArticleModel.TABLE, null, null);
         database.delete(CategoryModel.TABLE, null, null);
         database.delete(SourceModel.TABLE, null, null);
+        database.delete(ArticleSearchModel.TABLE, null, null);
+        database.delete(SourceDayCountModel.TABLE, null, null);
+        database.delete(ArticleAliasModel.TABLE, null, null);
+        database.delete(NonArticleModel.TABLE, null, null);
+        memoryCache.clear();
     }
 
     /**
-     * Begins a bulk transaction on the database.
+     * Begins a bulk transaction on the database. The transaction only takes the write lock, so
+     * articles can still be read while it is open.
      */
     public void beginTransaction() {
-        database.beginTransaction();
+        database.beginTransactionNonExclusive();
     }
 
     /**
@@ -166,47 +415,208 @@ public class DataSource {
      * Ends a bulk transaction on the database.
      */
     public void endTransaction() {
+        finishTransaction();
+    }
+
+    /**
+     * Ends a transaction. Once the outermost one is over, the articles that were changed inside
+     * of it are removed from the memory cache again, in case another thread cached the committed
+     * copy while the transaction was still open.
+     */
+    private void finishTransaction() {
         database.endTransaction();
+
+        synchronized (invalidatedInTransaction) {
+            if (invalidatedInTransaction.isEmpty() || database.inTransaction()) {
+                return;
+            }
+
+            for (Long id : invalidatedInTransaction) {
+                memoryCache.remove(id);
+            }
+            invalidatedInTransaction.clear();
+        }
+    }
+
+    /**
+     * Removes an article from the memory cache after it was written to. This needs to come after
+     * the write, otherwise a concurrent read could cache the old row again.
+     */
+    private void invalidateArticle(long articleId) {
+        memoryCache.remove(articleId);
+        if (database.inTransaction()) {
+            synchronized (invalidatedInTransaction) {
+                invalidatedInTransaction.add(articleId);
+            }
+        }
     }
 
     /**
-     * Inserts a single article into the database for caching purposes.
+     * Inserts a single article into the database for caching purposes. The article and its
+     * content are written in a single transaction, so one will never be stored without the other.
      *
-     * @return the id of the inserted item.
+     * @return the id of the inserted item, or -1 if an article with the same url already exists.
      */
     public long insertArticle(Article article) {
-        // remove any extra query parameters from the url
-        article.url = ArticleUtils.removeUrlParameters(article.url);
-
-        ContentValues values = new ContentValues(11);
-        values.put(ArticleModel.COLUMN_ALIAS, article.alias);
-        values.put(ArticleModel.COLUMN_URL, article.url);
-        values.put(ArticleModel.COLUMN_TITLE, article.title);
-        values.put(ArticleModel.COLUMN_DESCRIPTION, article.description);
-        values.put(ArticleModel.COLUMN_IMAGE, article.image);
-        values.put(ArticleModel.COLUMN_AUTHOR, article.author);
-        values.put(ArticleModel.COLUMN_SOURCE, article.source);
-        values.put(ArticleModel.COLUMN_DOMAIN, article.domain);
-        values.put(ArticleModel.COLUMN_DURATION, article.duration);
-        values.put(ArticleModel.COLUMN_IS_ARTICLE, article.isArticle);
-        values.put(ArticleModel.COLUMN_SAVED, article.saved);
-        values.put(ArticleModel.COLUMN_SOURCE_ID, article.sourceId);
-        if (article.insertedAt == 0) {
-            values.put(ArticleModel.COLUMN_INSERTED_AT, System.currentTimeMillis());
+        database.beginTransactionNonExclusive();
+        try {
+            long id;
+            synchronized (statementLock) {
+                id = insertArticleLocked(article);
+            }
+
+            database.setTransactionSuccessful();
+            return id;
+        } finally {
+            finishTransaction();
+        }
+    }
+
+    /**
+     * Inserts a group of articles into the database in a single transaction. This is much faster
+     * than inserting them one at a time, since the journal only needs to be synced once.
+     *
+     * The id of each article that is inserted will be set on the article. Articles that were
+     * already in the database are skipped.
+     *
+     * @param articles the articles to insert.
+     * @return the number of articles that were inserted.
+     */
+    public int insertArticles(Collection<Article> articles) {
+        if (articles.isEmpty()) {
+            return 0;
+        }
+
+        int inserted = 0;
+        database.beginTransactionNonExclusive();
+        try {
+            synchronized (statementLock) {
+                for (Article article : articles) {
+                    if (insertArticleLocked(article) != -1) {
+                        inserted++;
+                    }
+                }
+            }
+
+            database.setTransactionSuccessful();
+        } finally {
+            finishTransaction();
+        }
+
+        return inserted;
+    }
+
+    /**
+     * Writes the article and content rows using the precompiled statements. Must be called with
+     * the statement lock held and inside of a transaction.
+     */
+    private long insertArticleLocked(Article article) {
+        compileStatements();
+
+        article.url = UrlCanonicalizer.canonicalize(article.url);
+
+        SQLiteStatement statement = insertArticleStatement;
+        statement.clearBindings();
+        bindString(statement, 1, article.alias);
+        bindString(statement, 2, article.url);
+        bindString(statement, 3, article.title);
+        bindString(statement, 4, article.description);
+        bindString(statement, 5, article.image);
+        bindString(statement, 6, article.author);
+        bindString(statement, 7, article.source);
+        bindString(statement, 8, article.domain);
+        statement.bindLong(9, article.duration);
+        statement.bindLong(10, article.isArticle ? 1 : 0);
+        statement.bindLong(11, article.saved ? 1 : 0);
+        if (article.sourceId == null) {
+            statement.bindNull(12);
         } else {
-            values.put(ArticleModel.COLUMN_INSERTED_AT, article.insertedAt);
+            statement.bindLong(12, article.sourceId);
+        }
+        long insertedAt = article.insertedAt == 0 ?
+                System.currentTimeMillis() : article.insertedAt;
+        statement.bindLong(13, insertedAt);
+        statement.bindLong(14, insertedAt);
+        if (article.url == null) {
+            statement.bindNull(15);
+        } else {
+            statement.bindLong(15, UrlHash.hash(article.url));
+        }
+
+        long id = statement.executeInsert();
+        if (id == -1) {
+            // the article was already in the database, so its content should be too
+            return id;
         }
 
-        long id = database.insert(ArticleModel.TABLE, null, values);
+        statement = insertContentStatement;
+        statement.clearBindings();
+        statement.bindLong(1, id);
+        if (compressContent && article.hasContent()) {
+            statement.bindNull(2);
+            statement.bindLong(3, ContentCodec.CODEC_DEFLATE);
+            statement.bindBlob(4, ContentCodec.compress(article.getContent()));
+        } else {
+            bindString(statement, 2, article.getContent());
+            statement.bindLong(3, ContentCodec.CODEC_NONE);
+            statement.bindNull(4);
+        }
+        statement.executeInsert();
 
-        values = new ContentValues(2);
-        values.put(ContentModel.COLUMN_ARTICLE_ID, id);
-        values.put(ContentModel.COLUMN_CONTENT, article.content);
+        statement = insertSearchStatement;
+        ArticleSearchIndex.bind(statement, id, article);
+        statement.executeInsert();
 
-        database.insert(ContentModel.TABLE, null, values);
+        article.id = id;
         return id;
     }
 
+    /**
+     * Compiles the insert statements against the currently open database, if they haven't been
+     * already. The helper hands back a new database after it is closed and reopened, so the
+     * statements need to be compiled again when that happens.
+     */
+    private void compileStatements() {
+        if (statementDatabase == database && insertArticleStatement != null) {
+            return;
+        }
+
+        releaseStatements();
+        insertArticleStatement = database.compileStatement(INSERT_ARTICLE);
+        insertContentStatement = database.compileStatement(INSERT_CONTENT);
+        insertSearchStatement = database.compileStatement(ArticleSearchIndex.INSERT);
+        statementDatabase = database;
+    }
+
+    private void releaseStatements() {
+        synchronized (statementLock) {
+            if (insertArticleStatement != null) {
+                insertArticleStatement.close();
+                insertArticleStatement = null;
+            }
+
+            if (insertContentStatement != null) {
+                insertContentStatement.close();
+                insertContentStatement = null;
+            }
+
+            if (insertSearchStatement != null) {
+                insertSearchStatement.close();
+                insertSearchStatement = null;
+            }
+
+            statementDatabase = null;
+        }
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
     /**
      * Updates an article's saved state.
      */
@@ -214,8 +624,10 @@ public class DataSource {
         ContentValues values = new ContentValues(1);
         values.put(ArticleModel.COLUMN_SAVED, article.saved);
 
-        return database.update(
+        int updated = database.update(
                 ArticleModel.TABLE, values, "_id=?", new String[] {Long.toString(article.id)});
+        invalidateArticle(article.id);
+        return updated;
     }
 
     /**
@@ -225,6 +637,20 @@ public class DataSource {
         ContentValues values = new ContentValues(1);
         values.put(ArticleModel.COLUMN_INSERTED_AT, article.insertedAt);
 
+        int updated = database.update(
+                ArticleModel.TABLE, values, "_id=?", new String[] {Long.toString(article.id)});
+        invalidateArticle(article.id);
+        return updated;
+    }
+
+    /**
+     * Records that an article was just read, so that it is among the last to be evicted from the
+     * cache.
+     */
+    public int markArticleRead(Article article) {
+        ContentValues values = new ContentValues(1);
+        values.put(ArticleModel.COLUMN_LAST_READ_AT, System.currentTimeMillis());
+
         return database.update(
                 ArticleModel.TABLE, values, "_id=?", new String[] {Long.toString(article.id)});
     }
@@ -233,24 +659,159 @@ public class DataSource {
      * Updates an article's content.
      */
     public void updateArticleContent(Article article) {
-        ContentValues values = new ContentValues(1);
-        values.put(ContentModel.COLUMN_CONTENT, article.content);
+        ContentValues values = new ContentValues(4);
+        putContent(values, article.getContent());
+
+        // the blocks were parsed from the old content
+        values.putNull(ContentModel.COLUMN_BLOCKS);
 
         database.update(
                 ContentModel.TABLE,
                 values,
                 "article_id=?",
                 new String[] {Long.toString(article.id)});
+
+        // keep the search index in step with the new content
+        values = new ContentValues(1);
+        values.put(ArticleSearchModel.COLUMN_CONTENT,
+                ArticleSearchIndex.extractText(article.getContent()));
+        int updated = database.update(
+                ArticleSearchModel.TABLE,
+                values,
+                ArticleSearchModel.COLUMN_DOCID + "=?",
+                new String[] {Long.toString(article.id)});
+
+        if (updated == 0) {
+            values.put(ArticleSearchModel.COLUMN_DOCID, article.id);
+            values.put(ArticleSearchModel.COLUMN_TITLE, article.title);
+            values.put(ArticleSearchModel.COLUMN_DESCRIPTION, article.description);
+            values.put(ArticleSearchModel.COLUMN_AUTHOR, article.author);
+            database.insert(ArticleSearchModel.TABLE, null, values);
+        }
+
+        invalidateArticle(article.id);
+    }
+
+    /**
+     * Stores the blocks that were parsed from an article's content, so that the content doesn't
+     * need to be parsed again the next time the article is opened. They will be cleared the next
+     * time the content is updated.
+     *
+     * @param articleId the id of the article the blocks were parsed from.
+     * @param blocks the parsed blocks. Store an empty list if nothing in the content was worth
+     *               displaying.
+     */
+    public void updateArticleBlocks(long articleId, List<ArticleBlock> blocks) {
+        ContentValues values = new ContentValues(1);
+        values.put(ContentModel.COLUMN_BLOCKS, ArticleBlock.encode(blocks));
+
+        database.update(
+                ContentModel.TABLE,
+                values,
+                ContentModel.COLUMN_ARTICLE_ID + "=?",
+                new String[] {Long.toString(articleId)});
+        invalidateArticle(articleId);
     }
 
     /**
-     * Gets a single article from the database. If there are multiple with the same URL, only the
-     * first is returned.
+     * Compresses a batch of content rows that were stored as plain text. This is meant to be
+     * called repeatedly from a background thread until it returns 0, so that the database is
+     * never locked for long.
+     *
+     * @param batchSize the maximum number of rows to compress.
+     * @return the number of rows that were compressed.
+     */
+    public int compressExistingContent(int batchSize) {
+        Cursor cursor = database.query(
+                ContentModel.TABLE,
+                new String[] { ContentModel.COLUMN_ID, ContentModel.COLUMN_CONTENT },
+                ContentModel.COLUMN_CODEC + "=" + ContentCodec.CODEC_NONE + " and " +
+                        ContentModel.COLUMN_CONTENT + " not null",
+                null,
+                null,
+                null,
+                null,
+                Integer.toString(batchSize));
+
+        if (cursor == null) {
+            return 0;
+        }
+
+        int compressed = 0;
+        SQLiteStatement update = database.compileStatement(
+                "update " + ContentModel.TABLE + " set " +
+                        ContentModel.COLUMN_CONTENT + "=null, " +
+                        ContentModel.COLUMN_CODEC + "=?, " +
+                        ContentModel.COLUMN_COMPRESSED + "=? where " +
+                        ContentModel.COLUMN_ID + "=?");
+
+        database.beginTransactionNonExclusive();
+        try {
+            while (cursor.moveToNext()) {
+                update.bindLong(1, ContentCodec.CODEC_DEFLATE);
+                update.bindBlob(2, ContentCodec.compress(cursor.getString(1)));
+                update.bindLong(3, cursor.getLong(0));
+                compressed += update.executeUpdateDelete();
+            }
+
+            database.setTransactionSuccessful();
+        } finally {
+            finishTransaction();
+            update.close();
+            cursor.close();
+        }
+
+        return compressed;
+    }
+
+    private static void putContent(ContentValues values, String content) {
+        if (compressContent && content != null) {
+            values.putNull(ContentModel.COLUMN_CONTENT);
+            values.put(ContentModel.COLUMN_CODEC, ContentCodec.CODEC_DEFLATE);
+            values.put(ContentModel.COLUMN_COMPRESSED, ContentCodec.compress(content));
+        } else {
+            values.put(ContentModel.COLUMN_CONTENT, content);
+            values.put(ContentModel.COLUMN_CODEC, ContentCodec.CODEC_NONE);
+            values.putNull(ContentModel.COLUMN_COMPRESSED);
+        }
+    }
+
+    /**
+     * Gets a single article from the database. The url is canonicalized first, and can also be
+     * one of the aliases that were added with {@link #insertArticleAlias(String, long)}.
+     *
+     * Compressed content is not decompressed until {@link Article#getContent()} is called.
+     * Articles that were loaded recently are served from memory, see
+     * {@link #setMemoryCacheSize(long)}.
      */
     public Article getArticle(String url) {
-        // remove any extra query parameters from the url
-        url = ArticleUtils.removeUrlParameters(url);
+        url = UrlCanonicalizer.canonicalize(url);
+        if (url == null) {
+            return null;
+        }
+
+        Article cached = memoryCache.get(url);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = memoryCache.getGeneration();
+        Article article = queryArticle(url);
+        if (article == null) {
+            String aliasedUrl = getAliasedUrl(url);
+            if (aliasedUrl != null) {
+                article = queryArticle(aliasedUrl);
+            }
+        }
+
+        if (article != null) {
+            memoryCache.put(url, article, generation);
+        }
 
+        return article;
+    }
+
+    private Article queryArticle(String url) {
         Cursor cursor = database.query(
                 ArticleModel.TABLE + " a left outer join " + ContentModel.TABLE + " c " +
                         "on a." + ArticleModel.COLUMN_ID + " = c." + ContentModel.COLUMN_ARTICLE_ID,
@@ -269,20 +830,83 @@ public class DataSource {
                         "a." + ArticleModel.COLUMN_IS_ARTICLE + " as " + ArticleModel.COLUMN_IS_ARTICLE,
                         "a." + ArticleModel.COLUMN_SAVED + " as " + ArticleModel.COLUMN_SAVED,
                         "c." + ContentModel.COLUMN_CONTENT + " as " + ContentModel.COLUMN_CONTENT,
+                        "c." + ContentModel.COLUMN_CODEC + " as " + ContentModel.COLUMN_CODEC,
+                        "c." + ContentModel.COLUMN_COMPRESSED + " as " + ContentModel.COLUMN_COMPRESSED,
+                        "c." + ContentModel.COLUMN_BLOCKS + " as " + ContentModel.COLUMN_BLOCKS,
                 },
-                ArticleModel.COLUMN_URL + "=?",
-                new String[] { url },
+                ArticleModel.COLUMN_URL_HASH + "=? and " + ArticleModel.COLUMN_URL + "=?",
+                new String[] { Long.toString(UrlHash.hash(url)), url },
                 null,
                 null,
                 null);
 
-        if (cursor != null && cursor.moveToFirst()) {
-            Article article = new Article(cursor);
-            cursor.close();
-            return article;
-        } else {
+        if (cursor == null) {
+            return null;
+        }
+
+        Article article = cursor.moveToFirst() ? new Article(cursor) : null;
+        cursor.close();
+        return article;
+    }
+
+    /**
+     * Gets the url of the article that an alias points at.
+     *
+     * @param url the canonical url of the alias.
+     * @return the url of the article, or null if the url isn't an alias.
+     */
+    private String getAliasedUrl(String url) {
+        Cursor cursor = database.rawQuery("select a." + ArticleModel.COLUMN_URL + " from " +
+                ArticleAliasModel.TABLE + " al join " + ArticleModel.TABLE + " a on al." +
+                ArticleAliasModel.COLUMN_ARTICLE_ID + " = a." + ArticleModel.COLUMN_ID +
+                " where al." + ArticleAliasModel.COLUMN_URL_HASH + "=? and al." +
+                ArticleAliasModel.COLUMN_URL + "=?",
+                new String[] { Long.toString(UrlHash.hash(url)), url });
+
+        if (cursor == null) {
             return null;
         }
+
+        String aliasedUrl = cursor.moveToFirst() ? cursor.getString(0) : null;
+        cursor.close();
+        return aliasedUrl;
+    }
+
+    /**
+     * Records that an article can also be found by another url, such as the shortened link that
+     * was shared before the server resolved it. Nothing is stored when the url is already the
+     * canonical url of an article.
+     *
+     * @param url the other url.
+     * @param articleId the id of the article that it points at.
+     */
+    public void insertArticleAlias(String url, long articleId) {
+        url = UrlCanonicalizer.canonicalize(url);
+        if (url == null || queryArticleId(url) != -1) {
+            return;
+        }
+
+        ContentValues values = new ContentValues(3);
+        values.put(ArticleAliasModel.COLUMN_URL_HASH, UrlHash.hash(url));
+        values.put(ArticleAliasModel.COLUMN_URL, url);
+        values.put(ArticleAliasModel.COLUMN_ARTICLE_ID, articleId);
+        database.insertWithOnConflict(
+                ArticleAliasModel.TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private long queryArticleId(String url) {
+        Cursor cursor = database.rawQuery("select " + ArticleModel.COLUMN_ID + " from " +
+                ArticleModel.TABLE + " where " + ArticleModel.COLUMN_URL_HASH + "=? and " +
+                ArticleModel.COLUMN_URL + "=?",
+                new String[] { Long.toString(UrlHash.hash(url)), url });
+
+        if (cursor == null) {
+            return -1;
+        }
+
+        long id = cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        cursor.close();
+        return id;
     }
 
     /**
@@ -343,54 +967,645 @@ public class DataSource {
     }
 
     /**
-     * Deletes an article and its content.
+     * Gets a page of articles from the database, newest first. Only the rows on the page are read,
+     * no matter how many articles are cached.
      *
-     * @param article The article to delete.
+     * @param after the key from the previous page, or null for the first page.
+     * @param pageSize the number of articles on a page.
+     * @return the page.
      */
-    public void deleteArticle(Article article) {
-        deleteArticle(article.id);
+    public ArticlePage getArticlesPage(ArticlePageKey after, int pageSize) {
+        return queryPage(null, new String[0], after, pageSize);
     }
 
     /**
-     * Deletes an article and its content.
+     * Gets a page of saved articles from the database, newest first.
      *
-     * @param articleId the id of the article to delete.
+     * @param after the key from the previous page, or null for the first page.
+     * @param pageSize the number of articles on a page.
+     * @return the page.
      */
-    public void deleteArticle(long articleId) {
-        database.delete(
-                ArticleModel.TABLE,
-                ArticleModel.COLUMN_ID + "=?",
-                new String[] {Long.toString(articleId)});
-        database.delete(
-                ContentModel.TABLE,
-                ContentModel.COLUMN_ARTICLE_ID + "=?",
-                new String[] {Long.toString(articleId)});
+    public ArticlePage getSavedArticlesPage(ArticlePageKey after, int pageSize) {
+        return queryPage("a." + ArticleModel.COLUMN_SAVED + "=1", new String[0], after, pageSize);
     }
 
     /**
-     * Inserts a category into the database with the provided name.
+     * Gets a page of articles for a particular source, newest first.
      *
-     * @param categoryName the category name.
-     * @return the id of the inserted category.
+     * @param remoteSourceId the source to get articles for.
+     * @param after the key from the previous page, or null for the first page.
+     * @param pageSize the number of articles on a page.
+     * @return the page.
      */
-    public long insertCategory(String categoryName) {
-        ContentValues values = new ContentValues(1);
-        values.put(CategoryModel.COLUMN_NAME, categoryName);
-        return database.insert(CategoryModel.TABLE, null, values);
+    public ArticlePage getArticlesForSourcePage(long remoteSourceId, ArticlePageKey after,
+                                                int pageSize) {
+        return queryPage("a." + ArticleModel.COLUMN_SOURCE_ID + "=?",
+                new String[] { Long.toString(remoteSourceId) }, after, pageSize);
     }
 
     /**
-     * Checks to see if a category already exists in the database.
-     *
-     * @param name the category name to search for.
-     * @return true if it exists, false otherwise.
+     * Reads the page of articles that comes after the key. Rather than skipping rows with an
+     * offset, this seeks straight to the key in the inserted_at index, so later pages are as
+     * cheap as the first one and rows inserted in the meantime don't shift the pages.
      */
-    @VisibleForTesting
-    boolean categoryExists(String name) {
-        return getCategoryId(name) != null;
-    }
+    private ArticlePage queryPage(String where, String[] whereArgs, ArticlePageKey after,
+                                  int pageSize) {
+        if (pageSize <= 0) {
+            return new ArticlePage(new ArrayList<Article>(), null);
+        }
 
-    /**
+        List<String> args = new ArrayList<>(Arrays.asList(whereArgs));
+        if (after != null) {
+            // (inserted_at, _id) < (?, ?), written so that the index can seek to inserted_at
+            String seek = "a." + ArticleModel.COLUMN_INSERTED_AT + " <= ? and (" +
+                    "a." + ArticleModel.COLUMN_INSERTED_AT + " < ? or " +
+                    "a." + ArticleModel.COLUMN_ID + " < ?)";
+            where = where == null ? seek : where + " and " + seek;
+            args.add(Long.toString(after.insertedAt));
+            args.add(Long.toString(after.insertedAt));
+            args.add(Long.toString(after.id));
+        }
+
+        // one extra row is read to know if there is another page
+        Cursor cursor = database.query(
+                ArticleModel.TABLE + " a left outer join " + SourceModel.TABLE + " s " +
+                    "on a." + ArticleModel.COLUMN_SOURCE_ID + " = s." + SourceModel.COLUMN_REMOTE_ID,
+                new String[] {
+                        "a.*",
+                        "s." + SourceModel.COLUMN_NAME + " as " + SourceModel.COLUMN_NAME,
+                        "s." + SourceModel.COLUMN_IMAGE_URL + " as " + SourceModel.COLUMN_IMAGE_URL
+                },
+                where,
+                args.toArray(new String[args.size()]),
+                null,
+                null,
+                "a." + ArticleModel.COLUMN_INSERTED_AT + " desc, " +
+                        "a." + ArticleModel.COLUMN_ID + " desc",
+                Integer.toString(pageSize + 1));
+
+        List<Article> articles = new ArrayList<>();
+        boolean hasMore = false;
+        if (cursor != null) {
+            ArticleCursorMapper mapper = new ArticleCursorMapper(cursor);
+            while (cursor.moveToNext()) {
+                if (articles.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+
+                articles.add(mapper.map());
+            }
+
+            cursor.close();
+        }
+
+        ArticlePageKey next = hasMore ? ArticlePageKey.after(articles.get(articles.size() - 1)) :
+                null;
+        return new ArticlePage(articles, next);
+    }
+
+    /**
+     * Searches the title, description, author and text of every stored article.
+     *
+     * @param query the words to search for. Every word needs to match, and the last one can match
+     *              the start of a longer word.
+     * @param limit the maximum number of results to return.
+     * @return the best matching articles, best first. These do not include the article content.
+     */
+    public List<ArticleSearchResult> searchArticles(String query, int limit) {
+        return searchArticles(query, limit, 0);
+    }
+
+    /**
+     * Searches the title, description, author and text of every stored article.
+     *
+     * @param query the words to search for. Every word needs to match, and the last one can match
+     *              the start of a longer word.
+     * @param limit the maximum number of results to return.
+     * @param offset the number of results to skip, for loading the next page.
+     * @return the best matching articles, best first. These do not include the article content.
+     */
+    public List<ArticleSearchResult> searchArticles(String query, int limit, int offset) {
+        List<ArticleSearchResult> results = new ArrayList<>();
+        String match = ArticleSearchIndex.buildMatchQuery(query);
+        if (match == null || limit <= 0) {
+            return results;
+        }
+
+        // the ranking is done here rather than in sql, since android doesn't allow registering
+        // a ranking function. Only the score is needed to rank, so the rest of the columns are
+        // only read for the page that is returned.
+        Cursor cursor = database.rawQuery(
+                "select s." + ArticleSearchModel.COLUMN_DOCID + ", " +
+                        "matchinfo(" + ArticleSearchModel.TABLE + ", '" +
+                        ArticleSearchIndex.MATCHINFO_FORMAT + "') " +
+                        "from " + ArticleSearchModel.TABLE + " s " +
+                        "where " + ArticleSearchModel.TABLE + " match ?",
+                new String[] { match });
+
+        if (cursor == null) {
+            return results;
+        }
+
+        List<Long> ranked = new ArrayList<>();
+        final Map<Long, Double> scores = new HashMap<>();
+        while (cursor.moveToNext()) {
+            long id = cursor.getLong(0);
+            scores.put(id, ArticleSearchIndex.score(cursor.getBlob(1)));
+            ranked.add(id);
+        }
+        cursor.close();
+
+        Collections.sort(ranked, new Comparator<Long>() {
+            @Override
+            public int compare(Long first, Long second) {
+                int compare = Double.compare(scores.get(second), scores.get(first));
+                if (compare != 0) {
+                    return compare;
+                }
+
+                // ties go to the newest article
+                return second.compareTo(first);
+            }
+        });
+
+        if (offset >= ranked.size()) {
+            return results;
+        }
+
+        // the whole page is read with one more match, then put back in ranked order
+        List<Long> page = ranked.subList(offset, Math.min(ranked.size(), offset + limit));
+        StringBuilder in = new StringBuilder();
+        for (Long id : page) {
+            if (in.length() > 0) {
+                in.append(',');
+            }
+
+            in.append(id);
+        }
+
+        cursor = database.rawQuery(
+                "select a.*, snippet(" + ArticleSearchModel.TABLE +
+                        ", '<b>', '</b>', '...', -1, 16) " +
+                        "from " + ArticleSearchModel.TABLE + " s join " +
+                        ArticleModel.TABLE + " a on a." + ArticleModel.COLUMN_ID +
+                        " = s." + ArticleSearchModel.COLUMN_DOCID + " " +
+                        "where " + ArticleSearchModel.TABLE + " match ? and s." +
+                        ArticleSearchModel.COLUMN_DOCID + " in (" + in + ")",
+                new String[] { match });
+
+        if (cursor == null) {
+            return results;
+        }
+
+        Map<Long, ArticleSearchResult> found = new HashMap<>();
+        while (cursor.moveToNext()) {
+            Article article = new Article(cursor);
+            String snippet = cursor.getString(cursor.getColumnCount() - 1);
+            found.put(article.id,
+                    new ArticleSearchResult(article, snippet, scores.get(article.id)));
+        }
+        cursor.close();
+
+        for (Long id : page) {
+            ArticleSearchResult result = found.get(id);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Clears the search index and builds it again from every stored article. The index is kept
+     * up to date as articles are written, so this is only needed if rows were written to the
+     * database directly.
+     */
+    public void rebuildSearchIndex() {
+        database.beginTransactionNonExclusive();
+        try {
+            ArticleSearchIndex.rebuild(database);
+            database.setTransactionSuccessful();
+        } finally {
+            finishTransaction();
+        }
+    }
+
+    /**
+     * Fills in the url hash of every article that doesn't have one. Articles written through
+     * this class are always hashed, so this is only needed if rows were written to the database
+     * directly. Articles without a hash can't be found by {@link #getArticle(String)}.
+     *
+     * @return the number of articles that were updated.
+     */
+    public int backfillUrlHashes() {
+        int updated;
+        database.beginTransactionNonExclusive();
+        try {
+            updated = UrlHash.backfill(database);
+            database.setTransactionSuccessful();
+        } finally {
+            finishTransaction();
+        }
+
+        return updated;
+    }
+
+    /**
+     * Evicts the least recently read articles until the cache fits in the budget. Saved articles
+     * are never evicted, but they do count towards the budget. An article, its content and its
+     * search index entry are always deleted together, in a single transaction.
+     *
+     * The size of an article is estimated from the bytes of its stored content, parsed blocks,
+     * title and description. This is what makes up most of the database, but the file will be
+     * somewhat larger because of indexes and page overhead.
+     *
+     * @param maxBytes the estimated number of bytes that the cached articles can take up.
+     * @param maxArticles the number of articles that can be cached.
+     * @return the number of articles that were evicted.
+     */
+    public int evictArticles(long maxBytes, int maxArticles) {
+        int evicted;
+        database.beginTransactionNonExclusive();
+        try {
+            Cursor cursor = database.rawQuery("select count(*), sum(" + ARTICLE_SIZE + ") " +
+                    ARTICLE_SIZE_FROM, null);
+            long articles = 0;
+            long bytes = 0;
+            if (cursor != null) {
+                if (cursor.moveToFirst()) {
+                    articles = cursor.getLong(0);
+                    bytes = cursor.getLong(1);
+                }
+                cursor.close();
+            }
+
+            if (articles <= maxArticles && bytes <= maxBytes) {
+                database.setTransactionSuccessful();
+                return 0;
+            }
+
+            List<Long> ids = new ArrayList<>();
+            cursor = database.rawQuery("select a." + ArticleModel.COLUMN_ID + ", " +
+                    ARTICLE_SIZE + " " + ARTICLE_SIZE_FROM +
+                    " where a." + ArticleModel.COLUMN_SAVED + "=0" +
+                    " order by a." + ArticleModel.COLUMN_LAST_READ_AT + " asc, " +
+                    "a." + ArticleModel.COLUMN_ID + " asc", null);
+
+            if (cursor != null) {
+                while ((articles > maxArticles || bytes > maxBytes) && cursor.moveToNext()) {
+                    ids.add(cursor.getLong(0));
+                    articles--;
+                    bytes -= cursor.getLong(1);
+                }
+                cursor.close();
+            }
+
+            deleteArticles(ids);
+            evicted = ids.size();
+            database.setTransactionSuccessful();
+        } finally {
+            finishTransaction();
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Deletes a group of articles along with their content and search index entries.
+     */
+    private void deleteArticles(List<Long> ids) {
+        for (int start = 0; start < ids.size(); start += DELETE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(start, Math.min(ids.size(), start + DELETE_BATCH_SIZE));
+            StringBuilder in = new StringBuilder();
+            for (Long id : batch) {
+                if (in.length() > 0) {
+                    in.append(',');
+                }
+
+                in.append(id);
+            }
+
+            database.delete(ArticleModel.TABLE,
+                    ArticleModel.COLUMN_ID + " in (" + in + ")", null);
+            database.delete(ContentModel.TABLE,
+                    ContentModel.COLUMN_ARTICLE_ID + " in (" + in + ")", null);
+            database.delete(ArticleSearchModel.TABLE,
+                    ArticleSearchModel.COLUMN_DOCID + " in (" + in + ")", null);
+            database.delete(ArticleAliasModel.TABLE,
+                    ArticleAliasModel.COLUMN_ARTICLE_ID + " in (" + in + ")", null);
+
+            for (Long id : batch) {
+                invalidateArticle(id);
+            }
+        }
+    }
+
+    /**
+     * Switches the database to incremental auto vacuum if it isn't already, so that space freed
+     * by evictions can be handed back to the file system with {@link #reclaimSpace()}. Databases
+     * created before this was supported need to be rebuilt with VACUUM once, which rewrites the
+     * whole file, so this should only be called from a background thread.
+     *
+     * @return true if the database had to be converted.
+     */
+    public boolean enableIncrementalVacuum() {
+        if (getPragma("auto_vacuum") == AUTO_VACUUM_INCREMENTAL) {
+            return false;
+        }
+
+        database.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        database.execSQL("VACUUM");
+        return true;
+    }
+
+    /**
+     * Hands pages that were freed by deleting rows back to the file system. This can't be called
+     * from inside a transaction.
+     */
+    public void reclaimSpace() {
+        Cursor cursor = database.rawQuery("PRAGMA incremental_vacuum", null);
+        if (cursor != null) {
+            // the pages are freed as the pragma is stepped through
+            while (cursor.moveToNext()) { }
+            cursor.close();
+        }
+    }
+
+    /**
+     * Gets the size of the database file, not counting pages that are free to be reclaimed.
+     *
+     * @return the size in bytes.
+     */
+    public long getDatabaseSize() {
+        return (getPragma("page_count") - getPragma("freelist_count")) * getPragma("page_size");
+    }
+
+    /**
+     * Gets the number of articles that are cached, including saved ones.
+     */
+    public int getArticleCount() {
+        return (int) queryLong("select count(*) from " + ArticleModel.TABLE);
+    }
+
+    private long getPragma(String pragma) {
+        return queryLong("PRAGMA " + pragma);
+    }
+
+    private long queryLong(String sql) {
+        Cursor cursor = database.rawQuery(sql, null);
+        if (cursor == null) {
+            return 0;
+        }
+
+        long value = cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        cursor.close();
+        return value;
+    }
+
+    /**
+     * Deletes an article and its content.
+     *
+     * @param article The article to delete.
+     */
+    public void deleteArticle(Article article) {
+        deleteArticle(article.id);
+    }
+
+    /**
+     * Deletes an article and its content.
+     *
+     * @param articleId the id of the article to delete.
+     */
+    public void deleteArticle(long articleId) {
+        database.delete(
+                ArticleModel.TABLE,
+                ArticleModel.COLUMN_ID + "=?",
+                new String[] {Long.toString(articleId)});
+        database.delete(
+                ContentModel.TABLE,
+                ContentModel.COLUMN_ARTICLE_ID + "=?",
+                new String[] {Long.toString(articleId)});
+        database.delete(
+                ArticleSearchModel.TABLE,
+                ArticleSearchModel.COLUMN_DOCID + "=?",
+                new String[] {Long.toString(articleId)});
+        database.delete(
+                ArticleAliasModel.TABLE,
+                ArticleAliasModel.COLUMN_ARTICLE_ID + "=?",
+                new String[] {Long.toString(articleId)});
+        invalidateArticle(articleId);
+    }
+
+    /**
+     * Checks whether a url was recently found not to be an article, either by itself or because
+     * enough other urls on its domain weren't. Every match is counted as a hit.
+     *
+     * @param url the url to check.
+     * @return true if the url should be opened in the browser without asking the server.
+     */
+    public boolean isNonArticle(String url) {
+        return isNonArticle(url, System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    boolean isNonArticle(String url, long now) {
+        url = UrlCanonicalizer.canonicalize(url);
+        if (url == null || nonArticleTtlMillis <= 0) {
+            return false;
+        }
+
+        String domain = UrlCanonicalizer.getDomain(url);
+        long urlHash = UrlHash.hash(url);
+        long domainHash = domain == null ? urlHash : UrlHash.hash(domain);
+
+        Cursor cursor = database.rawQuery("select " + NonArticleModel.COLUMN_KEY_HASH + ", " +
+                NonArticleModel.COLUMN_TYPE + " from " + NonArticleModel.TABLE + " where " +
+                NonArticleModel.COLUMN_KEY_HASH +
+                " in (?, ?) and " + NonArticleModel.COLUMN_RECORDED_AT + " > ? and ((" +
+                NonArticleModel.COLUMN_TYPE + "=" + NonArticleModel.TYPE_URL + " and " +
+                NonArticleModel.COLUMN_KEY + "=?) or (" +
+                NonArticleModel.COLUMN_TYPE + "=" + NonArticleModel.TYPE_DOMAIN + " and " +
+                NonArticleModel.COLUMN_KEY + "=? and " +
+                NonArticleModel.COLUMN_COUNT + ">=" + NON_ARTICLE_DOMAIN_THRESHOLD + "))",
+                new String[] { Long.toString(urlHash), Long.toString(domainHash),
+                        Long.toString(now - nonArticleTtlMillis), url,
+                        domain == null ? "" : domain });
+
+        if (cursor == null) {
+            return false;
+        }
+
+        // the url and its domain can both match, in which case the hit goes to the url
+        boolean found = false;
+        long hit = 0;
+        while (cursor.moveToNext()) {
+            if (!found || cursor.getInt(1) == NonArticleModel.TYPE_URL) {
+                hit = cursor.getLong(0);
+            }
+            found = true;
+        }
+        cursor.close();
+
+        if (found) {
+            database.execSQL("update " + NonArticleModel.TABLE + " set " +
+                    NonArticleModel.COLUMN_HITS + " = " + NonArticleModel.COLUMN_HITS +
+                    " + 1 where " + NonArticleModel.WHERE_KEY_HASH,
+                    new Object[] { hit });
+        }
+
+        return found;
+    }
+
+    /**
+     * Remembers that the server said a url isn't an article, or couldn't find any content for
+     * it. This should not be called when the request failed, since the url might be fine the
+     * next time.
+     *
+     * @param url the url that wasn't an article.
+     */
+    public void insertNonArticle(String url) {
+        insertNonArticle(url, System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    void insertNonArticle(String url, long now) {
+        url = UrlCanonicalizer.canonicalize(url);
+        if (url == null) {
+            return;
+        }
+
+        String domain = UrlCanonicalizer.getDomain(url);
+        database.beginTransactionNonExclusive();
+        try {
+            recordNonArticle(NonArticleModel.TYPE_URL, url, now);
+            if (domain != null) {
+                recordNonArticle(NonArticleModel.TYPE_DOMAIN, domain, now);
+            }
+
+            database.setTransactionSuccessful();
+        } finally {
+            finishTransaction();
+        }
+    }
+
+    /**
+     * Adds an entry if there isn't one, then counts this url towards it. Entries that have
+     * expired start counting again from this url.
+     */
+    private void recordNonArticle(int type, String key, long now) {
+        long hash = UrlHash.hash(key);
+        database.execSQL("insert or ignore into " + NonArticleModel.TABLE + " (" +
+                NonArticleModel.COLUMN_KEY_HASH + ", " + NonArticleModel.COLUMN_TYPE + ", " +
+                NonArticleModel.COLUMN_KEY + ", " + NonArticleModel.COLUMN_RECORDED_AT +
+                ") values (?, ?, ?, ?)",
+                new Object[] { hash, type, key, now });
+        database.execSQL("update " + NonArticleModel.TABLE + " set " +
+                NonArticleModel.COLUMN_COUNT + " = case when " +
+                NonArticleModel.COLUMN_RECORDED_AT + " > ? then " +
+                NonArticleModel.COLUMN_COUNT + " + 1 else 1 end, " +
+                NonArticleModel.COLUMN_RECORDED_AT + " = ? where " +
+                NonArticleModel.WHERE_KEY_HASH,
+                new Object[] { now - nonArticleTtlMillis, now, hash });
+    }
+
+    /**
+     * Forgets that a url wasn't an article, once the server has found one there. The count for
+     * its domain starts over, since the domain clearly has articles on it.
+     *
+     * @param url the url that is an article.
+     */
+    public void deleteNonArticle(String url) {
+        url = UrlCanonicalizer.canonicalize(url);
+        if (url == null) {
+            return;
+        }
+
+        database.delete(NonArticleModel.TABLE, NonArticleModel.WHERE_KEY_HASH,
+                new String[] { Long.toString(UrlHash.hash(url)) });
+
+        String domain = UrlCanonicalizer.getDomain(url);
+        if (domain != null) {
+            ContentValues values = new ContentValues(1);
+            values.put(NonArticleModel.COLUMN_COUNT, 0);
+            database.update(NonArticleModel.TABLE, values, NonArticleModel.WHERE_KEY_HASH,
+                    new String[] { Long.toString(UrlHash.hash(domain)) });
+        }
+    }
+
+    /**
+     * Deletes the urls and domains that have been remembered for longer than the time to live.
+     *
+     * @return the number of entries that were deleted.
+     */
+    public int deleteExpiredNonArticles() {
+        return deleteExpiredNonArticles(System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    int deleteExpiredNonArticles(long now) {
+        return database.delete(NonArticleModel.TABLE, NonArticleModel.WHERE_EXPIRED,
+                new String[] { Long.toString(now - nonArticleTtlMillis) });
+    }
+
+    /**
+     * Gets how many urls and domains are remembered as not being articles, and how many times
+     * each kind was used to skip the server.
+     *
+     * @return the current stats.
+     */
+    public NonArticleStats getNonArticleStats() {
+        int urlCount = 0;
+        int domainCount = 0;
+        long urlHits = 0;
+        long domainHits = 0;
+
+        Cursor cursor = database.rawQuery("select " + NonArticleModel.COLUMN_TYPE +
+                ", count(*), sum(" + NonArticleModel.COLUMN_HITS + ") from " +
+                NonArticleModel.TABLE + " group by " + NonArticleModel.COLUMN_TYPE, null);
+
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                if (cursor.getInt(0) == NonArticleModel.TYPE_DOMAIN) {
+                    domainCount = cursor.getInt(1);
+                    domainHits = cursor.getLong(2);
+                } else {
+                    urlCount = cursor.getInt(1);
+                    urlHits = cursor.getLong(2);
+                }
+            }
+
+            cursor.close();
+        }
+
+        return new NonArticleStats(urlCount, domainCount, urlHits, domainHits);
+    }
+
+    /**
+     * Inserts a category into the database with the provided name.
+     *
+     * @param categoryName the category name.
+     * @return the id of the inserted category.
+     */
+    public long insertCategory(String categoryName) {
+        ContentValues values = new ContentValues(1);
+        values.put(CategoryModel.COLUMN_NAME, categoryName);
+        return database.insert(CategoryModel.TABLE, null, values);
+    }
+
+    /**
+     * Checks to see if a category already exists in the database.
+     *
+     * @param name the category name to search for.
+     * @return true if it exists, false otherwise.
+     */
+    @VisibleForTesting
+    boolean categoryExists(String name) {
+        return getCategoryId(name) != null;
+    }
+
+    /**
      * Gets the id of a category.
      */
     @VisibleForTesting
@@ -434,9 +1649,162 @@ public class DataSource {
         database.insert(SourceModel.TABLE, null, values);
     }
 
+    /**
+     * Brings the stored sources in line with the provided list, in a single transaction. Sources
+     * are matched on their remote id: ones that are already stored are updated, new ones are
+     * inserted and any stored source that is not in the list is deleted.
+     *
+     * Category ids are resolved from a map built with one query up front, and categories that
+     * don't exist yet are inserted as they are found. The category id of each source will be set
+     * after this returns.
+     *
+     * A source without a name or category is skipped, and a copy of it that is already stored is
+     * left alone. A missing image url is stored as an empty string.
+     *
+     * @param sources the full list of sources that should be stored.
+     */
+    public void syncSources(List<Source> sources) {
+        SQLiteStatement insertCategory = null;
+        SQLiteStatement updateSource = null;
+        SQLiteStatement insertSource = null;
+        SQLiteStatement deleteSource = null;
+
+        try {
+            insertCategory = database.compileStatement(
+                    "insert into " + CategoryModel.TABLE + " (" + CategoryModel.COLUMN_NAME +
+                            ") values (?)");
+            updateSource = database.compileStatement(
+                    "update " + SourceModel.TABLE + " set " +
+                            SourceModel.COLUMN_NAME + "=?, " +
+                            SourceModel.COLUMN_IMAGE_URL + "=?, " +
+                            SourceModel.COLUMN_CATEGORY_ID + "=? where " +
+                            SourceModel.COLUMN_REMOTE_ID + "=?");
+            insertSource = database.compileStatement(
+                    "insert into " + SourceModel.TABLE + " (" +
+                            SourceModel.COLUMN_NAME + ", " +
+                            SourceModel.COLUMN_IMAGE_URL + ", " +
+                            SourceModel.COLUMN_CATEGORY_ID + ", " +
+                            SourceModel.COLUMN_REMOTE_ID + ") values (?, ?, ?, ?)");
+            deleteSource = database.compileStatement(
+                    "delete from " + SourceModel.TABLE + " where " +
+                            SourceModel.COLUMN_REMOTE_ID + "=?");
+
+            database.beginTransactionNonExclusive();
+            try {
+                Map<String, Long> categoryIds = getCategoryIds();
+                Set<Long> remoteIds = new HashSet<>();
+
+                for (Source source : sources) {
+                    // still counted as present, so a good copy that is already stored is kept
+                    remoteIds.add(source.remoteId);
+                    if (source.name == null || source.categoryName == null) {
+                        continue;
+                    }
+
+                    Long categoryId = categoryIds.get(source.categoryName);
+                    if (categoryId == null) {
+                        insertCategory.bindString(1, source.categoryName);
+                        categoryId = insertCategory.executeInsert();
+                        categoryIds.put(source.categoryName, categoryId);
+                    }
+
+                    source.categoryId = categoryId;
+
+                    // the update and insert statements bind their columns in the same order
+                    bindSource(updateSource, source);
+                    if (updateSource.executeUpdateDelete() == 0) {
+                        bindSource(insertSource, source);
+                        insertSource.executeInsert();
+                    }
+                }
+
+                for (long remoteId : getSourceRemoteIds()) {
+                    if (!remoteIds.contains(remoteId)) {
+                        deleteSource.bindLong(1, remoteId);
+                        deleteSource.executeUpdateDelete();
+                    }
+                }
+
+                database.setTransactionSuccessful();
+            } finally {
+                finishTransaction();
+            }
+        } finally {
+            closeStatements(insertCategory, updateSource, insertSource, deleteSource);
+        }
+    }
+
+    private static void bindSource(SQLiteStatement statement, Source source) {
+        statement.bindString(1, source.name);
+        // the column is not null, a source without an image just shows its name
+        statement.bindString(2, source.imageUrl == null ? "" : source.imageUrl);
+        statement.bindLong(3, source.categoryId);
+        statement.bindLong(4, source.remoteId);
+    }
+
+    private static void closeStatements(SQLiteStatement... statements) {
+        for (SQLiteStatement statement : statements) {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+    }
+
+    /**
+     * Gets every category in the database, mapped from its name to its id.
+     */
+    private Map<String, Long> getCategoryIds() {
+        Cursor cursor = database.query(
+                CategoryModel.TABLE,
+                new String[] { CategoryModel.COLUMN_ID, CategoryModel.COLUMN_NAME },
+                null,
+                null,
+                null,
+                null,
+                null);
+
+        Map<String, Long> ids = new HashMap<>();
+        if (cursor != null && cursor.moveToFirst()) {
+            do {
+                ids.put(cursor.getString(1), cursor.getLong(0));
+            } while (cursor.moveToNext());
+            cursor.close();
+        }
+
+        return ids;
+    }
+
+    /**
+     * Gets the remote ids of every source in the database.
+     */
+    private List<Long> getSourceRemoteIds() {
+        Cursor cursor = database.query(
+                SourceModel.TABLE,
+                new String[] { SourceModel.COLUMN_REMOTE_ID },
+                null,
+                null,
+                null,
+                null,
+                null);
+
+        List<Long> ids = new ArrayList<>();
+        if (cursor != null && cursor.moveToFirst()) {
+            do {
+                ids.add(cursor.getLong(0));
+            } while (cursor.moveToNext());
+            cursor.close();
+        }
+
+        return ids;
+    }
+
     /**
      * Deletes a source from the database depending on its name.
+     *
+     * @deprecated use {@link #syncSources(List)} to remove all sources that no longer exist at
+     * once.
      */
+    @Deprecated
     public void deleteSource(String name) {
         database.delete(SourceModel.TABLE, SourceModel.COLUMN_NAME + "=?", new String[] {name});
     }
@@ -466,10 +1834,8 @@ public class DataSource {
                 "s" + SourceModel.COLUMN_NAME + " asc");
 
         List<Source> sources = new ArrayList<>();
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                sources.add(new Source(cursor));
-            } while (cursor.moveToNext());
+        if (cursor != null) {
+            sources = new SourceCursorMapper(cursor).mapAll();
             cursor.close();
         }
 
@@ -514,38 +1880,164 @@ public class DataSource {
      * Gets a list of categories and the number of articles that each contains, since the provided
      * timestamp.
      *
+     * Whole days after the timestamp are added up from the per day counts that are kept by
+     * triggers, so only the articles inserted on the same day as the timestamp need to be counted
+     * one by one.
+     *
      * @param timestamp the timestamp to query articles starting at.
      * @return a list of categories.
      */
     public CategoryCounts getCategoryCounts(long timestamp) {
-        Cursor cursor = database.query(
-                ArticleModel.TABLE + " a join " + SourceModel.TABLE + " s on a." +
-                        ArticleModel.COLUMN_SOURCE_ID + " = s." + SourceModel.COLUMN_REMOTE_ID +
-                        " join " + CategoryModel.TABLE + " c on s." +
-                        SourceModel.COLUMN_CATEGORY_ID + " = c." + CategoryModel.COLUMN_ID,
-                new String[] {
-                        "c." + CategoryModel.COLUMN_NAME + " as " + CategoryModel.COLUMN_NAME,
-                        "count(c." + CategoryModel.COLUMN_ID + ") as count"
-                },
-                "a." + ArticleModel.COLUMN_INSERTED_AT + " > ? and " +
-                        "a." + ArticleModel.COLUMN_SOURCE_ID + " not null",
-                new String[] { Long.toString(timestamp) },
-                "c." + CategoryModel.COLUMN_ID,
-                null,
-                "count desc"
-        );
+        Map<Long, Category> counts = new HashMap<>();
+
+        if (timestamp < 0) {
+            // days before the epoch don't line up with the buckets, count everything
+            addCategoryCounts(counts, "select " + CATEGORY_COUNT_COLUMNS + ", count(*) " +
+                    CATEGORY_COUNT_FROM + " where a." + ArticleModel.COLUMN_INSERTED_AT + " > ? " +
+                    "and a." + ArticleModel.COLUMN_SOURCE_ID + " not null " +
+                    "group by c." + CategoryModel.COLUMN_ID,
+                    new String[] { Long.toString(timestamp) });
+        } else {
+            long day = timestamp / SourceDayCountModel.DAY_MILLIS;
+            long nextDay = (day + 1) * SourceDayCountModel.DAY_MILLIS;
+
+            addCategoryCounts(counts, "select " + CATEGORY_COUNT_COLUMNS + ", " +
+                    "sum(d." + SourceDayCountModel.COLUMN_COUNT + ") " +
+                    "from " + SourceDayCountModel.TABLE + " d join " + SourceModel.TABLE +
+                    " s on d." + SourceDayCountModel.COLUMN_SOURCE_ID + " = s." +
+                    SourceModel.COLUMN_REMOTE_ID + " join " + CategoryModel.TABLE + " c on s." +
+                    SourceModel.COLUMN_CATEGORY_ID + " = c." + CategoryModel.COLUMN_ID +
+                    " where d." + SourceDayCountModel.COLUMN_DAY + " > ? " +
+                    "group by c." + CategoryModel.COLUMN_ID,
+                    new String[] { Long.toString(day) });
+
+            addCategoryCounts(counts, "select " + CATEGORY_COUNT_COLUMNS + ", count(*) " +
+                    CATEGORY_COUNT_FROM + " where a." + ArticleModel.COLUMN_INSERTED_AT + " > ? " +
+                    "and a." + ArticleModel.COLUMN_INSERTED_AT + " < ? " +
+                    "and a." + ArticleModel.COLUMN_SOURCE_ID + " not null " +
+                    "group by c." + CategoryModel.COLUMN_ID,
+                    new String[] { Long.toString(timestamp), Long.toString(nextDay) });
+        }
+
+        List<Map.Entry<Long, Category>> entries = new ArrayList<>(counts.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Long, Category>>() {
+            @Override
+            public int compare(Map.Entry<Long, Category> first, Map.Entry<Long, Category> second) {
+                int compare = second.getValue().numberArticles - first.getValue().numberArticles;
+                return compare != 0 ? compare : first.getKey().compareTo(second.getKey());
+            }
+        });
 
         List<Category> categories = new ArrayList<>();
         int total = 0;
-        if (cursor != null & cursor.moveToFirst()) {
-            do {
-                Category category = new Category(cursor);
-                total += category.numberArticles;
-                categories.add(category);
-            } while (cursor.moveToNext());
-            cursor.close();
+        for (Map.Entry<Long, Category> entry : entries) {
+            categories.add(entry.getValue());
+            total += entry.getValue().numberArticles;
         }
 
         return new CategoryCounts(categories, total);
     }
+
+    /**
+     * Adds the counts from a query that returns the category id, name and a count.
+     */
+    private void addCategoryCounts(Map<Long, Category> counts, String sql, String[] args) {
+        Cursor cursor = database.rawQuery(sql, args);
+        if (cursor == null) {
+            return;
+        }
+
+        while (cursor.moveToNext()) {
+            int count = cursor.getInt(2);
+            if (count <= 0) {
+                continue;
+            }
+
+            Category category = counts.get(cursor.getLong(0));
+            if (category == null) {
+                category = new Category();
+                category.name = cursor.getString(1);
+                counts.put(cursor.getLong(0), category);
+            }
+
+            category.numberArticles += count;
+        }
+
+        cursor.close();
+    }
+
+    /**
+     * Snapshot of the urls and domains that are remembered as not being articles.
+     */
+    public static final class NonArticleStats {
+
+        private final int urlCount;
+        private final int domainCount;
+        private final long urlHits;
+        private final long domainHits;
+
+        private NonArticleStats(int urlCount, int domainCount, long urlHits, long domainHits) {
+            this.urlCount = urlCount;
+            this.domainCount = domainCount;
+            this.urlHits = urlHits;
+            this.domainHits = domainHits;
+        }
+
+        /**
+         * The number of urls that are remembered.
+         */
+        public int getUrlCount() {
+            return urlCount;
+        }
+
+        /**
+         * The number of domains that have had a url that wasn't an article. Only the ones that
+         * have reached {@link #NON_ARTICLE_DOMAIN_THRESHOLD} are used to skip the server.
+         */
+        public int getDomainCount() {
+            return domainCount;
+        }
+
+        /**
+         * The number of times that a remembered url skipped the server.
+         */
+        public long getUrlHits() {
+            return urlHits;
+        }
+
+        /**
+         * The number of times that a remembered domain skipped the server.
+         */
+        public long getDomainHits() {
+            return domainHits;
+        }
+    }
+
+    /**
+     * Gives the memory cache back when the system is running low, keeping half of it if the app
+     * is only in the background.
+     */
+    private final class MemoryCallbacks implements ComponentCallbacks2 {
+
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_MODERATE) {
+                memoryCache.clear();
+            } else if (level >= TRIM_MEMORY_BACKGROUND || level < TRIM_MEMORY_UI_HIDDEN) {
+                // the levels below UI_HIDDEN are sent while the app is still running, but the
+                // constants for them aren't available on every version we support
+                memoryCache.trimToSize(memoryCache.getMaxBytes() / 2);
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            memoryCache.clear();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration configuration) {
+
+        }
+    }
 }
@@ -19,11 +19,16 @@ package xyz.klinker.android.article.data;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Build;
 
+import xyz.klinker.android.article.data.model.ArticleAliasModel;
 import xyz.klinker.android.article.data.model.ArticleModel;
+import xyz.klinker.android.article.data.model.ArticleSearchModel;
 import xyz.klinker.android.article.data.model.CategoryModel;
 import xyz.klinker.android.article.data.model.ContentModel;
 import xyz.klinker.android.article.data.model.DatabaseTable;
+import xyz.klinker.android.article.data.model.NonArticleModel;
+import xyz.klinker.android.article.data.model.SourceDayCountModel;
 import xyz.klinker.android.article.data.model.SourceModel;
 
 /**
@@ -32,13 +37,17 @@ import xyz.klinker.android.article.data.model.SourceModel;
 public class DatabaseSQLiteHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "articles.db";
-    private static final int DATABASE_VERSION = 3;
+    private static final int DATABASE_VERSION = 12;
 
     private DatabaseTable[] tables = {
             new ArticleModel(),
             new ContentModel(),
             new SourceModel(),
-            new CategoryModel()
+            new CategoryModel(),
+            new ArticleSearchModel(),
+            new SourceDayCountModel(),
+            new ArticleAliasModel(),
+            new NonArticleModel()
     };
 
     /**
@@ -48,10 +57,29 @@ public class DatabaseSQLiteHelper extends SQLiteOpenHelper {
      */
     public DatabaseSQLiteHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+
+        // with write ahead logging, the platform keeps a small pool of read connections next to
+        // the single write connection, so a preload writing content never blocks a lookup.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            setWriteAheadLoggingEnabled(true);
+        }
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN && !db.isReadOnly()) {
+            db.enableWriteAheadLogging();
+        }
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
+        // lets evicted articles give their space back to the file system. This only takes effect
+        // before the first table is created, older databases are converted by the evictor.
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+
         for (DatabaseTable table : tables) {
             db.execSQL(table.getCreateStatement());
 
@@ -80,6 +108,98 @@ public class DatabaseSQLiteHelper extends SQLiteOpenHelper {
                 db.execSQL(tables[0].getIndexStatements()[1]);
             } catch(Exception e) { }
         }
+
+        if (oldVersion < 4) {
+            try {
+                db.execSQL("ALTER TABLE content ADD COLUMN codec integer not null DEFAULT 0");
+                db.execSQL("ALTER TABLE content ADD COLUMN compressed blob");
+            } catch(Exception e) { }
+        }
+
+        if (oldVersion < 5) {
+            try {
+                db.execSQL("ALTER TABLE content ADD COLUMN blocks blob");
+            } catch(Exception e) { }
+        }
+
+        if (oldVersion < 6) {
+            try {
+                db.execSQL(tables[4].getCreateStatement());
+                ArticleSearchIndex.rebuild(db);
+            } catch(Exception e) { }
+        }
+
+        if (oldVersion < 7) {
+            try {
+                db.execSQL(
+                        "ALTER TABLE article ADD COLUMN last_read_at integer not null DEFAULT 0");
+                db.execSQL("UPDATE article SET last_read_at = inserted_at");
+                db.execSQL(tables[0].getIndexStatements()[2]);
+            } catch(Exception e) { }
+        }
+
+        if (oldVersion < 8) {
+            try {
+                // the article lists are ordered by inserted_at, so the source index now covers
+                // that too. Databases older than 3 already got the new one from the migration
+                // that added source_id.
+                db.execSQL("DROP INDEX IF EXISTS source_id_article_index");
+                if (oldVersion >= 3) {
+                    db.execSQL(tables[0].getIndexStatements()[1]);
+                }
+
+                db.execSQL(tables[0].getIndexStatements()[3]);
+                db.execSQL(tables[0].getIndexStatements()[4]);
+            } catch(Exception e) { }
+        }
+
+        if (oldVersion < 9) {
+            try {
+                db.execSQL(tables[5].getCreateStatement());
+                for (String trigger : tables[5].getIndexStatements()) {
+                    db.execSQL(trigger);
+                }
+
+                db.execSQL(SourceDayCountModel.BACKFILL);
+            } catch(Exception e) { }
+        }
+
+        if (oldVersion < 10) {
+            // articles are looked up by a hash of the url now. Older tables keep the unique
+            // constraint on the url, but the second index on it can go.
+            try {
+                db.execSQL("ALTER TABLE article ADD COLUMN url_hash integer");
+            } catch(Exception e) { }
+
+            boolean hashIndexed = false;
+            try {
+                UrlHash.backfill(db);
+                db.execSQL(tables[0].getIndexStatements()[0]);
+                hashIndexed = true;
+            } catch(Exception e) { }
+
+            // only drop the old index once the new one exists, so lookups never lose both
+            if (hashIndexed) {
+                try {
+                    db.execSQL("DROP INDEX IF EXISTS url_article_index");
+                } catch(Exception e) { }
+            }
+        }
+
+        if (oldVersion < 11) {
+            try {
+                db.execSQL(tables[6].getCreateStatement());
+                db.execSQL(tables[6].getIndexStatements()[0]);
+                UrlHash.recanonicalize(db);
+            } catch(Exception e) { }
+        }
+
+        if (oldVersion < 12) {
+            try {
+                db.execSQL(tables[7].getCreateStatement());
+                db.execSQL(tables[7].getIndexStatements()[0]);
+            } catch(Exception e) { }
+        }
     }
 
     public void onDrop(SQLiteDatabase db) {
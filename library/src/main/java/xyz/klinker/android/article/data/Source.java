@@ -18,9 +18,7 @@ package xyz.klinker.android.article.data;
 
 import android.database.Cursor;
 
-import xyz.klinker.android.article.data.model.CategoryModel;
 import xyz.klinker.android.article.data.model.DatabaseModel;
-import xyz.klinker.android.article.data.model.SourceModel;
 
 /**
  * Model holding information about a source, extracted and joined from the database.
@@ -52,23 +50,7 @@ public class Source implements DatabaseModel {
 
     @Override
     public void fillFromCursor(Cursor cursor) {
-        for (int i = 0; i < cursor.getColumnCount(); i++) {
-            String column = cursor.getColumnName(i);
-
-            if (column.equals("s" + SourceModel.COLUMN_ID)) {
-                this.id = cursor.getLong(i);
-            } else if (column.equals("s" + SourceModel.COLUMN_NAME)) {
-                this.name = cursor.getString(i);
-            } else if (column.equals("s" + SourceModel.COLUMN_IMAGE_URL)) {
-                this.imageUrl = cursor.getString(i);
-            } else if (column.equals("s" + SourceModel.COLUMN_REMOTE_ID)) {
-                this.remoteId = cursor.getLong(i);
-            } else if (column.equals("c" + CategoryModel.COLUMN_ID)) {
-                this.categoryId = cursor.getLong(i);
-            } else if (column.equals("c" + CategoryModel.COLUMN_NAME)) {
-                this.categoryName = cursor.getString(i);
-            }
-        }
+        new SourceCursorMapper(cursor).fill(this);
     }
 
     @Override
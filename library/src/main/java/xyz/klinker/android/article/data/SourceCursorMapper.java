@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.database.Cursor;
+
+import xyz.klinker.android.article.data.model.CategoryModel;
+import xyz.klinker.android.article.data.model.SourceModel;
+
+/**
+ * Maps cursors over the source table joined with its category. The columns are expected to be
+ * prefixed with "s" for the source and "c" for the category, like in
+ * {@link DataSource#getSources()}.
+ */
+public final class SourceCursorMapper extends CursorMapper<Source> {
+
+    private static final String ID = "s" + SourceModel.COLUMN_ID;
+    private static final String NAME = "s" + SourceModel.COLUMN_NAME;
+    private static final String IMAGE_URL = "s" + SourceModel.COLUMN_IMAGE_URL;
+    private static final String REMOTE_ID = "s" + SourceModel.COLUMN_REMOTE_ID;
+    private static final String CATEGORY_ID = "c" + CategoryModel.COLUMN_ID;
+    private static final String CATEGORY_NAME = "c" + CategoryModel.COLUMN_NAME;
+
+    private int id = MISSING;
+    private int name = MISSING;
+    private int imageUrl = MISSING;
+    private int remoteId = MISSING;
+    private int categoryId = MISSING;
+    private int categoryName = MISSING;
+
+    public SourceCursorMapper(Cursor cursor) {
+        super(cursor);
+
+        for (int i = 0; i < cursor.getColumnCount(); i++) {
+            String column = cursor.getColumnName(i);
+            if (column.equals(ID)) {
+                id = i;
+            } else if (column.equals(NAME)) {
+                name = i;
+            } else if (column.equals(IMAGE_URL)) {
+                imageUrl = i;
+            } else if (column.equals(REMOTE_ID)) {
+                remoteId = i;
+            } else if (column.equals(CATEGORY_ID)) {
+                categoryId = i;
+            } else if (column.equals(CATEGORY_NAME)) {
+                categoryName = i;
+            }
+        }
+    }
+
+    @Override
+    protected Source create() {
+        return new Source();
+    }
+
+    @Override
+    public void fill(Source source) {
+        if (id != MISSING) {
+            source.id = cursor.getLong(id);
+        }
+
+        if (name != MISSING) {
+            source.name = cursor.getString(name);
+        }
+
+        if (imageUrl != MISSING) {
+            source.imageUrl = cursor.getString(imageUrl);
+        }
+
+        if (remoteId != MISSING) {
+            source.remoteId = cursor.getLong(remoteId);
+        }
+
+        if (categoryId != MISSING) {
+            source.categoryId = cursor.getLong(categoryId);
+        }
+
+        if (categoryName != MISSING) {
+            source.categoryName = cursor.getString(categoryName);
+        }
+    }
+}
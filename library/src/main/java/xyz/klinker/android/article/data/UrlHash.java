@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import xyz.klinker.android.article.UrlCanonicalizer;
+import xyz.klinker.android.article.data.model.ArticleModel;
+
+/**
+ * Hashes the urls of stored articles, so that looking one up only needs a small integer index.
+ * The full url is still compared once the hash matches. The hash is also what keeps urls unique,
+ * see {@link ArticleModel} for why a collision is an accepted risk.
+ */
+final class UrlHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private UrlHash() {
+
+    }
+
+    /**
+     * Hashes a url with 64 bit FNV-1a, reading each character as two bytes. The url should
+     * already be canonical.
+     *
+     * @param url the url to hash.
+     * @return the hash.
+     */
+    static long hash(String url) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            hash ^= c & 0xff;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Fills in the hash for every article that doesn't have one yet.
+     *
+     * @param db the database to update.
+     * @return the number of articles that were updated.
+     */
+    static int backfill(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("select " + ArticleModel.COLUMN_ID + ", " +
+                ArticleModel.COLUMN_URL + " from " + ArticleModel.TABLE + " where " +
+                ArticleModel.COLUMN_URL_HASH + " is null", null);
+
+        if (cursor == null) {
+            return 0;
+        }
+
+        int updated = 0;
+        SQLiteStatement statement = db.compileStatement("update " + ArticleModel.TABLE +
+                " set " + ArticleModel.COLUMN_URL_HASH + "=? where " + ArticleModel.COLUMN_ID +
+                "=?");
+        try {
+            while (cursor.moveToNext()) {
+                statement.bindLong(1, hash(cursor.getString(1)));
+                statement.bindLong(2, cursor.getLong(0));
+                updated += statement.executeUpdateDelete();
+            }
+        } finally {
+            statement.close();
+            cursor.close();
+        }
+
+        return updated;
+    }
+
+    /**
+     * Rewrites every stored url that isn't canonical, along with its hash. Articles that
+     * canonicalize to a url that another article already has are left alone, since that one is
+     * what will be found from now on.
+     *
+     * @param db the database to update.
+     * @return the number of articles that were updated.
+     */
+    static int recanonicalize(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("select " + ArticleModel.COLUMN_ID + ", " +
+                ArticleModel.COLUMN_URL + " from " + ArticleModel.TABLE, null);
+
+        if (cursor == null) {
+            return 0;
+        }
+
+        int updated = 0;
+        SQLiteStatement statement = db.compileStatement("update or ignore " +
+                ArticleModel.TABLE + " set " + ArticleModel.COLUMN_URL + "=?, " +
+                ArticleModel.COLUMN_URL_HASH + "=? where " + ArticleModel.COLUMN_ID + "=?");
+        try {
+            while (cursor.moveToNext()) {
+                String url = cursor.getString(1);
+                String canonical = UrlCanonicalizer.canonicalize(url);
+                if (canonical.equals(url)) {
+                    continue;
+                }
+
+                statement.bindString(1, canonical);
+                statement.bindLong(2, hash(canonical));
+                statement.bindLong(3, cursor.getLong(0));
+                updated += statement.executeUpdateDelete();
+            }
+        } finally {
+            statement.close();
+            cursor.close();
+        }
+
+        return updated;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data.model;
+
+/**
+ * Other urls that an article was loaded from, such as the shortened link that was shared before
+ * the server resolved it. Each url can only point at one article, and is keyed by its hash the
+ * same way as the article table.
+ */
+public final class ArticleAliasModel implements DatabaseTable {
+
+    public static final String TABLE = "article_alias";
+    public static final String COLUMN_URL_HASH = "url_hash";
+    public static final String COLUMN_URL = "url";
+    public static final String COLUMN_ARTICLE_ID = "article_id";
+
+    private static final String DATABASE_CREATE = "create table if not exists " +
+            TABLE + " (" +
+            COLUMN_URL_HASH + " integer primary key, " +
+            COLUMN_URL + " text not null, " +
+            COLUMN_ARTICLE_ID + " integer not null" +
+            ");";
+
+    private static final String[] INDEXES = {
+            "create index if not exists article_alias_index on " + TABLE +
+                    " (" + COLUMN_ARTICLE_ID + ");"
+    };
+
+    @Override
+    public String getCreateStatement() {
+        return DATABASE_CREATE;
+    }
+
+    @Override
+    public String getTableName() {
+        return TABLE;
+    }
+
+    @Override
+    public String[] getIndexStatements() {
+        return INDEXES;
+    }
+
+}
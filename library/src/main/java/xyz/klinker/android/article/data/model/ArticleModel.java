@@ -36,12 +36,15 @@ public final class ArticleModel implements DatabaseTable {
     public static final String COLUMN_IS_ARTICLE = "is_article";
     public static final String COLUMN_SAVED = "saved";
     public static final String COLUMN_SOURCE_ID = "source_id";
+    public static final String COLUMN_LAST_READ_AT = "last_read_at";
+    public static final String COLUMN_URL_HASH = "url_hash";
 
+    // the url is only compared once the hash matches, so it doesn't need an index of its own
     private static final String DATABASE_CREATE = "create table if not exists " +
             TABLE + " (" +
             COLUMN_ID + " integer primary key, " +
             COLUMN_ALIAS + " text, " +
-            COLUMN_URL + " text not null unique, " +
+            COLUMN_URL + " text not null, " +
             COLUMN_TITLE + " text, " +
             COLUMN_DESCRIPTION + " text, " +
             COLUMN_IMAGE + " text, " +
@@ -52,14 +55,27 @@ public final class ArticleModel implements DatabaseTable {
             COLUMN_INSERTED_AT + " integer not null, " +
             COLUMN_IS_ARTICLE + " integer not null, " +
             COLUMN_SAVED + " integer not null, " +
-            COLUMN_SOURCE_ID + " integer " +
+            COLUMN_SOURCE_ID + " integer, " +
+            COLUMN_LAST_READ_AT + " integer not null default 0, " +
+            COLUMN_URL_HASH + " integer" +
             ");";
 
+    /**
+     * Urls are only unique by their 64-bit hash, which keeps the index small. If two different
+     * urls ever hashed to the same value, the second one wouldn't be stored. With 50,000 articles
+     * the chance of that is about 1 in 15 billion, so the risk is accepted.
+     */
     private static final String[] INDEXES = {
-            "create index if not exists url_article_index on " + TABLE +
-                    " (" + COLUMN_URL + ");",
-            "create index if not exists source_id_article_index on " + TABLE +
-                    " (" + COLUMN_SOURCE_ID + ");"
+            "create unique index if not exists url_hash_article_index on " + TABLE +
+                    " (" + COLUMN_URL_HASH + ");",
+            "create index if not exists source_id_inserted_at_article_index on " + TABLE +
+                    " (" + COLUMN_SOURCE_ID + ", " + COLUMN_INSERTED_AT + ");",
+            "create index if not exists last_read_article_index on " + TABLE +
+                    " (" + COLUMN_SAVED + ", " + COLUMN_LAST_READ_AT + ");",
+            "create index if not exists inserted_at_article_index on " + TABLE +
+                    " (" + COLUMN_INSERTED_AT + ");",
+            "create index if not exists saved_inserted_at_article_index on " + TABLE +
+                    " (" + COLUMN_SAVED + ", " + COLUMN_INSERTED_AT + ");"
     };
 
     @Override
@@ -27,12 +27,18 @@ public final class ContentModel implements DatabaseTable {
     public static final String COLUMN_ID = "_id";
     public static final String COLUMN_ARTICLE_ID = "article_id";
     public static final String COLUMN_CONTENT = "content";
+    public static final String COLUMN_CODEC = "codec";
+    public static final String COLUMN_COMPRESSED = "compressed";
+    public static final String COLUMN_BLOCKS = "blocks";
 
     private static final String DATABASE_CREATE = "create table if not exists " +
             TABLE + " (" +
             COLUMN_ID + " integer primary key, " +
             COLUMN_ARTICLE_ID + " integer not null, " +
-            COLUMN_CONTENT + " text" +
+            COLUMN_CONTENT + " text, " +
+            COLUMN_CODEC + " integer not null default 0, " +
+            COLUMN_COMPRESSED + " blob, " +
+            COLUMN_BLOCKS + " blob" +
             ");";
 
     private static final String[] INDEXES = {
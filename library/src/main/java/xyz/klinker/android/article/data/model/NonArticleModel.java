@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data.model;
+
+/**
+ * Urls and domains that the server said weren't articles, so that opening them again can go
+ * straight to the browser instead of waiting on the parser. Each entry is keyed by the hash of
+ * its url or domain, and only counts until it is older than the time to live.
+ */
+public final class NonArticleModel implements DatabaseTable {
+
+    public static final String TABLE = "non_article";
+    public static final String COLUMN_KEY_HASH = "key_hash";
+    public static final String COLUMN_TYPE = "type";
+    public static final String COLUMN_KEY = "key";
+    public static final String COLUMN_COUNT = "count";
+    public static final String COLUMN_HITS = "hits";
+    public static final String COLUMN_RECORDED_AT = "recorded_at";
+
+    /**
+     * The entry is for a single url.
+     */
+    public static final int TYPE_URL = 0;
+
+    /**
+     * The entry is for every url on a domain. The count is the number of urls on the domain that
+     * weren't articles.
+     */
+    public static final int TYPE_DOMAIN = 1;
+
+    /**
+     * Finds an entry by the hash of its url or domain.
+     */
+    public static final String WHERE_KEY_HASH = COLUMN_KEY_HASH + "=?";
+
+    /**
+     * Finds the entries that were recorded on or before the given time.
+     */
+    public static final String WHERE_EXPIRED = COLUMN_RECORDED_AT + " <= ?";
+
+    private static final String DATABASE_CREATE = "create table if not exists " +
+            TABLE + " (" +
+            COLUMN_KEY_HASH + " integer primary key, " +
+            COLUMN_TYPE + " integer not null, " +
+            COLUMN_KEY + " text not null, " +
+            COLUMN_COUNT + " integer not null default 0, " +
+            COLUMN_HITS + " integer not null default 0, " +
+            COLUMN_RECORDED_AT + " integer not null" +
+            ");";
+
+    private static final String[] INDEXES = {
+            "create index if not exists non_article_recorded_at_index on " + TABLE +
+                    " (" + COLUMN_RECORDED_AT + ");"
+    };
+
+    @Override
+    public String getCreateStatement() {
+        return DATABASE_CREATE;
+    }
+
+    @Override
+    public String getTableName() {
+        return TABLE;
+    }
+
+    @Override
+    public String[] getIndexStatements() {
+        return INDEXES;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data.model;
+
+/**
+ * Number of articles inserted for each source on each day, so that the category counts can add
+ * up a few buckets instead of grouping every article. This is kept up to date by triggers on the
+ * article table, which are created along with the table. Counts are kept per source instead of
+ * per category, so that they stay correct when a source moves to another category.
+ */
+public final class SourceDayCountModel implements DatabaseTable {
+
+    public static final String TABLE = "source_day_count";
+    public static final String COLUMN_SOURCE_ID = "source_id";
+    public static final String COLUMN_DAY = "day";
+    public static final String COLUMN_COUNT = "count";
+
+    /**
+     * The length of a bucket. Days are counted from the epoch in UTC.
+     */
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final String NEW_DAY =
+            "new." + ArticleModel.COLUMN_INSERTED_AT + " / " + DAY_MILLIS;
+    private static final String OLD_DAY =
+            "old." + ArticleModel.COLUMN_INSERTED_AT + " / " + DAY_MILLIS;
+
+    private static final String DATABASE_CREATE = "create table if not exists " +
+            TABLE + " (" +
+            COLUMN_SOURCE_ID + " integer not null, " +
+            COLUMN_DAY + " integer not null, " +
+            COLUMN_COUNT + " integer not null, " +
+            "primary key (" + COLUMN_SOURCE_ID + ", " + COLUMN_DAY + ")" +
+            ");";
+
+    private static final String INCREMENT =
+            "insert or ignore into " + TABLE + " select new." + ArticleModel.COLUMN_SOURCE_ID +
+                    ", " + NEW_DAY + ", 0 where new." + ArticleModel.COLUMN_SOURCE_ID +
+                    " not null; " +
+            "update " + TABLE + " set " + COLUMN_COUNT + " = " + COLUMN_COUNT + " + 1 where " +
+                    COLUMN_SOURCE_ID + " = new." + ArticleModel.COLUMN_SOURCE_ID + " and " +
+                    COLUMN_DAY + " = " + NEW_DAY + "; ";
+
+    private static final String DECREMENT =
+            "update " + TABLE + " set " + COLUMN_COUNT + " = " + COLUMN_COUNT + " - 1 where " +
+                    COLUMN_SOURCE_ID + " = old." + ArticleModel.COLUMN_SOURCE_ID + " and " +
+                    COLUMN_DAY + " = " + OLD_DAY + "; " +
+            "delete from " + TABLE + " where " +
+                    COLUMN_SOURCE_ID + " = old." + ArticleModel.COLUMN_SOURCE_ID + " and " +
+                    COLUMN_DAY + " = " + OLD_DAY + " and " + COLUMN_COUNT + " <= 0; ";
+
+    private static final String[] INDEXES = {
+            "create trigger if not exists article_insert_day_count after insert on " +
+                    ArticleModel.TABLE + " begin " + INCREMENT + "end;",
+            "create trigger if not exists article_delete_day_count after delete on " +
+                    ArticleModel.TABLE + " begin " + DECREMENT + "end;",
+            "create trigger if not exists article_update_day_count after update of " +
+                    ArticleModel.COLUMN_INSERTED_AT + ", " + ArticleModel.COLUMN_SOURCE_ID +
+                    " on " + ArticleModel.TABLE + " begin " + DECREMENT + INCREMENT + "end;"
+    };
+
+    /**
+     * Fills the table from the articles that are already stored.
+     */
+    public static final String BACKFILL = "insert or replace into " + TABLE +
+            " select " + ArticleModel.COLUMN_SOURCE_ID + ", " +
+            ArticleModel.COLUMN_INSERTED_AT + " / " + DAY_MILLIS + ", count(*) from " +
+            ArticleModel.TABLE + " where " + ArticleModel.COLUMN_SOURCE_ID + " not null " +
+            "group by 1, 2;";
+
+    @Override
+    public String getCreateStatement() {
+        return DATABASE_CREATE;
+    }
+
+    @Override
+    public String getTableName() {
+        return TABLE;
+    }
+
+    /**
+     * The triggers that keep the counts up to date.
+     */
+    @Override
+    public String[] getIndexStatements() {
+        return INDEXES;
+    }
+
+}
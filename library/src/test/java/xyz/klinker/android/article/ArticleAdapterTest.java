@@ -20,13 +20,15 @@ import android.app.Activity;
 import android.view.ViewGroup;
 import android.widget.LinearLayout;
 
-import org.jsoup.select.Elements;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.robolectric.Robolectric;
 
+import java.util.List;
+
 import xyz.klinker.android.article.data.Article;
+import xyz.klinker.android.article.data.ArticleBlock;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -38,7 +40,7 @@ public class ArticleAdapterTest extends ArticleRobolectricSuite {
     private ArticleAdapter adapter;
 
     @Mock
-    private Elements elements;
+    private List<ArticleBlock> blocks;
 
     @Before
     public void setUp() {
@@ -229,8 +231,8 @@ public class ArticleAdapterTest extends ArticleRobolectricSuite {
 
     @Test
     public void getItemCount_headerAndElements() {
-        when(elements.size()).thenReturn(12);
-        adapter.addElements(elements);
+        when(blocks.size()).thenReturn(12);
+        adapter.addBlocks(blocks);
         article.title = "test title";
         assertEquals(14, adapter.getItemCount());
     }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import android.database.sqlite.SQLiteDiskIOException;
+import android.database.sqlite.SQLiteFullException;
+
+import org.junit.Test;
+import org.mockito.Mock;
+import org.robolectric.RuntimeEnvironment;
+
+import xyz.klinker.android.article.data.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ArticleCacheEvictorTest extends ArticleRobolectricSuite {
+
+    @Mock
+    private DataSource source;
+
+    @Test
+    public void databaseErrorsDoNotStopTheRun() {
+        when(source.enableIncrementalVacuum()).thenThrow(new SQLiteFullException());
+        when(source.deleteExpiredNonArticles()).thenThrow(new SQLiteDiskIOException());
+        when(source.evictArticles(anyLong(), anyInt())).thenThrow(new SQLiteFullException());
+        when(source.getDatabaseSize()).thenReturn(1024L);
+
+        ArticleCacheEvictor evictor = ArticleCacheEvictor.get(RuntimeEnvironment.application);
+        evictor.evict(source);
+
+        verify(source).getDatabaseSize();
+        assertEquals(0, evictor.getStats().getLastRunEvicted());
+        assertEquals(1024L, evictor.getStats().getDatabaseBytes());
+        assertTrue(evictor.getStats().getLastRunAt() > 0);
+    }
+
+    @Test
+    public void reclaimErrorStillCountsEvictedArticles() {
+        when(source.evictArticles(anyLong(), anyInt())).thenReturn(3);
+        doThrow(new SQLiteFullException()).when(source).reclaimSpace();
+
+        ArticleCacheEvictor evictor = ArticleCacheEvictor.get(RuntimeEnvironment.application);
+        evictor.evict(source);
+
+        assertEquals(3, evictor.getStats().getLastRunEvicted());
+    }
+}
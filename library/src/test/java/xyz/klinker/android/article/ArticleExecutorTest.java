@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import xyz.klinker.android.article.ArticleExecutor.Lane;
+import xyz.klinker.android.article.ArticleExecutor.Priority;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleExecutorTest extends ArticleRobolectricSuite {
+
+    @Test
+    public void userWorkRunsBeforeBackgroundWork() throws Exception {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(3);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        // the database lane only has a single thread, so block it while the rest is queued
+        ArticleExecutor.get().execute(Lane.DATABASE, Priority.USER, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocker.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) { }
+            }
+        });
+
+        ArticleExecutor.get().execute(Lane.DATABASE, Priority.BACKGROUND,
+                new RecordingRunnable("background 1", order, finished));
+        ArticleExecutor.get().execute(Lane.DATABASE, Priority.BACKGROUND,
+                new RecordingRunnable("background 2", order, finished));
+        ArticleExecutor.get().execute(Lane.DATABASE, Priority.USER,
+                new RecordingRunnable("user", order, finished));
+
+        blocker.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        assertEquals("user", order.get(0));
+        assertEquals("background 1", order.get(1));
+        assertEquals("background 2", order.get(2));
+    }
+
+    @Test
+    public void statsTrackSubmittedWork() throws Exception {
+        long submitted = ArticleExecutor.get().getStats(Lane.PARSE).getSubmittedCount();
+        final CountDownLatch finished = new CountDownLatch(1);
+
+        ArticleExecutor.get().execute(Lane.PARSE, Priority.USER, new Runnable() {
+            @Override
+            public void run() {
+                finished.countDown();
+            }
+        });
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        ArticleExecutor.LaneStats stats = ArticleExecutor.get().getStats(Lane.PARSE);
+        assertEquals(submitted + 1, stats.getSubmittedCount());
+        assertTrue(stats.getThreadCount() <= 2);
+    }
+
+    private static final class RecordingRunnable implements Runnable {
+
+        private final String name;
+        private final List<String> order;
+        private final CountDownLatch finished;
+
+        private RecordingRunnable(String name, List<String> order, CountDownLatch finished) {
+            this.name = name;
+            this.order = order;
+            this.finished = finished;
+        }
+
+        @Override
+        public void run() {
+            order.add(name);
+            finished.countDown();
+        }
+    }
+}
@@ -41,12 +41,14 @@ public abstract class ArticleRealDataSuite extends ArticleRobolectricSuite {
 
     @Before
     public void setUp() throws Exception {
-        SQLiteDatabase database = SQLiteDatabase.create(null);
+        SQLiteDatabase database = SQLiteDatabase.create(getCursorFactory());
         helper = new DatabaseSQLiteHelper(RuntimeEnvironment.application);
         helper.onCreate(database);
 
         source = new DataSource(database);
         insertData();
+        source.backfillUrlHashes();
+        source.rebuildSearchIndex();
     }
 
     @After
@@ -54,6 +56,13 @@ public abstract class ArticleRealDataSuite extends ArticleRobolectricSuite {
         helper.close();
     }
 
+    /**
+     * Lets a suite see every query that is run against the database.
+     */
+    protected SQLiteDatabase.CursorFactory getCursorFactory() {
+        return null;
+    }
+
     private void insertData() throws Exception {
         SQLiteDatabase database = source.getDatabase();
         FixtureLoader loader = new FixtureLoader();
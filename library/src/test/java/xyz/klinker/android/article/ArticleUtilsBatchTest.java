@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import xyz.klinker.android.article.api.TestArticleApi;
+import xyz.klinker.android.article.data.Article;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleUtilsBatchTest extends ArticleRealDataSuite {
+
+    private MockWebServer server;
+    private ArticleUtils utils;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        utils = new ArticleUtils(
+                TestArticleApi.create(server.url("/v1/").toString(), "test token"));
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void loadsArticlesInOneBatch() throws Exception {
+        server.setDispatcher(new TestDispatcher(true));
+
+        List<Article> articles = utils.loadArticlesSync(
+                Arrays.asList("http://batch.com/1", "http://batch.com/2"), source, null, null);
+
+        assertEquals(2, articles.size());
+        assertEquals("http://resolved.com/1", articles.get(0).url);
+        assertEquals("http://resolved.com/2", articles.get(1).url);
+        assertNotEquals(0, articles.get(0).id);
+        assertNotNull(source.getArticle("http://batch.com/2").content);
+        assertEquals(articles.get(1).id, source.getArticle("http://resolved.com/2").id);
+        assertEquals(1, server.getRequestCount());
+
+        RecordedRequest request = server.takeRequest();
+        assertTrue(request.getPath().startsWith("/v1/parse/batch"));
+    }
+
+    @Test
+    public void fallsBackToSingleParseRequests() throws Exception {
+        server.setDispatcher(new TestDispatcher(false));
+
+        List<Article> articles = utils.loadArticlesSync(
+                Arrays.asList("http://batch.com/1", "http://batch.com/2"), source, null, null);
+
+        assertEquals(2, articles.size());
+        assertEquals("http://resolved.com/1", articles.get(0).url);
+        assertEquals("http://resolved.com/2", articles.get(1).url);
+        assertNotNull(source.getArticle("http://batch.com/1").content);
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void storesOneArticleForLinksThatResolveToTheSamePage() throws Exception {
+        server.setDispatcher(new TestDispatcher(false));
+
+        List<Article> articles = utils.loadArticlesSync(
+                Arrays.asList("http://batch.com/1", "http://short.com/1"), source, null, null);
+
+        assertEquals(2, articles.size());
+        assertEquals(articles.get(0).id, articles.get(1).id);
+        assertEquals(articles.get(0).id, source.getArticle("http://short.com/1").id);
+        assertEquals(articles.get(0).id, source.getArticle("http://www.batch.com/1/").id);
+    }
+
+    @Test
+    public void doesNotRequestCachedArticles() throws Exception {
+        server.setDispatcher(new TestDispatcher(true));
+
+        List<Article> articles = utils.loadArticlesSync(
+                Collections.singletonList("http://test.com/"), source, null, null);
+
+        assertEquals(1, articles.size());
+        assertEquals("First test article content.", articles.get(0).content);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void doesNotRequestKnownNonArticles() throws Exception {
+        server.enqueue(new MockResponse().setBody(
+                "[{\"url\":\"http://video.com/1\",\"is_article\":false}]"));
+
+        List<Article> first = utils.loadArticlesSync(
+                Collections.singletonList("http://video.com/1"), source, null, null);
+        List<Article> second = utils.loadArticlesSync(
+                Collections.singletonList("http://video.com/1?utm_source=test"), source,
+                null, null);
+
+        assertFalse(first.get(0).isArticle);
+        assertFalse(second.get(0).isArticle);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, source.getNonArticleStats().getUrlHits());
+    }
+
+    @Test
+    public void reportsTimelineForCachedArticle() throws Exception {
+        final List<ArticleLoadTimeline> timelines = new ArrayList<>();
+        ArticleUtils.setTimingListener(new ArticleLoadTimingListener() {
+            @Override
+            public void onArticleLoadFinished(ArticleLoadTimeline timeline) {
+                timelines.add(timeline);
+            }
+        });
+
+        try {
+            List<Article> articles = utils.loadArticlesSync(
+                    Collections.singletonList("http://test.com/"), source, null, null);
+            assertEquals(0, timelines.size());
+
+            utils.finishTimeline(articles.get(0));
+        } finally {
+            ArticleUtils.setTimingListener(null);
+        }
+
+        assertEquals(1, timelines.size());
+        ArticleLoadTimeline timeline = timelines.get(0);
+        assertEquals("http://test.com/", timeline.getUrl());
+        assertTrue(timeline.isCacheHit());
+        assertTrue(timeline.getDurationMillis(ArticleLoadTimeline.Stage.DATABASE_LOOKUP) >= 0);
+        assertEquals(-1, timeline.getDurationMillis(ArticleLoadTimeline.Stage.NETWORK), 0);
+        assertEquals(-1, timeline.getElementCount());
+    }
+
+    private static final class TestDispatcher extends Dispatcher {
+
+        private final boolean supportsBatch;
+
+        private TestDispatcher(boolean supportsBatch) {
+            this.supportsBatch = supportsBatch;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if (request.getPath().startsWith("/v1/parse/batch")) {
+                if (supportsBatch) {
+                    return new MockResponse().setBody(
+                            "[" + article("1") + "," + article("2") + "]");
+                } else {
+                    return new MockResponse().setResponseCode(404);
+                }
+            } else if (request.getPath().startsWith("/v1/parse")) {
+                String id = request.getRequestUrl().queryParameter("url").endsWith("1") ? "1" : "2";
+                return new MockResponse().setBody(article(id));
+            } else {
+                return new MockResponse().setResponseCode(404);
+            }
+        }
+
+        private static String article(String id) {
+            return "{\"url\":\"http://resolved.com/" + id + "\",\"title\":\"article " + id +
+                    "\",\"content\":\"<p>content " + id + "</p>\",\"is_article\":true}";
+        }
+    }
+}
@@ -16,8 +16,13 @@
 
 package xyz.klinker.android.article;
 
+import org.jsoup.Jsoup;
 import org.junit.Test;
 
+import java.util.List;
+
+import xyz.klinker.android.article.data.ArticleBlock;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -25,6 +30,23 @@ import static org.junit.Assert.assertTrue;
 
 public class ArticleUtilsTest extends ArticleRobolectricSuite {
 
+    @Test
+    public void toBlocks() {
+        List<ArticleBlock> blocks = ArticleUtils.toBlocks(Jsoup.parse(
+                "<p> paragraph </p><ol><li>item</li></ol><img src=\"http://test.com/a.png\">")
+                .select("p,li,img"));
+
+        assertEquals(3, blocks.size());
+        assertEquals(new ArticleBlock("p", "paragraph", null, null), blocks.get(0));
+        assertEquals(new ArticleBlock("li", "item", null, "ol"), blocks.get(1));
+        assertEquals(new ArticleBlock("img", null, "http://test.com/a.png", null), blocks.get(2));
+    }
+
+    @Test
+    public void toBlocks_null() {
+        assertNull(ArticleUtils.toBlocks(null));
+    }
+
     @Test
     public void jpgIsImageUrl() {
         assertTrue(ArticleUtils.isImageUrl("http://google.com/image.jpg"));
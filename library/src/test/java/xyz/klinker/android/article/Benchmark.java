@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import java.util.Locale;
+
+/**
+ * JUnit category for tests that only time something and print the result. They are slow and
+ * their numbers depend on the machine, so the normal test run skips them. Run them on their own
+ * with {@code ./gradlew test -Pbenchmark}.
+ */
+public final class Benchmark {
+
+    private Benchmark() {
+
+    }
+
+    /**
+     * Prints how long something took, in milliseconds.
+     */
+    public static void print(String name, long nanos) {
+        report(String.format(Locale.US, "%s: %.2f ms", name, nanos / 1000000.0));
+    }
+
+    /**
+     * Prints a line of results.
+     */
+    public static void report(String result) {
+        System.out.println(result);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Test;
+import org.mockito.Mock;
+import org.robolectric.shadows.ShadowLooper;
+
+import xyz.klinker.android.article.data.Article;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class PendingArticleLoadTest extends ArticleRobolectricSuite {
+
+    @Mock
+    private ArticleLoadedListener first;
+    @Mock
+    private ArticleLoadedListener second;
+
+    @Test
+    public void allCallbacksReceiveTheSameArticle() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        PendingArticleLoad pending = new PendingArticleLoad();
+        pending.addCallback(first, handler);
+        pending.addCallback(second, handler);
+
+        Article article = new Article();
+        pending.complete(article);
+        ShadowLooper.runUiThreadTasks();
+
+        verify(first).onArticleLoaded(article);
+        verify(second).onArticleLoaded(article);
+        assertEquals(article, pending.await());
+    }
+
+    @Test
+    public void callbackAddedAfterCompletionStillReceivesArticle() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        PendingArticleLoad pending = new PendingArticleLoad();
+
+        Article article = new Article();
+        pending.complete(article);
+        pending.addCallback(first, handler);
+        ShadowLooper.runUiThreadTasks();
+
+        verify(first).onArticleLoaded(article);
+    }
+
+    @Test
+    public void nullHandlerIsIgnored() {
+        PendingArticleLoad pending = new PendingArticleLoad();
+        pending.addCallback(first, null);
+        pending.complete(new Article());
+
+        verifyZeroInteractions(first);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class UrlCanonicalizerTest extends ArticleSuite {
+
+    @Test
+    public void canonicalize_null() {
+        assertNull(UrlCanonicalizer.canonicalize(null));
+    }
+
+    @Test
+    public void canonicalize_notAUrl() {
+        assertEquals("blah", UrlCanonicalizer.canonicalize(" blah#top "));
+    }
+
+    @Test
+    public void canonicalize_alreadyCanonical() {
+        assertEquals("https://example.com/2017/article",
+                UrlCanonicalizer.canonicalize("https://example.com/2017/article"));
+        assertEquals("http://test.com/", UrlCanonicalizer.canonicalize("http://test.com/"));
+    }
+
+    @Test
+    public void canonicalize_hostAndScheme() {
+        assertEquals("https://example.com/Article",
+                UrlCanonicalizer.canonicalize("HTTPS://WWW.Example.com:443/Article"));
+        assertEquals("http://example.com:8080/article",
+                UrlCanonicalizer.canonicalize("http://example.com:8080/article"));
+        assertEquals("http://example.com/", UrlCanonicalizer.canonicalize("http://example.com"));
+    }
+
+    @Test
+    public void canonicalize_mobileSubdomains() {
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize("https://m.example.com/article"));
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize("https://mobile.example.com/article"));
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize("https://amp.example.com/article"));
+        assertEquals("https://m.me/page", UrlCanonicalizer.canonicalize("https://m.me/page"));
+    }
+
+    @Test
+    public void canonicalize_trailingSlashAndFragment() {
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize("https://example.com/article/#comments"));
+    }
+
+    @Test
+    public void canonicalize_ampVariants() {
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize("https://example.com/article/amp/"));
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize("https://example.com/article.amp"));
+        assertEquals("https://example.com/article.html",
+                UrlCanonicalizer.canonicalize("https://example.com/article.amp.html"));
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize("https://example.com/article?amp=1"));
+        assertEquals("https://example.com/article?id=5",
+                UrlCanonicalizer.canonicalize("https://example.com/article?outputType=amp&id=5"));
+    }
+
+    @Test
+    public void canonicalize_ampCaches() {
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize("https://www.google.com/amp/s/example.com/article"));
+        assertEquals("http://example.com/article",
+                UrlCanonicalizer.canonicalize(
+                        "https://www.google.com/amp/example.com/article/amp"));
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize(
+                        "https://example-com.cdn.ampproject.org/c/s/www.example.com/article"));
+    }
+
+    @Test
+    public void canonicalize_trackingParameters() {
+        assertEquals("https://example.com/article",
+                UrlCanonicalizer.canonicalize(
+                        "https://example.com/article?utm_source=twitter&utm_medium=social"));
+        assertEquals("https://example.com/article?page=2&sort=new",
+                UrlCanonicalizer.canonicalize(
+                        "https://example.com/article?page=2&fbclid=abc&&sort=new&UTM_campaign=x"));
+    }
+
+    @Test
+    public void canonicalize_keepsParameters() {
+        assertEquals("https://example.com/watch?v=123",
+                UrlCanonicalizer.canonicalize("https://example.com/watch?v=123"));
+        assertEquals("https://example.com/?p=42",
+                UrlCanonicalizer.canonicalize("https://www.example.com?p=42"));
+    }
+
+    @Test
+    public void getDomain() {
+        assertEquals("example.com", UrlCanonicalizer.getDomain("https://www.example.com/article"));
+        assertEquals("example.com", UrlCanonicalizer.getDomain("http://EXAMPLE.com:8080?p=1"));
+        assertEquals("[::1]", UrlCanonicalizer.getDomain("http://[::1]:8080/article"));
+    }
+
+    @Test
+    public void getDomain_notAbsolute() {
+        assertNull(UrlCanonicalizer.getDomain("example.com/article"));
+        assertNull(UrlCanonicalizer.getDomain(null));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import okhttp3.Cache;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import xyz.klinker.android.article.ArticleRobolectricSuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ArticleApiTest extends ArticleRobolectricSuite {
+
+    private MockWebServer server;
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        baseUrl = server.url("/v1/").toString();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void eachApiSendsItsOwnToken() throws Exception {
+        server.enqueue(new MockResponse().setBody("{}"));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        new ArticleApi(baseUrl, "first token").article().parse("http://test.com");
+        new ArticleApi(baseUrl, "second token").article().parse("http://test.com");
+
+        assertEquals("first token",
+                server.takeRequest().getRequestUrl().queryParameter("api_token"));
+        assertEquals("second token",
+                server.takeRequest().getRequestUrl().queryParameter("api_token"));
+    }
+
+    @Test
+    public void revalidatesCachedResponses() throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                "article-http-cache-" + System.nanoTime());
+        ArticleApi.enableCache(directory, ArticleApi.DEFAULT_CACHE_SIZE);
+        HttpCacheStats before = ArticleApi.getCacheStats();
+
+        server.enqueue(new MockResponse()
+                .setBody("{\"title\":\"test\"}")
+                .setHeader("ETag", "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+
+        ArticleApi api = new ArticleApi(baseUrl, "cache token");
+        assertEquals("test", api.article().parse("http://test.com").title);
+        assertEquals("test", api.article().parse("http://test.com").title);
+
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+
+        HttpCacheStats after = ArticleApi.getCacheStats();
+        assertEquals(before.getMissCount() + 1, after.getMissCount());
+        assertEquals(before.getConditionalHitCount() + 1, after.getConditionalHitCount());
+    }
+
+    @Test
+    public void keepsOpenCacheForSameDirectory() {
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                "article-http-cache-" + System.nanoTime());
+        ArticleApi.enableCache(directory, ArticleApi.DEFAULT_CACHE_SIZE);
+        Cache cache = ArticleApi.getCache();
+
+        ArticleApi.enableCache(directory, ArticleApi.DEFAULT_CACHE_SIZE * 2);
+        assertSame(cache, ArticleApi.getCache());
+        assertEquals(ArticleApi.DEFAULT_CACHE_SIZE, ArticleApi.getCache().maxSize());
+    }
+
+    @Test
+    public void reusesServiceForSameToken() {
+        ArticleService first = new ArticleApi(baseUrl, "token").article();
+        ArticleService second = new ArticleApi(baseUrl, "token").article();
+        assertSame(first, second);
+    }
+}
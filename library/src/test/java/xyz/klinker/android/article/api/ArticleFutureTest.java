@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import xyz.klinker.android.article.ArticleRobolectricSuite;
+import xyz.klinker.android.article.data.Article;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArticleFutureTest extends ArticleRobolectricSuite {
+
+    private MockWebServer server;
+    private ArticleApi api;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        api = new ArticleApi(server.url("/v1/").toString(), "test token");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void success() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"title\":\"test title\",\"is_article\":true}"));
+
+        ArticleFuture<Article> future = api.article().parseAsync("http://test.com");
+        Article article = future.get(5, TimeUnit.SECONDS);
+
+        assertEquals("test title", article.title);
+        assertTrue(article.isArticle);
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    public void httpError() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        ArticleApiException exception = getFailure(api.article().parseAsync("http://test.com"));
+        assertEquals(ArticleApiException.Type.HTTP, exception.getType());
+        assertEquals(500, exception.getCode());
+    }
+
+    @Test
+    public void parseError() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"title\": [unclosed"));
+
+        ArticleApiException exception = getFailure(api.article().parseAsync("http://test.com"));
+        assertEquals(ArticleApiException.Type.PARSE, exception.getType());
+    }
+
+    @Test
+    public void networkError() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+
+        ArticleApiException exception = getFailure(api.article().parseAsync("http://test.com"));
+        assertEquals(ArticleApiException.Type.NETWORK, exception.getType());
+    }
+
+    @Test
+    public void responseTooLarge() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 4096; i++) {
+            content.append("<p>paragraph</p>");
+        }
+
+        server.enqueue(new MockResponse().setChunkedBody(
+                "{\"content\":\"" + content + "\"}", 1024));
+        server.enqueue(new MockResponse().setBody(
+                "{\"content\":\"" + content + "\"}"));
+
+        ArticleApi.setMaxResponseSize(16 * 1024);
+        try {
+            // chunked, so the size is only known while reading
+            ArticleApiException exception =
+                    getFailure(api.article().parseAsync("http://test.com"));
+            assertEquals(ArticleApiException.Type.TOO_LARGE, exception.getType());
+
+            // known up front from the Content-Length
+            exception = getFailure(api.article().parseAsync("http://test.com"));
+            assertEquals(ArticleApiException.Type.TOO_LARGE, exception.getType());
+        } finally {
+            ArticleApi.setMaxResponseSize(ArticleApi.DEFAULT_MAX_RESPONSE_SIZE);
+        }
+    }
+
+    @Test
+    public void batchLimitGrowsWithUrls() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 640; i++) {
+            content.append("<p>paragraph</p>");
+        }
+
+        // each article is under the limit, but the whole batch is over it
+        String article = "{\"content\":\"" + content + "\",\"is_article\":true}";
+        server.enqueue(new MockResponse().setBody("[" + article + "," + article + "]"));
+
+        ArticleApi.setMaxResponseSize(16 * 1024);
+        try {
+            Article[] articles = api.article().parseBatch(
+                    Arrays.asList("http://test.com/1", "http://test.com/2"));
+            assertEquals(2, articles.length);
+            assertEquals(content.toString(), articles[1].getContent());
+        } finally {
+            ArticleApi.setMaxResponseSize(ArticleApi.DEFAULT_MAX_RESPONSE_SIZE);
+        }
+    }
+
+    private static ArticleApiException getFailure(ArticleFuture<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("expected the request to fail");
+            return null;
+        } catch (ExecutionException e) {
+            return (ArticleApiException) e.getCause();
+        }
+    }
+}
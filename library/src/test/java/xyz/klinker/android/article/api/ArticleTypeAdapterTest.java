@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.api;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import xyz.klinker.android.article.ArticleSuite;
+import xyz.klinker.android.article.Benchmark;
+import xyz.klinker.android.article.data.Article;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleTypeAdapterTest extends ArticleSuite {
+
+    private static final String ARTICLE_JSON = "{" +
+            "\"id\":1," +
+            "\"alias\":\"alias\"," +
+            "\"url\":\"http://test.com\"," +
+            "\"title\":\"test title\"," +
+            "\"description\":\"test description\"," +
+            "\"image\":\"http://test.com/image.jpg\"," +
+            "\"content\":\"<p>test paragraph</p>\"," +
+            "\"author\":\"jake klinker\"," +
+            "\"source\":\"google.com\"," +
+            "\"domain\":\"google.com\"," +
+            "\"duration\":3," +
+            "\"inserted_at\":4," +
+            "\"is_article\":true," +
+            "\"saved\":false," +
+            "\"source_id\":5," +
+            "\"source_model_name\":\"source name\"," +
+            "\"source_model_image_url\":\"http://test.com/source.png\"," +
+            "\"unknown_field\":{\"nested\":[1,2,3]}" +
+            "}";
+
+    private final Gson generated = new GsonBuilder()
+            .registerTypeAdapter(Article.class, new ArticleTypeAdapter())
+            .create();
+    private final Gson reflective = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+
+    @Test
+    public void readsAllFields() {
+        Article article = generated.fromJson(ARTICLE_JSON, Article.class);
+
+        assertEquals(1L, article.id);
+        assertEquals("alias", article.alias);
+        assertEquals("http://test.com", article.url);
+        assertEquals("test title", article.title);
+        assertEquals("test description", article.description);
+        assertEquals("http://test.com/image.jpg", article.image);
+        assertEquals("<p>test paragraph</p>", article.content);
+        assertEquals("jake klinker", article.author);
+        assertEquals("google.com", article.source);
+        assertEquals("google.com", article.domain);
+        assertEquals(3, article.duration);
+        assertEquals(4L, article.insertedAt);
+        assertTrue(article.isArticle);
+        assertFalse(article.saved);
+        assertEquals(Long.valueOf(5L), article.sourceId);
+        assertEquals("source name", article.sourceModelName);
+        assertEquals("http://test.com/source.png", article.sourceModelImageUrl);
+    }
+
+    @Test
+    public void matchesReflectiveAdapter() {
+        Article expected = reflective.fromJson(ARTICLE_JSON, Article.class);
+        Article actual = generated.fromJson(ARTICLE_JSON, Article.class);
+
+        assertEquals(reflective.toJson(expected), reflective.toJson(actual));
+    }
+
+    @Test
+    public void readsNulls() {
+        Article article = generated.fromJson(
+                "{\"title\":null,\"source_id\":null,\"is_article\":null}", Article.class);
+
+        assertNull(article.title);
+        assertNull(article.sourceId);
+        assertFalse(article.isArticle);
+    }
+
+    @Test
+    public void roundTrips() {
+        Article article = generated.fromJson(ARTICLE_JSON, Article.class);
+        Article copy = generated.fromJson(generated.toJson(article), Article.class);
+
+        assertEquals(reflective.toJson(article), reflective.toJson(copy));
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void benchmarkTrendingPayload() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) {
+                builder.append(",");
+            }
+            builder.append(ARTICLE_JSON);
+        }
+        String trending = builder.append("]").toString();
+
+        // warm up both paths before measuring
+        for (int i = 0; i < 50; i++) {
+            reflective.fromJson(trending, Article[].class);
+            generated.fromJson(trending, Article[].class);
+        }
+
+        long reflectiveNanos = time(reflective, trending);
+        long generatedNanos = time(generated, trending);
+
+        Benchmark.report("Article[100] reflective: " + reflectiveNanos / 1000 + "us/op, " +
+                "generated: " + generatedNanos / 1000 + "us/op");
+        assertEquals(100, generated.fromJson(trending, Article[].class).length);
+    }
+
+    private static long time(Gson gson, String json) {
+        int iterations = 200;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            gson.fromJson(json, Article[].class);
+        }
+
+        return (System.nanoTime() - start) / iterations;
+    }
+}
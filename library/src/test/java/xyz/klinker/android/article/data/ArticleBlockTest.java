@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import xyz.klinker.android.article.ArticleSuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleBlockTest extends ArticleSuite {
+
+    @Test
+    public void roundTrip() {
+        List<ArticleBlock> blocks = Arrays.asList(
+                new ArticleBlock("p", "some text with unicode: é中😀", null, null),
+                new ArticleBlock("li", "list item", null, "ul"),
+                new ArticleBlock("img", null, "http://test.com/image.png", null));
+
+        assertEquals(blocks, ArticleBlock.decode(ArticleBlock.encode(blocks)));
+    }
+
+    @Test
+    public void empty() {
+        List<ArticleBlock> decoded =
+                ArticleBlock.decode(ArticleBlock.encode(new ArrayList<ArticleBlock>()));
+        assertTrue(decoded.isEmpty());
+    }
+
+    @Test
+    public void unknownVersion() {
+        byte[] encoded = ArticleBlock.encode(
+                Arrays.asList(new ArticleBlock("p", "text", null, null)));
+        encoded[0] = 42;
+        assertNull(ArticleBlock.decode(encoded));
+    }
+
+    @Test
+    public void truncated() {
+        byte[] encoded = ArticleBlock.encode(
+                Arrays.asList(new ArticleBlock("p", "text", null, null)));
+        assertNull(ArticleBlock.decode(Arrays.copyOf(encoded, encoded.length - 2)));
+    }
+}
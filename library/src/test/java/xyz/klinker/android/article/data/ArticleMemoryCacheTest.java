@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import org.junit.Test;
+
+import xyz.klinker.android.article.ArticleSuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class ArticleMemoryCacheTest extends ArticleSuite {
+
+    @Test
+    public void getAndPut() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(ArticleMemoryCache.DEFAULT_MAX_BYTES);
+        assertNull(cache.get("http://test.com"));
+
+        Article article = article(1, "http://test.com", 10);
+        cache.put(article.url, article);
+
+        Article cached = cache.get("http://test.com");
+        assertNotNull(cached);
+        assertNotSame(article, cached);
+        assertEquals("http://test.com", cached.url);
+        assertEquals(article.getContent(), cached.getContent());
+
+        ArticleMemoryCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getArticleCount());
+        assertEquals(article.getEstimatedSize(), stats.getBytes());
+    }
+
+    @Test
+    public void copiesAreIsolated() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(ArticleMemoryCache.DEFAULT_MAX_BYTES);
+        Article article = article(1, "http://test.com", 10);
+        cache.put(article.url, article);
+
+        article.title = "changed";
+        cache.get("http://test.com").title = "changed again";
+
+        assertEquals("title", cache.get("http://test.com").title);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        Article first = article(1, "http://test.com/1", 100);
+        Article second = article(2, "http://test.com/2", 100);
+        Article third = article(3, "http://test.com/3", 100);
+        ArticleMemoryCache cache = new ArticleMemoryCache(
+                first.getEstimatedSize() + second.getEstimatedSize());
+
+        cache.put(first.url, first);
+        cache.put(second.url, second);
+        cache.get(first.url);
+        cache.put(third.url, third);
+
+        assertNotNull(cache.get(first.url));
+        assertNull(cache.get(second.url));
+        assertNotNull(cache.get(third.url));
+        assertEquals(1, cache.getStats().getEvictionCount());
+    }
+
+    @Test
+    public void skipsArticlesLargerThanCache() {
+        Article article = article(1, "http://test.com", 1000);
+        ArticleMemoryCache cache = new ArticleMemoryCache(article.getEstimatedSize() - 1);
+        cache.put(article.url, article);
+
+        assertNull(cache.get(article.url));
+        assertEquals(0, cache.getStats().getBytes());
+    }
+
+    @Test
+    public void removeById() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(ArticleMemoryCache.DEFAULT_MAX_BYTES);
+        Article article = article(1, "http://test.com", 10);
+        cache.put(article.url, article);
+
+        cache.remove(2);
+        assertNotNull(cache.get(article.url));
+
+        cache.remove(1);
+        assertNull(cache.get(article.url));
+        assertEquals(0, cache.getStats().getBytes());
+    }
+
+    @Test
+    public void skipsArticlesReadBeforeARemoval() {
+        ArticleMemoryCache cache = new ArticleMemoryCache(ArticleMemoryCache.DEFAULT_MAX_BYTES);
+        Article article = article(1, "http://test.com", 10);
+
+        long generation = cache.getGeneration();
+        cache.remove(1);
+        cache.put(article.url, article, generation);
+        assertNull(cache.get(article.url));
+
+        cache.put(article.url, article, cache.getGeneration());
+        assertNotNull(cache.get(article.url));
+    }
+
+    @Test
+    public void trimAndResize() {
+        Article first = article(1, "http://test.com/1", 100);
+        Article second = article(2, "http://test.com/2", 100);
+        ArticleMemoryCache cache = new ArticleMemoryCache(ArticleMemoryCache.DEFAULT_MAX_BYTES);
+        cache.put(first.url, first);
+        cache.put(second.url, second);
+
+        cache.trimToSize(second.getEstimatedSize());
+        assertNull(cache.get(first.url));
+        assertNotNull(cache.get(second.url));
+        assertEquals(ArticleMemoryCache.DEFAULT_MAX_BYTES, cache.getStats().getMaxBytes());
+
+        cache.setMaxBytes(0);
+        assertNull(cache.get(second.url));
+        assertEquals(0, cache.getStats().getArticleCount());
+    }
+
+    private static Article article(long id, String url, int contentLength) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < contentLength; i++) {
+            content.append('a');
+        }
+
+        Article article = new Article();
+        article.id = id;
+        article.url = url;
+        article.title = "title";
+        article.content = content.toString();
+        return article;
+    }
+}
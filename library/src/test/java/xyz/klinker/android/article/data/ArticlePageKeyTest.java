@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import org.junit.Test;
+
+import xyz.klinker.android.article.ArticleSuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class ArticlePageKeyTest extends ArticleSuite {
+
+    @Test
+    public void encodeAndDecode() {
+        ArticlePageKey key = new ArticlePageKey(1500000000000L, 42);
+        assertEquals("1500000000000:42", key.encode());
+        assertEquals(key, ArticlePageKey.decode(key.encode()));
+    }
+
+    @Test
+    public void after() {
+        Article article = new Article();
+        article.id = 3;
+        article.insertedAt = 10;
+
+        assertEquals(new ArticlePageKey(10, 3), ArticlePageKey.after(article));
+        assertNotEquals(new ArticlePageKey(10, 4), ArticlePageKey.after(article));
+    }
+
+    @Test
+    public void decode_invalid() {
+        assertNull(ArticlePageKey.decode(null));
+        assertNull(ArticlePageKey.decode(""));
+        assertNull(ArticlePageKey.decode("42"));
+        assertNull(ArticlePageKey.decode(":42"));
+        assertNull(ArticlePageKey.decode("abc:42"));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import androidx.paging.ItemKeyedDataSource;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import xyz.klinker.android.article.ArticleRealDataSuite;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArticlePagedDataSourceTest extends ArticleRealDataSuite {
+
+    @Test
+    public void loadsEveryArticleInPages() {
+        ArticlePagedDataSource paged = ArticlePagedDataSource.allArticles(source);
+        List<Article> loaded = new ArrayList<>();
+
+        paged.loadInitial(
+                new ItemKeyedDataSource.LoadInitialParams<ArticlePageKey>(null, 3, false),
+                new InitialCallback(loaded));
+        assertEquals(3, loaded.size());
+
+        int size;
+        do {
+            size = loaded.size();
+            ArticlePageKey key = paged.getKey(loaded.get(loaded.size() - 1));
+            paged.loadAfter(new ItemKeyedDataSource.LoadParams<>(key, 3), new Callback(loaded));
+        } while (loaded.size() > size);
+
+        assertEquals(8, loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals(8 - i, loaded.get(i).id);
+        }
+    }
+
+    @Test
+    public void loadsArticlesForSource() {
+        ArticlePagedDataSource paged = ArticlePagedDataSource.articlesForSource(source, 101);
+        List<Article> loaded = new ArrayList<>();
+
+        paged.loadInitial(
+                new ItemKeyedDataSource.LoadInitialParams<ArticlePageKey>(null, 10, false),
+                new InitialCallback(loaded));
+
+        assertEquals(2, loaded.size());
+        assertEquals(7, loaded.get(0).id);
+        assertEquals(5, loaded.get(1).id);
+    }
+
+    @Test
+    public void nothingBeforeTheFirstPage() {
+        ArticlePagedDataSource paged = ArticlePagedDataSource.allArticles(source);
+        List<Article> loaded = new ArrayList<>();
+
+        paged.loadBefore(new ItemKeyedDataSource.LoadParams<>(new ArticlePageKey(8, 8), 3),
+                new Callback(loaded));
+
+        assertEquals(0, loaded.size());
+    }
+
+    private static class InitialCallback extends ItemKeyedDataSource.LoadInitialCallback<Article> {
+
+        private final List<Article> loaded;
+
+        InitialCallback(List<Article> loaded) {
+            this.loaded = loaded;
+        }
+
+        @Override
+        public void onResult(List<Article> data, int position, int totalCount) {
+            loaded.addAll(data);
+        }
+
+        @Override
+        public void onResult(List<Article> data) {
+            loaded.addAll(data);
+        }
+    }
+
+    private static class Callback extends ItemKeyedDataSource.LoadCallback<Article> {
+
+        private final List<Article> loaded;
+
+        Callback(List<Article> loaded) {
+            this.loaded = loaded;
+        }
+
+        @Override
+        public void onResult(List<Article> data) {
+            loaded.addAll(data);
+        }
+    }
+}
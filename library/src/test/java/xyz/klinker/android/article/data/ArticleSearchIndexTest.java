@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import xyz.klinker.android.article.ArticleSuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleSearchIndexTest extends ArticleSuite {
+
+    @Test
+    public void buildMatchQuery() {
+        assertEquals("android articl*", ArticleSearchIndex.buildMatchQuery("Android articl"));
+    }
+
+    @Test
+    public void buildMatchQuery_stripsSyntax() {
+        assertEquals("title near or*",
+                ArticleSearchIndex.buildMatchQuery("title:\"NEAR\" OR -*"));
+    }
+
+    @Test
+    public void buildMatchQuery_empty() {
+        assertNull(ArticleSearchIndex.buildMatchQuery(null));
+        assertNull(ArticleSearchIndex.buildMatchQuery(" \" * "));
+    }
+
+    @Test
+    public void score_titleBeatsContent() {
+        double title = ArticleSearchIndex.score(matchinfo(10, new int[][] {
+                { 1, 1, 1 }, { 0, 0, 0 }, { 0, 0, 0 }, { 0, 3, 3 }
+        }));
+        double content = ArticleSearchIndex.score(matchinfo(10, new int[][] {
+                { 0, 1, 1 }, { 0, 0, 0 }, { 0, 0, 0 }, { 1, 3, 3 }
+        }));
+
+        assertTrue(title > content);
+    }
+
+    @Test
+    public void score_rareWordsCountMore() {
+        double rare = ArticleSearchIndex.score(matchinfo(100, new int[][] {
+                { 0, 0, 0 }, { 0, 0, 0 }, { 0, 0, 0 }, { 1, 1, 1 }
+        }));
+        double common = ArticleSearchIndex.score(matchinfo(100, new int[][] {
+                { 0, 0, 0 }, { 0, 0, 0 }, { 0, 0, 0 }, { 1, 90, 90 }
+        }));
+
+        assertTrue(rare > common);
+    }
+
+    /**
+     * Builds a matchinfo blob for a single phrase across the four indexed columns.
+     */
+    private static byte[] matchinfo(int rows, int[][] columns) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (3 + columns.length * 3))
+                .order(ByteOrder.nativeOrder());
+        buffer.putInt(1).putInt(columns.length).putInt(rows);
+        for (int[] column : columns) {
+            buffer.putInt(column[0]).putInt(column[1]).putInt(column[2]);
+        }
+
+        return buffer.array();
+    }
+}
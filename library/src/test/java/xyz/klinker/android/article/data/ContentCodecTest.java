@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import org.junit.Test;
+
+import xyz.klinker.android.article.ArticleSuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ContentCodecTest extends ArticleSuite {
+
+    @Test
+    public void roundTrip() {
+        String content = "<p>Some content with unicode: é中😀</p>";
+        byte[] compressed = ContentCodec.compress(content);
+        assertEquals(content, ContentCodec.decompress(ContentCodec.CODEC_DEFLATE, compressed));
+    }
+
+    @Test
+    public void compressesRepetitiveHtml() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("<p>This is paragraph number ").append(i).append(".</p>");
+        }
+
+        byte[] compressed = ContentCodec.compress(content.toString());
+        assertTrue(compressed.length < content.length() / 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownCodec() {
+        ContentCodec.decompress(42, ContentCodec.compress("test"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedContent() {
+        byte[] compressed = ContentCodec.compress("<p>some content that will be cut off</p>");
+        byte[] truncated = new byte[compressed.length / 2];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        ContentCodec.decompress(ContentCodec.CODEC_DEFLATE, truncated);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import xyz.klinker.android.article.ArticleRealDataSuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CursorMapperTest extends ArticleRealDataSuite {
+
+    @Test
+    public void mapAll_articles() {
+        Cursor cursor = source.getAllArticles();
+        List<Article> articles = new ArticleCursorMapper(cursor).mapAll();
+        assertEquals(8, articles.size());
+
+        cursor.moveToPosition(-1);
+        for (Article mapped : articles) {
+            cursor.moveToNext();
+            assertSameArticle(new Article(cursor), mapped);
+        }
+
+        cursor.close();
+    }
+
+    @Test
+    public void map_articleWithContent() {
+        Cursor cursor = source.rawQuery("select a.*, c.content, c.codec, c.compressed, c.blocks " +
+                "from article a join content c on a._id = c.article_id where a._id = 1");
+        cursor.moveToFirst();
+        Article article = new ArticleCursorMapper(cursor).map();
+        cursor.close();
+
+        assertEquals("First test article content.", article.getContent());
+        assertNull(article.getBlocks());
+    }
+
+    @Test
+    public void map_missingColumns() {
+        Cursor cursor = source.rawQuery("select url from article where _id = 2");
+        cursor.moveToFirst();
+        Article article = new ArticleCursorMapper(cursor).map();
+        cursor.close();
+
+        assertEquals("http://test.com/2", article.url);
+        assertEquals(0, article.id);
+        assertNull(article.title);
+        assertFalse(article.hasContent());
+    }
+
+    @Test
+    public void flyweight_reusesOneArticle() {
+        Cursor cursor = source.getAllArticles();
+        Article first = null;
+        int count = 0;
+        long lastInsertedAt = Long.MAX_VALUE;
+
+        for (Article article : new ArticleCursorMapper(cursor).flyweight()) {
+            if (first == null) {
+                first = article;
+            }
+
+            assertSame(first, article);
+            assertTrue(article.insertedAt <= lastInsertedAt);
+            lastInsertedAt = article.insertedAt;
+            count++;
+        }
+
+        cursor.close();
+        assertEquals(8, count);
+    }
+
+    @Test
+    public void mapAll_sources() {
+        List<Source> sources = source.getSources();
+        assertEquals(3, sources.size());
+        assertEquals("test 1", sources.get(0).name);
+        assertEquals(100, sources.get(0).remoteId);
+        assertEquals("http://test1", sources.get(0).imageUrl);
+        assertEquals("test", sources.get(0).categoryName);
+        assertEquals(Long.valueOf(1), sources.get(0).categoryId);
+    }
+
+    @Test
+    public void map_category() {
+        Cursor cursor = source.rawQuery("select 'news' as name, 4 as count");
+        cursor.moveToFirst();
+        Category category = new CategoryCursorMapper(cursor).map();
+        cursor.close();
+
+        assertEquals("news", category.name);
+        assertEquals(4, category.numberArticles);
+    }
+
+    private static void assertSameArticle(Article expected, Article actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.url, actual.url);
+        assertEquals(expected.title, actual.title);
+        assertEquals(expected.description, actual.description);
+        assertEquals(expected.image, actual.image);
+        assertEquals(expected.author, actual.author);
+        assertEquals(expected.source, actual.source);
+        assertEquals(expected.domain, actual.domain);
+        assertEquals(expected.duration, actual.duration);
+        assertEquals(expected.insertedAt, actual.insertedAt);
+        assertEquals(expected.isArticle, actual.isArticle);
+        assertEquals(expected.saved, actual.saved);
+        assertEquals(expected.sourceId, actual.sourceId);
+        assertEquals(expected.sourceModelName, actual.sourceModelName);
+        assertEquals(expected.sourceModelImageUrl, actual.sourceModelImageUrl);
+    }
+}
@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import xyz.klinker.android.article.ArticleRealDataSuite;
+import xyz.klinker.android.article.Benchmark;
+import xyz.klinker.android.article.data.model.ArticleModel;
+import xyz.klinker.android.article.data.model.ContentModel;
+import xyz.klinker.android.article.data.model.SourceModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rough timings for the database paths that are sensitive to performance, run on top of the
+ * fixture data. These print their results instead of asserting on them, since the numbers depend
+ * on the machine running the tests.
+ */
+@Category(Benchmark.class)
+public class DataSourceBenchmark extends ArticleRealDataSuite {
+
+    private static final int ARTICLE_COUNT = 500;
+    private static final int SOURCE_COUNT = 300;
+    private static final int SEARCH_ARTICLE_COUNT = 10000;
+    private static final int MAPPED_ARTICLE_COUNT = 5000;
+    private static final int LOOKUP_ARTICLE_COUNT = 50000;
+    private static final int LOOKUP_COUNT = 2000;
+
+    @Test
+    public void insertArticles() {
+        int existingArticles = count(ArticleModel.TABLE);
+        int existingContent = count(ContentModel.TABLE);
+
+        long start = System.nanoTime();
+        for (Article article : createArticles("legacy")) {
+            insertWithContentValues(article);
+        }
+        long legacy = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Article article : createArticles("single")) {
+            source.insertArticle(article);
+        }
+        long single = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        source.insertArticles(createArticles("bulk"));
+        long bulk = System.nanoTime() - start;
+
+        assertEquals(existingArticles + ARTICLE_COUNT * 3, count(ArticleModel.TABLE));
+        assertEquals(existingContent + ARTICLE_COUNT * 3, count(ContentModel.TABLE));
+
+        Benchmark.print("insert " + ARTICLE_COUNT + " articles, content values", legacy);
+        Benchmark.print("insert " + ARTICLE_COUNT + " articles, one at a time", single);
+        Benchmark.print("insert " + ARTICLE_COUNT + " articles, in bulk", bulk);
+    }
+
+    @Test
+    public void syncSources() {
+        long start = System.nanoTime();
+        for (Source s : createSources("one by one")) {
+            source.insertSource(s);
+        }
+        long single = System.nanoTime() - start;
+
+        source.execSql("delete from " + SourceModel.TABLE);
+
+        List<Source> sources = createSources("synced");
+        start = System.nanoTime();
+        source.syncSources(sources);
+        long synced = System.nanoTime() - start;
+
+        // everything already exists, so this is only updates
+        start = System.nanoTime();
+        source.syncSources(sources);
+        long resynced = System.nanoTime() - start;
+
+        assertEquals(SOURCE_COUNT, count(SourceModel.TABLE));
+
+        Benchmark.print("insert " + SOURCE_COUNT + " sources, one at a time", single);
+        Benchmark.print("sync " + SOURCE_COUNT + " new sources", synced);
+        Benchmark.print("sync " + SOURCE_COUNT + " existing sources", resynced);
+    }
+
+    @Test
+    public void compressedContent() {
+        // the fixture content is tiny, so repeat it until it is the size of a real article
+        String fixture = source.getArticle("http://test.com/").content;
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 20 * 1024) {
+            builder.append("<p>").append(fixture).append(' ')
+                    .append(builder.length()).append("</p>");
+        }
+        String content = builder.toString();
+
+        List<Article> plain = createArticles("plain");
+        List<Article> compressed = createArticles("compressed");
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+            plain.get(i).content = content;
+            compressed.get(i).content = content;
+        }
+
+        source.insertArticles(plain);
+        DataSource.setContentCompressionEnabled(true);
+        try {
+            source.insertArticles(compressed);
+        } finally {
+            DataSource.setContentCompressionEnabled(false);
+        }
+
+        long plainBytes = sum("length(" + ContentModel.COLUMN_CONTENT + ")",
+                ContentModel.COLUMN_CODEC + "=" + ContentCodec.CODEC_NONE);
+        long compressedBytes = sum("length(" + ContentModel.COLUMN_COMPRESSED + ")",
+                ContentModel.COLUMN_CODEC + "=" + ContentCodec.CODEC_DEFLATE);
+        assertTrue(compressedBytes < plainBytes);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+            source.getArticle("http://benchmark.com/plain/" + i).getContent();
+        }
+        long plainRead = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+            source.getArticle("http://benchmark.com/compressed/" + i);
+        }
+        long compressedLookup = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+            assertEquals(content,
+                    source.getArticle("http://benchmark.com/compressed/" + i).getContent());
+        }
+        long compressedRead = System.nanoTime() - start;
+
+        Benchmark.report("stored content, plain: " + plainBytes + " bytes");
+        Benchmark.report("stored content, deflate: " + compressedBytes + " bytes");
+        Benchmark.print("read " + ARTICLE_COUNT + " plain articles", plainRead);
+        Benchmark.print("look up " + ARTICLE_COUNT + " compressed articles, not decompressed",
+                compressedLookup);
+        Benchmark.print("read " + ARTICLE_COUNT + " compressed articles, decompressed",
+                compressedRead);
+    }
+
+    @Test
+    public void searchArticles() {
+        String[] words = { "android", "kotlin", "phone", "tablet", "watch", "release", "update",
+                "camera", "battery", "review" };
+
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < SEARCH_ARTICLE_COUNT; i++) {
+            Article article = new Article();
+            article.url = "http://benchmark.com/search/" + i;
+            article.title = "Article " + i + " about " + words[i % words.length];
+            article.description = "A " + words[(i / 10) % words.length] + " story";
+            article.author = "author " + (i % 50);
+            article.content = "<p>The " + words[(i / 100) % words.length] + " had a " +
+                    words[(i / 3) % words.length] + " this week, number " + i + ".</p>";
+            article.isArticle = true;
+            articles.add(article);
+        }
+
+        long start = System.nanoTime();
+        source.insertArticles(articles);
+        long insert = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<ArticleSearchResult> results = source.searchArticles("kotlin camera", 20);
+        long search = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<ArticleSearchResult> nextPage = source.searchArticles("kotlin camera", 20, 20);
+        long page = System.nanoTime() - start;
+
+        // what a host would have had to do before: read everything and filter it
+        start = System.nanoTime();
+        int scanned = 0;
+        Cursor cursor = source.rawQuery("select a.title, a.description, c.content from " +
+                ArticleModel.TABLE + " a left outer join " + ContentModel.TABLE + " c on " +
+                "a._id = c.article_id");
+        while (cursor.moveToNext()) {
+            String text = (cursor.getString(0) + " " + cursor.getString(1) + " " +
+                    cursor.getString(2)).toLowerCase(Locale.US);
+            if (text.contains("kotlin") && text.contains("camera")) {
+                scanned++;
+            }
+        }
+        cursor.close();
+        long scan = System.nanoTime() - start;
+
+        assertEquals(20, results.size());
+        assertEquals(20, nextPage.size());
+        assertTrue(scanned > 0);
+
+        Benchmark.print("insert and index " + SEARCH_ARTICLE_COUNT + " articles", insert);
+        Benchmark.print("search " + SEARCH_ARTICLE_COUNT + " articles, first page", search);
+        Benchmark.print("search " + SEARCH_ARTICLE_COUNT + " articles, second page", page);
+        Benchmark.print("scan " + SEARCH_ARTICLE_COUNT + " articles in java", scan);
+    }
+
+    @Test
+    public void mapArticles() {
+        for (int i = 0; i < MAPPED_ARTICLE_COUNT / ARTICLE_COUNT; i++) {
+            source.insertArticles(createArticles("mapped " + i));
+        }
+
+        Cursor cursor = source.getAllArticles();
+        int rows = cursor.getCount();
+
+        long start = System.nanoTime();
+        List<Article> legacy = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            Article article = new Article();
+            fillByName(article, cursor);
+            legacy.add(article);
+        }
+        long byName = System.nanoTime() - start;
+
+        cursor.moveToPosition(-1);
+        start = System.nanoTime();
+        List<Article> mapped = new ArticleCursorMapper(cursor).mapAll();
+        long byIndex = System.nanoTime() - start;
+
+        cursor.moveToPosition(-1);
+        start = System.nanoTime();
+        int walked = 0;
+        for (Article article : new ArticleCursorMapper(cursor).flyweight()) {
+            if (article.title != null) {
+                walked++;
+            }
+        }
+        long flyweight = System.nanoTime() - start;
+        cursor.close();
+
+        assertEquals(rows, legacy.size());
+        assertEquals(rows, mapped.size());
+        assertEquals(rows, walked);
+
+        Benchmark.print("map " + rows + " articles, by column name", byName);
+        Benchmark.print("map " + rows + " articles, by column index", byIndex);
+        Benchmark.print("walk " + rows + " articles, one reused article", flyweight);
+    }
+
+    @Test
+    public void urlLookups() {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < LOOKUP_ARTICLE_COUNT; i++) {
+            Article article = new Article();
+            article.url = lookupUrl(i);
+            article.title = "Lookup article " + i;
+            article.isArticle = true;
+            articles.add(article);
+        }
+        source.insertArticles(articles);
+
+        // the index that the url column used to have, next to the hash index that replaced it
+        SQLiteDatabase database = source.getDatabase();
+        long withoutUrlIndex = usedBytes();
+        database.execSQL("create index url_benchmark_index on " + ArticleModel.TABLE +
+                " (" + ArticleModel.COLUMN_URL + ")");
+        long urlIndexSize = usedBytes() - withoutUrlIndex;
+
+        String[] urls = new String[LOOKUP_COUNT];
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            urls[i] = lookupUrl((i * 7919) % LOOKUP_ARTICLE_COUNT);
+        }
+
+        long start = System.nanoTime();
+        int found = 0;
+        for (String url : urls) {
+            found += lookup(database, "select " + ArticleModel.COLUMN_ID + " from " +
+                    ArticleModel.TABLE + " indexed by url_benchmark_index where " +
+                    ArticleModel.COLUMN_URL + "=?", url);
+        }
+        long byUrl = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (String url : urls) {
+            found += lookup(database, "select " + ArticleModel.COLUMN_ID + " from " +
+                    ArticleModel.TABLE + " indexed by url_hash_article_index where " +
+                    ArticleModel.COLUMN_URL_HASH + "=" + UrlHash.hash(url) + " and " +
+                    ArticleModel.COLUMN_URL + "=?", url);
+        }
+        long byHash = System.nanoTime() - start;
+
+        long withHashIndex = usedBytes();
+        database.execSQL("drop index url_hash_article_index");
+        long hashIndexSize = withHashIndex - usedBytes();
+        database.execSQL("drop index url_benchmark_index");
+
+        assertEquals(LOOKUP_COUNT * 2, found);
+
+        Benchmark.print("look up " + LOOKUP_COUNT + " of " + LOOKUP_ARTICLE_COUNT +
+                " urls, url index", byUrl);
+        Benchmark.print("look up " + LOOKUP_COUNT + " of " + LOOKUP_ARTICLE_COUNT +
+                " urls, hash index", byHash);
+        Benchmark.report(String.format(Locale.US, "url index size: %d kb, hash index size: %d kb",
+                urlIndexSize / 1024, hashIndexSize / 1024));
+    }
+
+    private List<Source> createSources(String prefix) {
+        List<Source> sources = new ArrayList<>();
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            Source s = new Source();
+            s.remoteId = 1000 + i;
+            s.name = prefix + " " + i;
+            s.imageUrl = "http://benchmark.com/" + i + ".png";
+            s.categoryName = "category " + (i % 20);
+            sources.add(s);
+        }
+
+        return sources;
+    }
+
+    private List<Article> createArticles(String prefix) {
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+            Article article = new Article();
+            article.url = "http://benchmark.com/" + prefix + "/" + i;
+            article.title = "Benchmark article " + i;
+            article.description = "A description of benchmark article " + i;
+            article.content = "<p>Some content for article " + i + ".</p>";
+            article.isArticle = true;
+            articles.add(article);
+        }
+
+        return articles;
+    }
+
+    /**
+     * The way that articles were inserted before the statements were compiled: two separate
+     * inserts with no transaction around them.
+     */
+    private void insertWithContentValues(Article article) {
+        ContentValues values = new ContentValues(5);
+        values.put(ArticleModel.COLUMN_URL, article.url);
+        values.put(ArticleModel.COLUMN_TITLE, article.title);
+        values.put(ArticleModel.COLUMN_DESCRIPTION, article.description);
+        values.put(ArticleModel.COLUMN_IS_ARTICLE, article.isArticle);
+        values.put(ArticleModel.COLUMN_SAVED, article.saved);
+        values.put(ArticleModel.COLUMN_INSERTED_AT, System.currentTimeMillis());
+        long id = source.getDatabase().insert(ArticleModel.TABLE, null, values);
+
+        values = new ContentValues(2);
+        values.put(ContentModel.COLUMN_ARTICLE_ID, id);
+        values.put(ContentModel.COLUMN_CONTENT, article.content);
+        source.getDatabase().insert(ContentModel.TABLE, null, values);
+    }
+
+    /**
+     * The way that articles were filled before the column indexes were cached: every column name
+     * is compared against every field, for every row.
+     */
+    private static void fillByName(Article article, Cursor cursor) {
+        for (int i = 0; i < cursor.getColumnCount(); i++) {
+            String column = cursor.getColumnName(i);
+
+            if (column.equals(ArticleModel.COLUMN_ID)) {
+                article.id = cursor.getLong(i);
+            } else if (column.equals(ArticleModel.COLUMN_ALIAS)) {
+                article.alias = cursor.getString(i);
+            } else if (column.equals(ArticleModel.COLUMN_URL)) {
+                article.url = cursor.getString(i);
+            } else if (column.equals(ArticleModel.COLUMN_TITLE)) {
+                article.title = cursor.getString(i);
+            } else if (column.equals(ArticleModel.COLUMN_DESCRIPTION)) {
+                article.description = cursor.getString(i);
+            } else if (column.equals(ArticleModel.COLUMN_IMAGE)) {
+                article.image = cursor.getString(i);
+            } else if (column.equals(ContentModel.COLUMN_CONTENT)) {
+                article.content = cursor.getString(i);
+            } else if (column.equals(ContentModel.COLUMN_CODEC)) {
+                article.setContentCodec(cursor.getInt(i));
+            } else if (column.equals(ContentModel.COLUMN_COMPRESSED)) {
+                article.setCompressedContent(cursor.isNull(i) ? null : cursor.getBlob(i));
+            } else if (column.equals(ContentModel.COLUMN_BLOCKS)) {
+                article.setEncodedBlocks(cursor.isNull(i) ? null : cursor.getBlob(i));
+            } else if (column.equals(ArticleModel.COLUMN_AUTHOR)) {
+                article.author = cursor.getString(i);
+            } else if (column.equals(ArticleModel.COLUMN_SOURCE)) {
+                article.source = cursor.getString(i);
+            } else if (column.equals(ArticleModel.COLUMN_DOMAIN)) {
+                article.domain = cursor.getString(i);
+            } else if (column.equals(ArticleModel.COLUMN_DURATION)) {
+                article.duration = cursor.getInt(i);
+            } else if (column.equals(ArticleModel.COLUMN_INSERTED_AT)) {
+                article.insertedAt = cursor.getLong(i);
+            } else if (column.equals(ArticleModel.COLUMN_IS_ARTICLE)) {
+                article.isArticle = cursor.getInt(i) == 1;
+            } else if (column.equals(ArticleModel.COLUMN_SAVED)) {
+                article.saved = cursor.getInt(i) == 1;
+            } else if (column.equals(ArticleModel.COLUMN_SOURCE_ID)) {
+                article.sourceId = cursor.getLong(i);
+            } else if (column.equals(SourceModel.COLUMN_NAME)) {
+                article.sourceModelName = cursor.getString(i);
+            } else if (column.equals(SourceModel.COLUMN_IMAGE_URL)) {
+                article.sourceModelImageUrl = cursor.getString(i);
+            }
+        }
+    }
+
+    private static String lookupUrl(int i) {
+        return "https://www.benchmark.com/" + (2010 + i % 8) + "/" + (1 + i % 12) + "/" +
+                "a-reasonably-long-slug-like-most-news-sites-use-for-article-" + i;
+    }
+
+    private static int lookup(SQLiteDatabase database, String sql, String url) {
+        Cursor cursor = database.rawQuery(sql, new String[] { url });
+        int count = cursor.getCount();
+        cursor.close();
+        return count;
+    }
+
+    /**
+     * The bytes in the database file that hold data, not counting free pages.
+     */
+    private long usedBytes() {
+        return (pragma("page_count") - pragma("freelist_count")) * pragma("page_size");
+    }
+
+    private long pragma(String name) {
+        Cursor cursor = source.rawQuery("PRAGMA " + name);
+        cursor.moveToFirst();
+        long value = cursor.getLong(0);
+        cursor.close();
+        return value;
+    }
+
+    private long sum(String expression, String where) {
+        Cursor cursor = source.rawQuery("select sum(" + expression + ") from " +
+                ContentModel.TABLE + " where " + where);
+        cursor.moveToFirst();
+        long sum = cursor.getLong(0);
+        cursor.close();
+        return sum;
+    }
+
+    private int count(String table) {
+        Cursor cursor = source.rawQuery("select count(*) from " + table);
+        cursor.moveToFirst();
+        int count = cursor.getInt(0);
+        cursor.close();
+        return count;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import xyz.klinker.android.article.ArticleRobolectricSuite;
+import xyz.klinker.android.article.Benchmark;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures how long article lookups take while a preload is writing to the same database, with
+ * and without write ahead logging. This needs a database on disk, since in memory databases
+ * can't use write ahead logging. Like the other benchmarks, the numbers are printed instead of
+ * asserted on.
+ */
+@Category(Benchmark.class)
+public class DataSourceConcurrencyBenchmark extends ArticleRobolectricSuite {
+
+    private static final String DATABASE_NAME = "articles.db";
+    private static final int SEED_COUNT = 100;
+    private static final int PRELOAD_BATCHES = 40;
+    private static final int PRELOAD_BATCH_SIZE = 50;
+
+    @Before
+    public void setUp() {
+        RuntimeEnvironment.application.deleteDatabase(DATABASE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        RuntimeEnvironment.application.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void lookupsDuringPreload_rollbackJournal() throws Exception {
+        measure("rollback journal", false);
+    }
+
+    @Test
+    public void lookupsDuringPreload_writeAheadLog() throws Exception {
+        measure("write ahead log", true);
+    }
+
+    private void measure(String name, boolean writeAheadLogging) throws Exception {
+        DatabaseSQLiteHelper helper = new DatabaseSQLiteHelper(RuntimeEnvironment.application);
+        helper.setWriteAheadLoggingEnabled(writeAheadLogging);
+
+        final DataSource source = new DataSource(helper);
+        source.setIdleTimeout(0);
+        source.open();
+        source.insertArticles(createArticles("seed", SEED_COUNT));
+
+        Thread preload = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < PRELOAD_BATCHES; i++) {
+                    source.insertArticles(createArticles("preload" + i, PRELOAD_BATCH_SIZE));
+                }
+            }
+        });
+
+        List<Long> latencies = new ArrayList<>();
+        long start = System.nanoTime();
+        preload.start();
+        while (preload.isAlive()) {
+            long lookup = System.nanoTime();
+            Article article = source.getArticle(
+                    "http://benchmark.com/seed/" + (latencies.size() % SEED_COUNT));
+            latencies.add(System.nanoTime() - lookup);
+            assertNotNull(article);
+        }
+        long preloadTime = System.nanoTime() - start;
+
+        preload.join();
+        source.close();
+
+        assertTrue(latencies.size() > 0);
+        Collections.sort(latencies);
+
+        Benchmark.print(name + ", preload " + PRELOAD_BATCHES * PRELOAD_BATCH_SIZE + " articles",
+                preloadTime);
+        Benchmark.report(String.format(Locale.US, "%s, %d lookups: median %.2f ms, " +
+                        "p99 %.2f ms, max %.2f ms", name, latencies.size(),
+                latencies.get(latencies.size() / 2) / 1000000.0,
+                latencies.get(latencies.size() * 99 / 100) / 1000000.0,
+                latencies.get(latencies.size() - 1) / 1000000.0));
+    }
+
+    private static List<Article> createArticles(String prefix, int count) {
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 10 * 1024) {
+            content.append("<p>Some content for a preloaded article.</p>");
+        }
+
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Article article = new Article();
+            article.url = "http://benchmark.com/" + prefix + "/" + i;
+            article.title = "Benchmark article " + i;
+            article.description = "A description of benchmark article " + i;
+            article.content = content.toString();
+            article.isArticle = true;
+            articles.add(article);
+        }
+
+        return articles;
+    }
+}
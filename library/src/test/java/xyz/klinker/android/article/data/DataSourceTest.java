@@ -19,13 +19,19 @@ package xyz.klinker.android.article.data;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
+import org.robolectric.Robolectric;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
 import xyz.klinker.android.article.ArticleRobolectricSuite;
 
 import static org.junit.Assert.assertEquals;
@@ -37,6 +43,10 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -51,13 +61,17 @@ public class DataSourceTest extends ArticleRobolectricSuite {
     private DatabaseSQLiteHelper helper;
     @Mock
     private Cursor cursor;
+    @Mock
+    private SQLiteStatement statement;
 
     @Before
     public void setUp() {
         source = new DataSource(helper);
         source.context = RuntimeEnvironment.application;
+        source.setIdleTimeout(0);
         when(database.isOpen()).thenReturn(true);
         when(helper.getWritableDatabase()).thenReturn(database);
+        when(database.compileStatement(anyString())).thenReturn(statement);
         source.open();
     }
 
@@ -74,6 +88,58 @@ public class DataSourceTest extends ArticleRobolectricSuite {
         dataSource.close();
     }
 
+    @Test
+    public void realConstructor_sharedInstance() {
+        assertTrue(DataSource.get(RuntimeEnvironment.application) ==
+                DataSource.get(RuntimeEnvironment.application));
+    }
+
+    @Test
+    public void closeWaitsForIdleTimeout() {
+        DatabaseSQLiteHelper idleHelper = mock(DatabaseSQLiteHelper.class);
+        DataSource idle = new DataSource(idleHelper);
+        idle.setIdleTimeout(1000);
+
+        idle.open();
+        idle.close();
+        Robolectric.getForegroundThreadScheduler().advanceBy(999, TimeUnit.MILLISECONDS);
+        verify(idleHelper, never()).close();
+
+        Robolectric.getForegroundThreadScheduler().advanceBy(1, TimeUnit.MILLISECONDS);
+        verify(idleHelper).close();
+    }
+
+    @Test
+    public void reopenBeforeIdleTimeoutKeepsConnection() {
+        DatabaseSQLiteHelper idleHelper = mock(DatabaseSQLiteHelper.class);
+        DataSource idle = new DataSource(idleHelper);
+        idle.setIdleTimeout(1000);
+
+        idle.open();
+        idle.close();
+        Robolectric.getForegroundThreadScheduler().advanceBy(500, TimeUnit.MILLISECONDS);
+        idle.open();
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000, TimeUnit.MILLISECONDS);
+        verify(idleHelper, never()).close();
+
+        idle.close();
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000, TimeUnit.MILLISECONDS);
+        verify(idleHelper).close();
+        verify(idleHelper, times(2)).getWritableDatabase();
+    }
+
+    @Test
+    public void leaseOnlyReleasesOnce() {
+        DataSource.Lease lease = source.lease();
+        assertTrue(lease.get() == source);
+
+        lease.release();
+        lease.close();
+
+        // the lease's open and close are balanced, so the source is still open from setUp
+        verify(helper, never()).close();
+    }
+
     @Test
     public void getDatabase() {
         assertEquals(database, source.getDatabase());
@@ -87,13 +153,17 @@ public class DataSourceTest extends ArticleRobolectricSuite {
         verify(database).delete("content", null, null);
         verify(database).delete("source", null, null);
         verify(database).delete("category", null, null);
+        verify(database).delete("article_search", null, null);
+        verify(database).delete("source_day_count", null, null);
+        verify(database).delete("article_alias", null, null);
+        verify(database).delete("non_article", null, null);
         verifyNoMoreInteractions(database);
     }
 
     @Test
     public void beginTransaction() {
         source.beginTransaction();
-        verify(database).beginTransaction();
+        verify(database).beginTransactionNonExclusive();
     }
 
     @Test
@@ -122,10 +192,47 @@ public class DataSourceTest extends ArticleRobolectricSuite {
 
     @Test
     public void insertArticle() {
-        source.insertArticle(new Article());
+        when(statement.executeInsert()).thenReturn(1L);
+        Article article = new Article();
+        source.insertArticle(article);
 
-        verify(database).insert(eq("article"), eq((String) null), any(ContentValues.class));
-        verify(database).insert(eq("content"), eq((String) null), any(ContentValues.class));
+        verify(database).beginTransactionNonExclusive();
+        verify(database).compileStatement(startsWith("insert or ignore into article"));
+        verify(database).compileStatement(startsWith("insert into content"));
+        verify(database).compileStatement(startsWith("insert into article_search"));
+        verify(database).setTransactionSuccessful();
+        verify(database).endTransaction();
+        verify(statement, times(3)).executeInsert();
+        verifyNoMoreInteractions(database);
+        assertEquals(1L, article.id);
+    }
+
+    @Test
+    public void insertArticleAlreadyExists() {
+        when(statement.executeInsert()).thenReturn(-1L);
+        assertEquals(-1L, source.insertArticle(new Article()));
+
+        // the content should not be written without an article row
+        verify(statement, times(1)).executeInsert();
+    }
+
+    @Test
+    public void insertArticles() {
+        when(statement.executeInsert()).thenReturn(1L, 2L, 3L, -1L, 4L, 5L, 6L);
+        int inserted = source.insertArticles(
+                Arrays.asList(new Article(), new Article(), new Article()));
+
+        assertEquals(2, inserted);
+        verify(database, times(1)).beginTransactionNonExclusive();
+        verify(database, times(3)).compileStatement(anyString());
+        verify(database).setTransactionSuccessful();
+        verify(database).endTransaction();
+        verifyNoMoreInteractions(database);
+    }
+
+    @Test
+    public void insertArticlesEmpty() {
+        assertEquals(0, source.insertArticles(new ArrayList<Article>()));
         verifyNoMoreInteractions(database);
     }
 
@@ -140,6 +247,19 @@ public class DataSourceTest extends ArticleRobolectricSuite {
         source.updateSavedArticleState(article);
 
         verify(database).update("article", values, "_id=?", new String[] {"2"});
+        verify(database).inTransaction();
+        verifyNoMoreInteractions(database);
+    }
+
+    @Test
+    public void markArticleRead() {
+        Article article = new Article();
+        article.id = 2L;
+
+        source.markArticleRead(article);
+
+        verify(database).update(eq("article"), any(ContentValues.class), eq("_id=?"),
+                eq(new String[] {"2"}));
         verifyNoMoreInteractions(database);
     }
 
@@ -154,6 +274,7 @@ public class DataSourceTest extends ArticleRobolectricSuite {
         source.updateArticleInsertedAtTimestamp(article);
 
         verify(database).update("article", values, "_id=?", new String[] {"2"});
+        verify(database).inTransaction();
         verifyNoMoreInteractions(database);
     }
 
@@ -164,10 +285,18 @@ public class DataSourceTest extends ArticleRobolectricSuite {
         article.content = "blah";
         ContentValues values = new ContentValues();
         values.put("content", "blah");
+        values.put("codec", 0);
+        values.putNull("compressed");
+        values.putNull("blocks");
 
         source.updateArticleContent(article);
 
         verify(database).update("content", values, "article_id=?", new String[] {"2"});
+        verify(database).update(eq("article_search"), any(ContentValues.class), eq("docid=?"),
+                eq(new String[] {"2"}));
+        verify(database).insert(eq("article_search"), eq((String) null),
+                any(ContentValues.class));
+        verify(database).inTransaction();
         verifyNoMoreInteractions(database);
     }
 
@@ -176,14 +305,16 @@ public class DataSourceTest extends ArticleRobolectricSuite {
         when(database.query(
                 anyString(),
                 any(String[].class),
-                eq("url=?"),
-                eq(new String[] {"http://google.com"}),
+                eq("url_hash=? and url=?"),
+                eq(new String[] {
+                        Long.toString(UrlHash.hash("http://google.com/")), "http://google.com/"}),
                 eq((String) null),
                 eq((String) null),
                 eq((String) null)))
                 .thenReturn(cursor);
         when(cursor.moveToFirst()).thenReturn(true);
         assertNotNull(source.getArticle("http://google.com"));
+        verify(cursor).close();
     }
 
     @Test
@@ -191,8 +322,9 @@ public class DataSourceTest extends ArticleRobolectricSuite {
         when(database.query(
                 anyString(),
                 any(String[].class),
-                eq("url=?"),
-                eq(new String[] {"http://google.com"}),
+                eq("url_hash=? and url=?"),
+                eq(new String[] {
+                        Long.toString(UrlHash.hash("http://google.com/")), "http://google.com/"}),
                 eq((String) null),
                 eq((String) null),
                 eq((String) null)))
@@ -332,16 +464,9 @@ public class DataSourceTest extends ArticleRobolectricSuite {
 
     @Test
     public void getCategoriesCount() {
-        when(database.query(
-                anyString(),
-                any(String[].class),
-                anyString(),
-                any(String[].class),
-                anyString(),
-                eq((String) null),
-                anyString()))
-                .thenReturn(cursor);
+        when(database.rawQuery(anyString(), any(String[].class))).thenReturn(cursor);
         assertNotNull(source.getCategoryCounts(1));
+        verify(database, times(2)).rawQuery(anyString(), any(String[].class));
     }
 
     @Test
@@ -361,5 +486,7 @@ public class DataSourceTest extends ArticleRobolectricSuite {
         source.deleteArticle(1L);
         verify(database).delete("article", "_id=?", new String[] {"1"});
         verify(database).delete("content", "article_id=?", new String[] {"1"});
+        verify(database).delete("article_search", "docid=?", new String[] {"1"});
+        verify(database).delete("article_alias", "article_id=?", new String[] {"1"});
     }
 }
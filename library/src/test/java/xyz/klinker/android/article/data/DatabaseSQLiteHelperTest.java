@@ -24,11 +24,16 @@ import org.mockito.Mock;
 import org.robolectric.RuntimeEnvironment;
 
 import xyz.klinker.android.article.ArticleRobolectricSuite;
+import xyz.klinker.android.article.data.model.ArticleAliasModel;
 import xyz.klinker.android.article.data.model.ArticleModel;
+import xyz.klinker.android.article.data.model.ArticleSearchModel;
 import xyz.klinker.android.article.data.model.CategoryModel;
 import xyz.klinker.android.article.data.model.ContentModel;
+import xyz.klinker.android.article.data.model.NonArticleModel;
+import xyz.klinker.android.article.data.model.SourceDayCountModel;
 import xyz.klinker.android.article.data.model.SourceModel;
 
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -50,6 +55,19 @@ public class DatabaseSQLiteHelperTest extends ArticleRobolectricSuite {
         verifyCreateStatement();
     }
 
+    @Test
+    public void onOpen() {
+        // write ahead logging is turned on by the helper itself on every supported sdk
+        helper.onOpen(database);
+        verifyNoMoreInteractions(database);
+    }
+
+    @Test
+    public void writeAheadLoggingEnabled() {
+        assertTrue(helper.getWritableDatabase().isWriteAheadLoggingEnabled());
+        helper.close();
+    }
+
     @Test
     public void onUpgrade_1to2() {
         helper.onUpgrade(database, 1, 2);
@@ -90,6 +108,242 @@ public class DatabaseSQLiteHelperTest extends ArticleRobolectricSuite {
         verify4Upgrade();
     }
 
+    @Test
+    public void onUpgrade1to5() {
+        helper.onUpgrade(database, 1, 5);
+        verify2Upgrade();
+        verify3Upgrade();
+        verify4Upgrade();
+        verify5Upgrade();
+    }
+
+    @Test
+    public void onUpgrade3to5() {
+        helper.onUpgrade(database, 3, 5);
+        verify4Upgrade();
+        verify5Upgrade();
+    }
+
+    @Test
+    public void onUpgrade4to5() {
+        helper.onUpgrade(database, 4, 5);
+        verify5Upgrade();
+    }
+
+    @Test
+    public void onUpgrade1to6() {
+        helper.onUpgrade(database, 1, 6);
+        verify2Upgrade();
+        verify3Upgrade();
+        verify4Upgrade();
+        verify5Upgrade();
+        verify6Upgrade();
+    }
+
+    @Test
+    public void onUpgrade4to6() {
+        helper.onUpgrade(database, 4, 6);
+        verify5Upgrade();
+        verify6Upgrade();
+    }
+
+    @Test
+    public void onUpgrade5to6() {
+        helper.onUpgrade(database, 5, 6);
+        verify6Upgrade();
+    }
+
+    @Test
+    public void onUpgrade1to7() {
+        helper.onUpgrade(database, 1, 7);
+        verify2Upgrade();
+        verify3Upgrade();
+        verify4Upgrade();
+        verify5Upgrade();
+        verify6Upgrade();
+        verify7Upgrade();
+    }
+
+    @Test
+    public void onUpgrade5to7() {
+        helper.onUpgrade(database, 5, 7);
+        verify6Upgrade();
+        verify7Upgrade();
+    }
+
+    @Test
+    public void onUpgrade6to7() {
+        helper.onUpgrade(database, 6, 7);
+        verify7Upgrade();
+    }
+
+    @Test
+    public void onUpgrade1to8() {
+        helper.onUpgrade(database, 1, 8);
+        verify2Upgrade();
+        verify3Upgrade();
+        verify4Upgrade();
+        verify5Upgrade();
+        verify6Upgrade();
+        verify7Upgrade();
+        verify8Upgrade();
+    }
+
+    @Test
+    public void onUpgrade6to8() {
+        helper.onUpgrade(database, 6, 8);
+        verify7Upgrade();
+        verify8Upgrade();
+        verify(database).execSQL(new ArticleModel().getIndexStatements()[1]);
+    }
+
+    @Test
+    public void onUpgrade7to8() {
+        helper.onUpgrade(database, 7, 8);
+        verify8Upgrade();
+        verify(database).execSQL(new ArticleModel().getIndexStatements()[1]);
+    }
+
+    @Test
+    public void onUpgrade1to9() {
+        helper.onUpgrade(database, 1, 9);
+        verify2Upgrade();
+        verify3Upgrade();
+        verify4Upgrade();
+        verify5Upgrade();
+        verify6Upgrade();
+        verify7Upgrade();
+        verify8Upgrade();
+        verify9Upgrade();
+    }
+
+    @Test
+    public void onUpgrade7to9() {
+        helper.onUpgrade(database, 7, 9);
+        verify8Upgrade();
+        verify9Upgrade();
+    }
+
+    @Test
+    public void onUpgrade8to9() {
+        helper.onUpgrade(database, 8, 9);
+        verify9Upgrade();
+    }
+
+    @Test
+    public void onUpgrade1to10() {
+        helper.onUpgrade(database, 1, 10);
+        verify2Upgrade();
+        verify3Upgrade();
+        verify4Upgrade();
+        verify5Upgrade();
+        verify6Upgrade();
+        verify7Upgrade();
+        verify8Upgrade();
+        verify9Upgrade();
+        verify10Upgrade();
+    }
+
+    @Test
+    public void onUpgrade8to10() {
+        helper.onUpgrade(database, 8, 10);
+        verify9Upgrade();
+        verify10Upgrade();
+    }
+
+    @Test
+    public void onUpgrade9to10() {
+        helper.onUpgrade(database, 9, 10);
+        verify10Upgrade();
+    }
+
+    @Test
+    public void onUpgrade1to11() {
+        helper.onUpgrade(database, 1, 11);
+        verify2Upgrade();
+        verify3Upgrade();
+        verify4Upgrade();
+        verify5Upgrade();
+        verify6Upgrade();
+        verify7Upgrade();
+        verify8Upgrade();
+        verify9Upgrade();
+        verify10Upgrade();
+        verify11Upgrade();
+    }
+
+    @Test
+    public void onUpgrade9to11() {
+        helper.onUpgrade(database, 9, 11);
+        verify10Upgrade();
+        verify11Upgrade();
+    }
+
+    @Test
+    public void onUpgrade10to11() {
+        helper.onUpgrade(database, 10, 11);
+        verify11Upgrade();
+    }
+
+    @Test
+    public void onUpgrade1to12() {
+        helper.onUpgrade(database, 1, 12);
+        verify2Upgrade();
+        verify3Upgrade();
+        verify4Upgrade();
+        verify5Upgrade();
+        verify6Upgrade();
+        verify7Upgrade();
+        verify8Upgrade();
+        verify9Upgrade();
+        verify10Upgrade();
+        verify11Upgrade();
+        verify12Upgrade();
+    }
+
+    @Test
+    public void onUpgrade10to12() {
+        helper.onUpgrade(database, 10, 12);
+        verify11Upgrade();
+        verify12Upgrade();
+    }
+
+    @Test
+    public void onUpgrade11to12() {
+        helper.onUpgrade(database, 11, 12);
+        verify12Upgrade();
+    }
+
+    @Test
+    public void onUpgrade1to13() {
+        helper.onUpgrade(database, 1, 13);
+        verify2Upgrade();
+        verify3Upgrade();
+        verify4Upgrade();
+        verify5Upgrade();
+        verify6Upgrade();
+        verify7Upgrade();
+        verify8Upgrade();
+        verify9Upgrade();
+        verify10Upgrade();
+        verify11Upgrade();
+        verify12Upgrade();
+        verify13Upgrade();
+    }
+
+    @Test
+    public void onUpgrade11to13() {
+        helper.onUpgrade(database, 11, 13);
+        verify12Upgrade();
+        verify13Upgrade();
+    }
+
+    @Test
+    public void onUpgrade12to13() {
+        helper.onUpgrade(database, 12, 13);
+        verify13Upgrade();
+    }
+
     @Test
     public void onDrop() {
         helper.onDrop(database);
@@ -97,16 +351,29 @@ public class DatabaseSQLiteHelperTest extends ArticleRobolectricSuite {
     }
 
     private void verifyCreateStatement() {
+        verify(database).execSQL("PRAGMA auto_vacuum = INCREMENTAL");
         verify(database).execSQL(new ArticleModel().getCreateStatement());
         verify(database).execSQL(new ContentModel().getCreateStatement());
         verify(database).execSQL(new SourceModel().getCreateStatement());
         verify(database).execSQL(new CategoryModel().getCreateStatement());
+        verify(database).execSQL(new ArticleSearchModel().getCreateStatement());
+        verify(database).execSQL(new SourceDayCountModel().getCreateStatement());
+        verify(database).execSQL(new ArticleAliasModel().getCreateStatement());
+        verify(database).execSQL(new NonArticleModel().getCreateStatement());
         verify(database).execSQL(new ArticleModel().getIndexStatements()[0]);
         verify(database).execSQL(new ArticleModel().getIndexStatements()[1]);
+        verify(database).execSQL(new ArticleModel().getIndexStatements()[2]);
+        verify(database).execSQL(new ArticleModel().getIndexStatements()[3]);
+        verify(database).execSQL(new ArticleModel().getIndexStatements()[4]);
         verify(database).execSQL(new ContentModel().getIndexStatements()[0]);
         verify(database).execSQL(new SourceModel().getIndexStatements()[0]);
         verify(database).execSQL(new SourceModel().getIndexStatements()[1]);
         verify(database).execSQL(new CategoryModel().getIndexStatements()[0]);
+        verify(database).execSQL(new SourceDayCountModel().getIndexStatements()[0]);
+        verify(database).execSQL(new SourceDayCountModel().getIndexStatements()[1]);
+        verify(database).execSQL(new SourceDayCountModel().getIndexStatements()[2]);
+        verify(database).execSQL(new ArticleAliasModel().getIndexStatements()[0]);
+        verify(database).execSQL(new NonArticleModel().getIndexStatements()[0]);
         verifyNoMoreInteractions(database);
     }
 
@@ -125,6 +392,57 @@ public class DatabaseSQLiteHelperTest extends ArticleRobolectricSuite {
     }
 
     private void verify4Upgrade() {
+        verify(database).execSQL("ALTER TABLE content ADD COLUMN codec integer not null DEFAULT 0");
+        verify(database).execSQL("ALTER TABLE content ADD COLUMN compressed blob");
+    }
+
+    private void verify5Upgrade() {
+        verify(database).execSQL("ALTER TABLE content ADD COLUMN blocks blob");
+    }
+
+    private void verify6Upgrade() {
+        verify(database).execSQL(new ArticleSearchModel().getCreateStatement());
+        verify(database).execSQL("delete from article_search");
+    }
+
+    private void verify7Upgrade() {
+        verify(database).execSQL(
+                "ALTER TABLE article ADD COLUMN last_read_at integer not null DEFAULT 0");
+        verify(database).execSQL("UPDATE article SET last_read_at = inserted_at");
+        verify(database).execSQL(new ArticleModel().getIndexStatements()[2]);
+    }
+
+    private void verify8Upgrade() {
+        verify(database).execSQL("DROP INDEX IF EXISTS source_id_article_index");
+        verify(database).execSQL(new ArticleModel().getIndexStatements()[3]);
+        verify(database).execSQL(new ArticleModel().getIndexStatements()[4]);
+    }
+
+    private void verify9Upgrade() {
+        verify(database).execSQL(new SourceDayCountModel().getCreateStatement());
+        verify(database).execSQL(new SourceDayCountModel().getIndexStatements()[0]);
+        verify(database).execSQL(new SourceDayCountModel().getIndexStatements()[1]);
+        verify(database).execSQL(new SourceDayCountModel().getIndexStatements()[2]);
+        verify(database).execSQL(SourceDayCountModel.BACKFILL);
+    }
+
+    private void verify10Upgrade() {
+        verify(database).execSQL("ALTER TABLE article ADD COLUMN url_hash integer");
+        verify(database).execSQL(new ArticleModel().getIndexStatements()[0]);
+        verify(database).execSQL("DROP INDEX IF EXISTS url_article_index");
+    }
+
+    private void verify11Upgrade() {
+        verify(database).execSQL(new ArticleAliasModel().getCreateStatement());
+        verify(database).execSQL(new ArticleAliasModel().getIndexStatements()[0]);
+    }
+
+    private void verify12Upgrade() {
+        verify(database).execSQL(new NonArticleModel().getCreateStatement());
+        verify(database).execSQL(new NonArticleModel().getIndexStatements()[0]);
+    }
+
+    private void verify13Upgrade() {
         // do nothing for now, fill with more database migrations.
     }
 
@@ -133,6 +451,10 @@ public class DatabaseSQLiteHelperTest extends ArticleRobolectricSuite {
         verify(database).execSQL("drop table if exists content");
         verify(database).execSQL("drop table if exists source");
         verify(database).execSQL("drop table if exists category");
+        verify(database).execSQL("drop table if exists article_search");
+        verify(database).execSQL("drop table if exists source_day_count");
+        verify(database).execSQL("drop table if exists article_alias");
+        verify(database).execSQL("drop table if exists non_article");
         verifyNoMoreInteractions(database);
     }
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import xyz.klinker.android.article.ArticleRealDataSuite;
+import xyz.klinker.android.article.data.model.NonArticleModel;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs each of the DataSource queries against the fixture data and checks the plan that sqlite
+ * picked for it, so that a missing index shows up as a failing test instead of a slow list. A
+ * query fails if any table is scanned without an index, or if the results need to be sorted in a
+ * temporary b-tree. Queries that read a whole table on purpose list what they are allowed to
+ * scan.
+ */
+public class QueryPlanTest extends ArticleRealDataSuite {
+
+    private static final String SQL_PREFIX = "SQLiteQuery: ";
+
+    private final List<String> queries = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    protected SQLiteDatabase.CursorFactory getCursorFactory() {
+        return new SQLiteDatabase.CursorFactory() {
+            @Override
+            public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver driver,
+                                    String editTable, SQLiteQuery query) {
+                String sql = query.toString();
+                queries.add(sql.startsWith(SQL_PREFIX) ? sql.substring(SQL_PREFIX.length()) : sql);
+                return new SQLiteCursor(driver, editTable, query);
+            }
+        };
+    }
+
+    @Test
+    public void getArticle() {
+        source.getArticle("http://test.com/");
+        assertIndexed();
+    }
+
+    @Test
+    public void getArticle_alias() {
+        source.insertArticleAlias("http://short.com/abc", 3);
+        source.getArticle("http://short.com/abc");
+        assertIndexed();
+    }
+
+    @Test
+    public void backfillUrlHashes() {
+        source.execSql("insert into article (url, inserted_at, is_article, saved) " +
+                "values ('http://test.com/unhashed', 1, 1, 0)");
+        source.backfillUrlHashes();
+        assertIndexed();
+    }
+
+    @Test
+    public void getAllArticles() {
+        source.getAllArticles().close();
+        assertIndexed();
+    }
+
+    @Test
+    public void getSavedArticles() {
+        source.getSavedArticles().close();
+        assertIndexed();
+    }
+
+    @Test
+    public void getArticlesForSource() {
+        source.getArticlesForSource(1).close();
+        assertIndexed();
+    }
+
+    @Test
+    public void getArticlesPage() {
+        source.getArticlesPage(new ArticlePageKey(5, 5), 10);
+        assertIndexed();
+    }
+
+    @Test
+    public void getSavedArticlesPage() {
+        source.getSavedArticlesPage(new ArticlePageKey(5, 5), 10);
+        assertIndexed();
+    }
+
+    @Test
+    public void getArticlesForSourcePage() {
+        source.getArticlesForSourcePage(100, new ArticlePageKey(5, 5), 10);
+        assertIndexed();
+    }
+
+    @Test
+    public void getArticleCount() {
+        source.getArticleCount();
+        assertIndexed();
+    }
+
+    @Test
+    public void searchArticles() {
+        source.searchArticles("first content", 10);
+        assertIndexed();
+    }
+
+    @Test
+    public void getSource() {
+        source.getSource(1);
+        assertIndexed();
+    }
+
+    @Test
+    public void getCategoryId() {
+        source.getCategoryId("test");
+        assertIndexed();
+    }
+
+    @Test
+    public void getSources() {
+        // every source is shown, sorted by name
+        source.getSources();
+        assertIndexed("source", "s", "TEMP B-TREE");
+    }
+
+    @Test
+    public void getCategoryCounts() {
+        // only a handful of daily buckets and categories are read and grouped
+        source.getCategoryCounts(0);
+        assertIndexed("source_day_count", "d", "category", "c", "TEMP B-TREE");
+    }
+
+    @Test
+    public void syncSources() {
+        // the existing categories and sources are all read once up front
+        source.syncSources(new ArrayList<Source>());
+        assertIndexed("category", "source");
+    }
+
+    @Test
+    public void evictArticles() {
+        // the size of the whole cache needs to be added up
+        source.evictArticles(0, 0);
+        assertIndexed("article", "a");
+    }
+
+    @Test
+    public void compressExistingContent() {
+        // only runs once, as a background migration
+        source.compressExistingContent(10);
+        assertIndexed("content");
+    }
+
+    @Test
+    public void isNonArticle() {
+        source.insertNonArticle("http://video.com/1");
+        source.isNonArticle("http://video.com/1");
+        explain("update non_article set hits = hits + 1 where " +
+                NonArticleModel.WHERE_KEY_HASH);
+        assertIndexed();
+    }
+
+    @Test
+    public void insertNonArticle() {
+        explain("update non_article set count = count + 1 where " +
+                NonArticleModel.WHERE_KEY_HASH);
+        assertIndexed();
+    }
+
+    @Test
+    public void deleteNonArticle() {
+        explain("delete from non_article where " + NonArticleModel.WHERE_KEY_HASH);
+        explain("update non_article set count = 0 where " + NonArticleModel.WHERE_KEY_HASH);
+        assertIndexed();
+    }
+
+    @Test
+    public void deleteExpiredNonArticles() {
+        explain("delete from non_article where " + NonArticleModel.WHERE_EXPIRED);
+        assertIndexed();
+    }
+
+    @Test
+    public void getNonArticleStats() {
+        // the whole table is added up, but only when the stats are asked for
+        source.getNonArticleStats();
+        assertIndexed("non_article", "TEMP B-TREE");
+    }
+
+    /**
+     * Queues a statement that doesn't run through a cursor, such as an update or a delete, so
+     * that its plan is checked by the next {@link #assertIndexed(String...)}. The where clause
+     * should come from the same constant that {@link DataSource} uses.
+     */
+    private void explain(String sql) {
+        queries.add(sql);
+    }
+
+    /**
+     * Explains every query that has run since the last call and fails if any of them needs a full
+     * scan or a temporary sort.
+     *
+     * @param allowed tables or aliases that can be scanned, and TEMP B-TREE if sorting is fine.
+     */
+    private void assertIndexed(String... allowed) {
+        List<String> ran = new ArrayList<>(queries);
+        queries.clear();
+        assertFalse(ran.isEmpty());
+
+        for (String sql : ran) {
+            if (sql.toUpperCase(Locale.US).startsWith("PRAGMA")) {
+                continue;
+            }
+
+            Cursor plan = source.rawQuery("EXPLAIN QUERY PLAN " + sql);
+            while (plan.moveToNext()) {
+                String detail = plan.getString(plan.getColumnCount() - 1);
+                if (isSlow(detail) && !isAllowed(detail, allowed)) {
+                    plan.close();
+                    fail(detail + " in query: " + sql);
+                }
+            }
+
+            plan.close();
+        }
+
+        queries.clear();
+    }
+
+    private static boolean isSlow(String detail) {
+        if (detail.contains("TEMP B-TREE")) {
+            return true;
+        }
+
+        return detail.startsWith("SCAN") && !detail.contains(" USING ") &&
+                !detail.contains("VIRTUAL TABLE");
+    }
+
+    private static boolean isAllowed(String detail, String... allowed) {
+        List<String> scanned = scannedNames(detail);
+        for (String allow : allowed) {
+            if (detail.contains("TEMP B-TREE") ? allow.equals("TEMP B-TREE") :
+                    scanned.contains(allow)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the table and alias from a scan, which is written as either "SCAN TABLE article AS a"
+     * or "SCAN a" depending on the version of sqlite.
+     */
+    private static List<String> scannedNames(String detail) {
+        List<String> names = new ArrayList<>();
+        String[] words = detail.split(" ");
+        int i = words.length > 1 && words[1].equals("TABLE") ? 2 : 1;
+        if (i < words.length) {
+            names.add(words[i]);
+        }
+
+        if (i + 2 < words.length && words[i + 1].equals("AS")) {
+            names.add(words[i + 2]);
+        }
+
+        return names;
+    }
+}
@@ -20,9 +20,12 @@ import android.database.Cursor;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import xyz.klinker.android.article.ArticleRealDataSuite;
+import xyz.klinker.android.article.data.model.SourceDayCountModel;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -56,6 +59,119 @@ public class SQLiteQueryTest extends ArticleRealDataSuite {
         assertNull(article);
     }
 
+    @Test
+    public void getArticle_fromMemory() {
+        Article article = source.getArticle("http://test.com/");
+        article.title = "changed";
+
+        Article cached = source.getArticle("http://test.com/?utm_source=test");
+        assertNotEquals("changed", cached.title);
+        assertEquals(article.id, cached.id);
+        assertEquals(article.getContent(), cached.getContent());
+
+        ArticleMemoryCache.Stats stats = source.getMemoryCacheStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getArticleCount());
+    }
+
+    @Test
+    public void getArticle_memoryCacheDisabled() {
+        source.setMemoryCacheSize(0);
+        source.getArticle("http://test.com/");
+        source.getArticle("http://test.com/");
+
+        assertEquals(0, source.getMemoryCacheStats().getHitCount());
+        assertEquals(2, source.getMemoryCacheStats().getMissCount());
+    }
+
+    @Test
+    public void getArticle_memoryCacheInvalidated() {
+        Article article = source.getArticle("http://test.com/");
+        article.saved = false;
+        source.updateSavedArticleState(article);
+        assertFalse(source.getArticle("http://test.com/").saved);
+
+        article.content = "<p>new content</p>";
+        source.updateArticleContent(article);
+        assertEquals("<p>new content</p>", source.getArticle("http://test.com/").getContent());
+
+        source.deleteArticle(article);
+        assertNull(source.getArticle("http://test.com/"));
+        assertEquals(0, source.getMemoryCacheStats().getHitCount());
+    }
+
+    @Test
+    public void getArticle_needsUrlHash() {
+        source.execSql("insert into article (url, inserted_at, is_article, saved) " +
+                "values ('http://test.com/unhashed', 1, 1, 0)");
+        assertNull(source.getArticle("http://test.com/unhashed"));
+
+        assertEquals(1, source.backfillUrlHashes());
+        assertNotNull(source.getArticle("http://test.com/unhashed"));
+        assertEquals(0, source.backfillUrlHashes());
+    }
+
+    @Test
+    public void getArticle_canonicalVariants() {
+        long id = source.getArticle("http://test.com/2").id;
+
+        assertEquals(id, source.getArticle("http://www.test.com/2/#comments").id);
+        assertEquals(id, source.getArticle("HTTP://m.test.com/2/amp?utm_source=test").id);
+        assertNull(source.getArticle("http://test.com/2?page=2"));
+    }
+
+    @Test
+    public void recanonicalizeUrls() {
+        source.execSql("insert into article (url, inserted_at, is_article, saved) " +
+                "values ('http://www.test.com/moved/?utm_source=test', 1, 1, 0)");
+        source.execSql("insert into article (url, inserted_at, is_article, saved) " +
+                "values ('http://www.test.com/?utm_source=test', 1, 1, 0)");
+
+        UrlHash.recanonicalize(source.getDatabase());
+
+        Article moved = source.getArticle("http://test.com/moved");
+        assertNotNull(moved);
+        assertEquals("http://test.com/moved", moved.url);
+
+        // the canonical url already belongs to another article, so this one is left alone
+        Cursor cursor = source.rawQuery("select count(*) from article " +
+                "where url='http://www.test.com/?utm_source=test'");
+        assertTrue(cursor.moveToFirst());
+        assertEquals(1, cursor.getInt(0));
+        cursor.close();
+        assertEquals("First test article content.",
+                source.getArticle("http://test.com/").getContent());
+    }
+
+    @Test
+    public void insertArticleAlias() {
+        Article article = source.getArticle("http://test.com/3");
+        source.insertArticleAlias("http://short.com/abc?utm_medium=social", article.id);
+
+        Article aliased = source.getArticle("http://short.com/abc");
+        assertNotNull(aliased);
+        assertEquals(article.id, aliased.id);
+        assertEquals("http://test.com/3", aliased.url);
+        assertEquals(1, count("article_alias"));
+
+        // the canonical url of another article is never an alias
+        source.insertArticleAlias("http://test.com/2", article.id);
+        assertEquals(1, count("article_alias"));
+        assertEquals("http://test.com/2", source.getArticle("http://test.com/2").url);
+    }
+
+    @Test
+    public void deleteArticle_removesAliases() {
+        Article article = source.getArticle("http://test.com/3");
+        source.insertArticleAlias("http://short.com/abc", article.id);
+
+        source.deleteArticle(article);
+
+        assertNull(source.getArticle("http://short.com/abc"));
+        assertEquals(0, count("article_alias"));
+    }
+
     @Test
     public void getAllArticles() {
         Cursor articles = source.getAllArticles();
@@ -198,6 +314,32 @@ public class SQLiteQueryTest extends ArticleRealDataSuite {
         assertEquals("blah", article.content);
     }
 
+    @Test
+    public void updateArticleBlocks() {
+        Article article = source.getArticle("http://test.com/");
+        assertNull(article.getBlocks());
+
+        List<ArticleBlock> blocks = Arrays.asList(
+                new ArticleBlock("p", "paragraph", null, null),
+                new ArticleBlock("li", "item", null, "ol"),
+                new ArticleBlock("img", null, "http://test.com/image.png", null));
+        source.updateArticleBlocks(article.id, blocks);
+
+        assertEquals(blocks, source.getArticle("http://test.com/").getBlocks());
+    }
+
+    @Test
+    public void updateArticleContent_clearsBlocks() {
+        Article article = source.getArticle("http://test.com/");
+        source.updateArticleBlocks(article.id,
+                Arrays.asList(new ArticleBlock("p", "paragraph", null, null)));
+
+        article.content = "blah";
+        source.updateArticleContent(article);
+
+        assertNull(source.getArticle("http://test.com/").getBlocks());
+    }
+
     @Test
     public void insertCategory() {
         assertFalse(source.categoryExists("test category"));
@@ -307,6 +449,171 @@ public class SQLiteQueryTest extends ArticleRealDataSuite {
         assertEquals(4, source.getSources().size());
     }
 
+    @Test
+    public void insertArticle_compressed() {
+        Article article = new Article();
+        article.url = "http://compressed.com";
+        article.content = "<p>compressed content</p>";
+
+        DataSource.setContentCompressionEnabled(true);
+        try {
+            source.insertArticle(article);
+        } finally {
+            DataSource.setContentCompressionEnabled(false);
+        }
+
+        Cursor cursor = source.rawQuery("select content, codec from content where article_id = " +
+                article.id);
+        assertTrue(cursor.moveToFirst());
+        assertTrue(cursor.isNull(0));
+        assertEquals(ContentCodec.CODEC_DEFLATE, cursor.getInt(1));
+        cursor.close();
+
+        Article loaded = source.getArticle("http://compressed.com");
+        assertNull(loaded.content);
+        assertTrue(loaded.hasContent());
+        assertEquals("<p>compressed content</p>", loaded.getContent());
+    }
+
+    @Test
+    public void compressExistingContent() {
+        assertEquals(1, source.compressExistingContent(1));
+        assertEquals(1, source.compressExistingContent(10));
+        assertEquals(0, source.compressExistingContent(10));
+
+        Article article = source.getArticle("http://test.com/");
+        assertNull(article.content);
+        assertEquals("First test article content.", article.getContent());
+    }
+
+    @Test
+    public void setContent_replacesCompressedContent() {
+        source.compressExistingContent(10);
+
+        Article article = source.getArticle("http://test.com/");
+        article.setContent("<p>new content</p>");
+        assertEquals("<p>new content</p>", article.getContent());
+
+        source.updateArticleContent(article);
+        assertEquals("<p>new content</p>", source.getArticle("http://test.com/").getContent());
+    }
+
+    @Test
+    public void searchArticles() {
+        List<ArticleSearchResult> results = source.searchArticles("first content", 10);
+
+        assertEquals(1, results.size());
+        assertEquals("http://test.com/", results.get(0).article.url);
+        assertTrue(results.get(0).snippet.contains("<b>First</b>"));
+    }
+
+    @Test
+    public void searchArticles_rankedAndPaged() {
+        Article inTitle = new Article();
+        inTitle.url = "http://search.com/title";
+        inTitle.title = "All about kittens";
+        inTitle.content = "<p>Nothing to see here.</p>";
+        source.insertArticle(inTitle);
+
+        Article inContent = new Article();
+        inContent.url = "http://search.com/content";
+        inContent.title = "Animals";
+        inContent.content = "<p>Some words about <b>kittens</b>.</p>";
+        source.insertArticle(inContent);
+
+        List<ArticleSearchResult> results = source.searchArticles("kitten", 10);
+        assertEquals(2, results.size());
+        assertEquals(inTitle.id, results.get(0).article.id);
+        assertEquals(inContent.id, results.get(1).article.id);
+        assertTrue(results.get(0).score > results.get(1).score);
+
+        results = source.searchArticles("kitten", 1, 1);
+        assertEquals(1, results.size());
+        assertEquals(inContent.id, results.get(0).article.id);
+    }
+
+    @Test
+    public void searchArticles_followsUpdatesAndDeletes() {
+        Article article = source.getArticle("http://test.com/");
+        article.content = "<p>replaced with giraffes</p>";
+        source.updateArticleContent(article);
+
+        assertEquals(0, source.searchArticles("first", 10).size());
+        assertEquals(1, source.searchArticles("giraffes", 10).size());
+
+        source.deleteArticle(article);
+        assertEquals(0, source.searchArticles("giraffes", 10).size());
+    }
+
+    @Test
+    public void searchArticles_nothingToSearch() {
+        assertEquals(0, source.searchArticles("  \"* ", 10).size());
+    }
+
+    @Test
+    public void syncSources() {
+        Source updated = new Source();
+        updated.remoteId = 100L;
+        updated.name = "renamed";
+        updated.categoryName = "test 2";
+        updated.imageUrl = "http://renamed";
+
+        Source kept = new Source();
+        kept.remoteId = 102L;
+        kept.name = "test 3";
+        kept.categoryName = "test 2";
+        kept.imageUrl = "http://test3";
+
+        Source added = new Source();
+        added.remoteId = 103L;
+        added.name = "new source";
+        added.categoryName = "new category";
+        added.imageUrl = "http://new";
+
+        source.syncSources(Arrays.asList(updated, kept, added));
+
+        List<Source> sources = source.getSources();
+        assertEquals(3, sources.size());
+        assertNull(source.getSource(101L));
+
+        Source renamed = source.getSource(100L);
+        assertEquals("renamed", renamed.name);
+        assertEquals("http://renamed", renamed.imageUrl);
+        assertEquals("test 2", renamed.categoryName);
+        assertEquals(Long.valueOf(2L), renamed.categoryId);
+
+        Source inserted = source.getSource(103L);
+        assertEquals("new category", inserted.categoryName);
+        assertEquals(added.categoryId, inserted.categoryId);
+        assertEquals(source.getCategoryId("new category"), added.categoryId);
+    }
+
+    @Test
+    public void syncSources_missingFields() {
+        Source noImage = new Source();
+        noImage.remoteId = 103L;
+        noImage.name = "no image";
+        noImage.categoryName = "test 2";
+
+        Source noName = new Source();
+        noName.remoteId = 100L;
+        noName.categoryName = "test 2";
+        noName.imageUrl = "http://renamed";
+
+        source.syncSources(Arrays.asList(noImage, noName));
+
+        assertEquals("", source.getSource(103L).imageUrl);
+        assertEquals("test 1", source.getSource(100L).name);
+        assertNull(source.getSource(101L));
+    }
+
+    @Test
+    public void syncSources_empty() {
+        source.syncSources(new ArrayList<Source>());
+        assertEquals(0, source.getSources().size());
+        assertTrue(source.categoryExists("test"));
+    }
+
     @Test
     public void deleteSource() {
         int count = source.getSources().size();
@@ -334,4 +641,281 @@ public class SQLiteQueryTest extends ArticleRealDataSuite {
         source.deleteArticle(-1L);
         assertEquals(count, source.getAllArticles().getCount());
     }
+
+    @Test
+    public void evictArticles_keepsSavedArticles() {
+        assertEquals(7, source.evictArticles(Long.MAX_VALUE, 0));
+        assertEquals(1, source.getArticleCount());
+        assertNotNull(source.getArticle("http://test.com/"));
+        assertEquals(0, source.evictArticles(Long.MAX_VALUE, 0));
+    }
+
+    @Test
+    public void evictArticles_leastRecentlyReadFirst() {
+        source.markArticleRead(source.getArticle("http://test.com/2"));
+
+        assertEquals(6, source.evictArticles(Long.MAX_VALUE, 2));
+        assertNotNull(source.getArticle("http://test.com/"));
+        assertNotNull(source.getArticle("http://test.com/2"));
+        assertNull(source.getArticle("http://test.com/3"));
+    }
+
+    @Test
+    public void evictArticles_underBudget() {
+        assertEquals(0, source.evictArticles(Long.MAX_VALUE, 8));
+        assertEquals(8, source.getArticleCount());
+    }
+
+    @Test
+    public void evictArticles_deletesContentAndSearchIndex() {
+        assertEquals(7, source.evictArticles(0, Integer.MAX_VALUE));
+
+        Cursor cursor = source.rawQuery("select count(*) from content where article_id != 1");
+        assertTrue(cursor.moveToFirst());
+        assertEquals(0, cursor.getInt(0));
+        cursor.close();
+
+        cursor = source.rawQuery("select count(*) from article_search where docid != 1");
+        assertTrue(cursor.moveToFirst());
+        assertEquals(0, cursor.getInt(0));
+        cursor.close();
+
+        assertEquals(1, source.searchArticles("first content", 10).size());
+    }
+
+    @Test
+    public void getArticlesPage() {
+        ArticlePage page = source.getArticlesPage(null, 3);
+        assertIds(page, 8, 7, 6);
+        assertTrue(page.hasMore());
+
+        page = source.getArticlesPage(page.nextKey, 3);
+        assertIds(page, 5, 4, 3);
+
+        page = source.getArticlesPage(page.nextKey, 3);
+        assertIds(page, 2, 1);
+        assertNull(page.nextKey);
+    }
+
+    @Test
+    public void getArticlesPage_exactlyFull() {
+        ArticlePage page = source.getArticlesPage(null, 8);
+        assertEquals(8, page.articles.size());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void getArticlesPage_sameInsertedAt() {
+        Article first = new Article();
+        first.url = "http://paging.com/1";
+        first.insertedAt = 100;
+        source.insertArticle(first);
+
+        Article second = new Article();
+        second.url = "http://paging.com/2";
+        second.insertedAt = 100;
+        source.insertArticle(second);
+
+        ArticlePage page = source.getArticlesPage(null, 1);
+        assertIds(page, second.id);
+        page = source.getArticlesPage(page.nextKey, 1);
+        assertIds(page, first.id);
+        page = source.getArticlesPage(page.nextKey, 1);
+        assertIds(page, 8);
+    }
+
+    @Test
+    public void getSavedArticlesPage() {
+        ArticlePage page = source.getSavedArticlesPage(null, 10);
+        assertIds(page, 1);
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void getArticlesForSourcePage() {
+        ArticlePage page = source.getArticlesForSourcePage(100, null, 2);
+        assertIds(page, 6, 4);
+
+        page = source.getArticlesForSourcePage(100, page.nextKey, 2);
+        assertIds(page, 3);
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void getArticlesPage_empty() {
+        assertEquals(0, source.getArticlesPage(null, 0).articles.size());
+        assertEquals(0, source.getArticlesForSourcePage(999, null, 10).articles.size());
+    }
+
+    private static void assertIds(ArticlePage page, long... ids) {
+        assertEquals(ids.length, page.articles.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], page.articles.get(i).id);
+        }
+    }
+
+    @Test
+    public void getCategoryCounts_matchesFullCount() {
+        long day = SourceDayCountModel.DAY_MILLIS;
+        insertSourceArticle("day one", 100, day + 10);
+        insertSourceArticle("day one later", 102, day + 5000);
+        insertSourceArticle("day two", 101, 2 * day);
+        insertSourceArticle("day four", 102, 4 * day - 1);
+        insertSourceArticle("unknown source", 999, 2 * day);
+
+        long[] timestamps = { -5, 0, 4, day - 1, day, day + 10, day + 11, 2 * day, 3 * day,
+                4 * day, 5 * day };
+        for (long timestamp : timestamps) {
+            assertSameCounts(countEveryArticle(timestamp), source.getCategoryCounts(timestamp));
+        }
+    }
+
+    @Test
+    public void getCategoryCounts_followsUpdatesAndDeletes() {
+        long day = SourceDayCountModel.DAY_MILLIS;
+        Article article = insertSourceArticle("moved", 102, 3 * day);
+        assertEquals(1, source.getCategoryCounts(day).getTotalCount());
+
+        article.insertedAt = 5;
+        source.updateArticleInsertedAtTimestamp(article);
+        assertEquals(0, source.getCategoryCounts(day).getTotalCount());
+        assertSameCounts(countEveryArticle(0), source.getCategoryCounts(0));
+
+        source.deleteArticle(article);
+        assertSameCounts(countEveryArticle(0), source.getCategoryCounts(0));
+
+        Cursor cursor = source.rawQuery("select sum(count) from source_day_count");
+        assertTrue(cursor.moveToFirst());
+        assertEquals(6, cursor.getInt(0));
+        cursor.close();
+    }
+
+    private Article insertSourceArticle(String title, long sourceId, long insertedAt) {
+        Article article = new Article();
+        article.url = "http://counts.com/" + title;
+        article.title = title;
+        article.sourceId = sourceId;
+        article.insertedAt = insertedAt;
+        source.insertArticle(article);
+        return article;
+    }
+
+    /**
+     * Counts the categories by grouping every article, the way it was done before the daily
+     * counts were kept.
+     */
+    private CategoryCounts countEveryArticle(long timestamp) {
+        Cursor cursor = source.getDatabase().rawQuery("select c.name as name, count(c._id) as " +
+                "count from article a join source s on a.source_id = s.remote_id join " +
+                "category c on s.category_id = c._id where a.inserted_at > ? and " +
+                "a.source_id not null group by c._id order by count desc, c._id asc",
+                new String[] { Long.toString(timestamp) });
+
+        List<Category> categories = new ArrayList<>();
+        int total = 0;
+        while (cursor.moveToNext()) {
+            Category category = new Category(cursor);
+            total += category.numberArticles;
+            categories.add(category);
+        }
+
+        cursor.close();
+        return new CategoryCounts(categories, total);
+    }
+
+    @Test
+    public void isNonArticle_url() {
+        assertFalse(source.isNonArticle("http://video.com/watch?v=1"));
+
+        source.insertNonArticle("http://video.com/watch?v=1");
+        assertTrue(source.isNonArticle("https://www.video.com/watch?v=1&utm_source=test"));
+        assertFalse(source.isNonArticle("http://video.com/watch?v=2"));
+    }
+
+    @Test
+    public void isNonArticle_domainThreshold() {
+        for (int i = 1; i < DataSource.NON_ARTICLE_DOMAIN_THRESHOLD; i++) {
+            source.insertNonArticle("http://video.com/watch?v=" + i);
+        }
+        assertFalse(source.isNonArticle("http://video.com/watch?v=100"));
+
+        source.insertNonArticle("http://video.com/watch?v=" +
+                DataSource.NON_ARTICLE_DOMAIN_THRESHOLD);
+        assertTrue(source.isNonArticle("http://video.com/watch?v=100"));
+        assertFalse(source.isNonArticle("http://other.com/watch?v=100"));
+    }
+
+    @Test
+    public void isNonArticle_expires() {
+        source.setNonArticleTtl(1000);
+        source.insertNonArticle("http://video.com/watch?v=1", 10000);
+
+        assertTrue(source.isNonArticle("http://video.com/watch?v=1", 10999));
+        assertFalse(source.isNonArticle("http://video.com/watch?v=1", 11000));
+
+        assertEquals(0, source.deleteExpiredNonArticles(10999));
+        assertEquals(2, source.deleteExpiredNonArticles(11000));
+        assertEquals(0, count("non_article"));
+    }
+
+    @Test
+    public void insertNonArticle_expiredDomainStartsOver() {
+        source.setNonArticleTtl(1000);
+        for (int i = 0; i < DataSource.NON_ARTICLE_DOMAIN_THRESHOLD - 1; i++) {
+            source.insertNonArticle("http://video.com/watch?v=" + i, 10000);
+        }
+
+        source.insertNonArticle("http://video.com/watch?v=last", 20000);
+        assertFalse(source.isNonArticle("http://video.com/watch?v=100", 20000));
+    }
+
+    @Test
+    public void deleteNonArticle() {
+        for (int i = 0; i < DataSource.NON_ARTICLE_DOMAIN_THRESHOLD; i++) {
+            source.insertNonArticle("http://video.com/watch?v=" + i);
+        }
+
+        source.deleteNonArticle("http://video.com/watch?v=0");
+        assertFalse(source.isNonArticle("http://video.com/watch?v=0"));
+        assertFalse(source.isNonArticle("http://video.com/watch?v=100"));
+        assertTrue(source.isNonArticle("http://video.com/watch?v=1"));
+    }
+
+    @Test
+    public void getNonArticleStats() {
+        for (int i = 0; i < DataSource.NON_ARTICLE_DOMAIN_THRESHOLD; i++) {
+            source.insertNonArticle("http://video.com/watch?v=" + i);
+        }
+        source.insertNonArticle("http://other.com/page");
+
+        source.isNonArticle("http://video.com/watch?v=0");
+        source.isNonArticle("http://video.com/watch?v=0");
+        source.isNonArticle("http://video.com/watch?v=100");
+        source.isNonArticle("http://other.com/missing");
+
+        DataSource.NonArticleStats stats = source.getNonArticleStats();
+        assertEquals(DataSource.NON_ARTICLE_DOMAIN_THRESHOLD + 1, stats.getUrlCount());
+        assertEquals(2, stats.getDomainCount());
+        assertEquals(2, stats.getUrlHits());
+        assertEquals(1, stats.getDomainHits());
+    }
+
+    private int count(String table) {
+        Cursor cursor = source.rawQuery("select count(*) from " + table);
+        cursor.moveToFirst();
+        int count = cursor.getInt(0);
+        cursor.close();
+        return count;
+    }
+
+    private static void assertSameCounts(CategoryCounts expected, CategoryCounts actual) {
+        assertEquals(expected.getTotalCount(), actual.getTotalCount());
+        assertEquals(expected.getCategories().size(), actual.getCategories().size());
+        for (int i = 0; i < expected.getCategories().size(); i++) {
+            assertEquals(expected.getCategories().get(i).name,
+                    actual.getCategories().get(i).name);
+            assertEquals(expected.getCategories().get(i).numberArticles,
+                    actual.getCategories().get(i).numberArticles);
+        }
+    }
 }
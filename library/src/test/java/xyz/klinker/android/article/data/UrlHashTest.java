@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2017 Jake Klinker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package xyz.klinker.android.article.data;
+
+import org.junit.Test;
+
+import xyz.klinker.android.article.ArticleSuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class UrlHashTest extends ArticleSuite {
+
+    @Test
+    public void hash() {
+        assertEquals(0xcbf29ce484222325L, UrlHash.hash(""));
+        assertEquals(0x089be207b544f1e4L, UrlHash.hash("a"));
+        assertEquals(0x75fc0017eb7c6f71L, UrlHash.hash("http://test.com/"));
+    }
+
+    @Test
+    public void hash_differentUrls() {
+        assertNotEquals(UrlHash.hash("http://test.com/1"), UrlHash.hash("http://test.com/2"));
+        assertNotEquals(UrlHash.hash("http://test.com/"), UrlHash.hash("http://test.com"));
+    }
+}